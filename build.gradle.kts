@@ -1,6 +1,9 @@
 plugins {
     id("java")
+    // src/testFixtures：合成语料生成器等，供测试、基准与命令行索引器共用
+    id("java-test-fixtures")
     id("org.jetbrains.intellij") version "1.17.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.company"
@@ -15,6 +18,28 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
 }
 
+// 命令行索引器：独立 source set，复用主源码与平台依赖，不打入插件包
+sourceSets {
+    create("headless") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath + sourceSets["testFixtures"].output
+        runtimeClasspath += output + compileClasspath
+    }
+    // JMH 基准（src/jmh/java）同样需要平台依赖
+    named("jmh") {
+        compileClasspath += sourceSets.main.get().compileClasspath + sourceSets["testFixtures"].output
+        runtimeClasspath += sourceSets.main.get().compileClasspath + sourceSets["testFixtures"].output
+    }
+}
+
+// 基准测试：./gradlew jmh，结果写入 build/reports/jmh/results.json，便于跨提交对比
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    // 只跑部分基准：./gradlew jmh -PjmhIncludes=ZyIndexBenchmark
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
+
 intellij {
     // CI 环境使用远程下载指定平台（避免依赖本机 IDEA 路径）
     type.set("IC")
@@ -38,6 +63,23 @@ tasks {
 
     test {
         useJUnitPlatform()
+        // 性能回归测试耗时较长，单独由 perfTest 运行
+        exclude("**/perf/**")
+    }
+
+    // 性能回归测试：./gradlew perfTest -Pzy.perf.files=5000 -Pzy.perf.scale=2
+    // 预算与语料规模通过 zy.perf.* 属性覆盖，结果写入 build/reports/zy-perf/results.jsonl
+    register<Test>("perfTest") {
+        group = "verification"
+        description = "Run performance regression tests with latency and allocation budgets"
+        testClassesDirs = sourceSets.test.get().output.classesDirs
+        classpath = sourceSets.test.get().runtimeClasspath
+        useJUnit()
+        include("**/perf/**")
+        maxHeapSize = "2g"
+        systemProperty("zy.perf.report", layout.buildDirectory.file("reports/zy-perf/results.jsonl").get().asFile.path)
+        project.properties.filterKeys { it.startsWith("zy.perf.") }.forEach { (k, v) -> systemProperty(k, v.toString()) }
+        outputs.upToDateWhen { false }
     }
 
     patchPluginXml {
@@ -45,6 +87,17 @@ tasks {
         untilBuild.set("252.*")
     }
     
+    // 用法：./gradlew runHeadlessIndexer -PindexerArgs="/path/to/project --threads 8 --repeat 3"
+    register<JavaExec>("runHeadlessIndexer") {
+        group = "zy"
+        description = "Index a directory tree without the IDE and report throughput"
+        mainClass.set("com.company.plugin.index.ZyHeadlessIndexer")
+        classpath = sourceSets["headless"].runtimeClasspath
+        systemProperty("zy.plugin.version", project.version.toString())
+        systemProperty("java.awt.headless", "true")
+        args = (project.findProperty("indexerArgs") as String? ?: "").split(" ").filter { it.isNotBlank() }
+    }
+
     runIde {
         // 添加JVM参数以解决兼容性问题，包含调试支持
         jvmArgs = listOf(
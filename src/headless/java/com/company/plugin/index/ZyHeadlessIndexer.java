@@ -0,0 +1,244 @@
+package com.company.plugin.index;
+
+import com.company.plugin.diagnostics.ZyMetrics;
+import com.company.plugin.diagnostics.ZyTracer;
+import com.company.plugin.fixtures.ZyCorpusGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * 命令行索引器（无 IDE 环境）
+ * - 对本地目录树运行与 IDE 相同的 ZyScopeBasedParser 与 JSON 索引写入逻辑
+ * - 产出与 IDE 相同结构的 .idea/index/zy 目录（头部插件版本取 -Dzy.plugin.version）
+ * - 输出吞吐：files/sec、bytes/sec、symbols/sec 与堆内存峰值
+ *
+ * - 文件编码与 IDE 的 VirtualFile 编码一致：按 .idea/encodings.xml 的文件/目录映射与项目编码解析，未配置时为 UTF-8
+ *
+ * 用法：ZyHeadlessIndexer <projectRoot> [--threads N] [--repeat N] [--out DIR] [--no-write] [--export-bundle FILE]
+ *                        [--generate FILES [--seed S] [--pathological K]] [--metrics FILE] [--trace FILE] [--charset NAME]
+ * 指定 --generate 时先在 projectRoot 下生成合成语料再索引；--metrics 将单文件解析等指标写为 JSON；
+ * --trace 记录全部 span 并导出为 Chrome trace；--charset 忽略 encodings.xml，所有文件按指定编码解码
+ */
+public final class ZyHeadlessIndexer {
+
+    private ZyHeadlessIndexer() {}
+
+    /**
+     * 命令行参数
+     */
+    static final class Options {
+        Path root;
+        Path out;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int repeat = 1;
+        boolean write = true;
+        Path bundle;
+        /** 生成合成语料的文件数（0 表示不生成） */
+        int generate;
+        long seed = 42L;
+        int pathological;
+        Path metrics;
+        Path trace;
+        /** 强制使用的文件编码（null 表示按 encodings.xml 解析） */
+        Charset charset;
+    }
+
+    /**
+     * 单轮索引结果
+     */
+    static final class RunResult {
+        int files;
+        long bytes;
+        long symbols;
+        int dirs;
+        long parseNanos;
+        long writeNanos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ZyHeadlessIndexer <projectRoot> [--threads N] [--repeat N] [--out DIR] [--no-write] [--export-bundle FILE]"
+                    + " [--generate FILES [--seed S] [--pathological K]] [--metrics FILE] [--trace FILE] [--charset NAME]");
+            System.err.println("Files are decoded with the project encoding from .idea/encodings.xml (UTF-8 when absent) unless --charset is given.");
+            System.exit(2);
+            return;
+        }
+
+        if (options.generate > 0) {
+            ZyCorpusGenerator.Config config = new ZyCorpusGenerator.Config(options.seed, options.generate).withPathological(options.pathological);
+            long start = System.nanoTime();
+            ZyCorpusGenerator.Stats stats = new ZyCorpusGenerator(config).writeTo(options.root);
+            System.out.printf("generated files=%d lines=%d bytes=%d in %.1f ms%n", stats.files, stats.lines, stats.bytes, (System.nanoTime() - start) / 1e6);
+        }
+
+        if (options.trace != null) ZyTracer.setEnabled(true, 1.0);
+        System.out.println("root=" + options.root + ", threads=" + options.threads + ", repeat=" + options.repeat
+                + ", plugin=" + ZyIndexFileFormat.pluginVersion());
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try {
+            for (int i = 1; i <= options.repeat; i++) {
+                resetPeakUsage();
+                RunResult r = run(options, pool);
+                report(i, r);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (options.bundle != null) {
+            int n = ZyIndexBundle.export(options.root, options.bundle, null, encodings(options));
+            System.out.println("bundle: files=" + n + " -> " + options.bundle);
+        }
+        if (options.metrics != null) {
+            System.out.print(ZyMetrics.format(ZyMetrics.snapshot()));
+            System.out.println("metrics -> " + ZyMetrics.dump(options.metrics));
+        }
+        if (options.trace != null) {
+            ZyTracer.setEnabled(false, 1.0);
+            System.out.println("trace: spans=" + ZyTracer.exportChromeTrace(options.trace) + " -> " + options.trace);
+        }
+    }
+
+    /**
+     * 执行一轮：并行解析全部文件，按目录组装后一次性写出
+     */
+    static RunResult run(Options options, ForkJoinPool pool) throws Exception {
+        RunResult result = new RunResult();
+        Path root = options.root;
+        ZyFileEncodings encodings = encodings(options);
+
+        long parseStart = System.nanoTime();
+        List<Path> files = ZyIndexBundle.listZyFiles(root);
+        List<ZyJsonIndexStore.FileEntry> entries = pool.submit(() -> files.parallelStream()
+                .map(p -> parseFile(root, p, encodings))
+                .filter(fe -> fe != null)
+                .collect(Collectors.toList())).get();
+
+        // 与 IDE 相同：按目录分组，再推断目录命名空间
+        Map<String, ZyJsonIndexStore.DirIndex> byDir = new TreeMap<>();
+        for (ZyJsonIndexStore.FileEntry fe : entries) {
+            int slash = fe.path.lastIndexOf('/');
+            String relDir = slash > 0 ? fe.path.substring(0, slash) : "";
+            byDir.computeIfAbsent(relDir, ZyJsonIndexStore::newDirIndex).files.add(fe);
+            result.bytes += fe.size;
+            result.symbols += fe.symbols == null ? 0 : fe.symbols.size();
+        }
+        List<ZyJsonIndexStore.DirIndex> collected = new ArrayList<>();
+        for (ZyJsonIndexStore.DirIndex index : byDir.values()) {
+            collected.add(ZyJsonIndexStore.assembleDirIndex(index));
+        }
+        result.parseNanos = System.nanoTime() - parseStart;
+        result.files = entries.size();
+        result.dirs = collected.size();
+
+        if (options.write) {
+            long writeStart = System.nanoTime();
+            ZyJsonIndexStore.writeAllSegments(options.out, collected);
+            result.writeNanos = System.nanoTime() - writeStart;
+        }
+        return result;
+    }
+
+    private static ZyJsonIndexStore.FileEntry parseFile(Path root, Path file, ZyFileEncodings encodings) {
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            ZyJsonIndexStore.FileEntry fe = new ZyJsonIndexStore.FileEntry();
+            fe.path = root.relativize(file).toString().replace('\\', '/');
+            fe.mtime = Files.getLastModifiedTime(file).toMillis();
+            fe.size = bytes.length;
+            fe.symbols = ZySymbolIndexService.extractSymbolsWithNamespace(new String(bytes, encodings.charsetOf(fe.path)));
+            return fe;
+        } catch (Exception e) {
+            System.err.println("Read file failed: " + file + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private static ZyFileEncodings encodings(Options options) {
+        return options.charset != null ? ZyFileEncodings.fixed(options.charset) : ZyFileEncodings.load(options.root);
+    }
+
+    private static void report(int iteration, RunResult r) {
+        double parseSec = Math.max(r.parseNanos, 1) / 1e9;
+        System.out.printf("#%d files=%d dirs=%d bytes=%d symbols=%d%n", iteration, r.files, r.dirs, r.bytes, r.symbols);
+        System.out.printf("   parse %.1f ms: %.0f files/sec, %.2f MB/sec, %.0f symbols/sec%n",
+                r.parseNanos / 1e6, r.files / parseSec, r.bytes / parseSec / (1024 * 1024), r.symbols / parseSec);
+        if (r.writeNanos > 0) System.out.printf("   write %.1f ms%n", r.writeNanos / 1e6);
+        System.out.printf("   peak heap %.1f MB%n", peakHeapBytes() / (1024.0 * 1024));
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    static Options parseArgs(String[] args) {
+        Options o = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--threads": o.threads = Integer.parseInt(value(args, ++i, a)); break;
+                case "--repeat": o.repeat = Integer.parseInt(value(args, ++i, a)); break;
+                case "--out": o.out = Path.of(value(args, ++i, a)); break;
+                case "--no-write": o.write = false; break;
+                case "--export-bundle": o.bundle = Path.of(value(args, ++i, a)); break;
+                case "--generate": o.generate = Integer.parseInt(value(args, ++i, a)); break;
+                case "--seed": o.seed = Long.parseLong(value(args, ++i, a)); break;
+                case "--pathological": o.pathological = Integer.parseInt(value(args, ++i, a)); break;
+                case "--metrics": o.metrics = Path.of(value(args, ++i, a)); break;
+                case "--trace": o.trace = Path.of(value(args, ++i, a)); break;
+                case "--charset":
+                    try {
+                        o.charset = Charset.forName(value(args, ++i, a));
+                    } catch (java.nio.charset.UnsupportedCharsetException | java.nio.charset.IllegalCharsetNameException e) {
+                        throw new IllegalArgumentException("Unsupported charset: " + args[i]);
+                    }
+                    break;
+                default:
+                    if (a.startsWith("--")) throw new IllegalArgumentException("Unknown option: " + a);
+                    if (o.root != null) throw new IllegalArgumentException("Only one project root is allowed");
+                    o.root = Path.of(a).toAbsolutePath().normalize();
+            }
+        }
+        if (o.root != null && o.generate > 0 && Files.notExists(o.root)) {
+            try {
+                Files.createDirectories(o.root);
+            } catch (java.io.IOException e) {
+                throw new IllegalArgumentException("Cannot create project root: " + o.root);
+            }
+        }
+        if (o.root == null || !Files.isDirectory(o.root)) throw new IllegalArgumentException("Project root is not a directory: " + o.root);
+        if (o.threads < 1 || o.repeat < 1) throw new IllegalArgumentException("--threads and --repeat must be >= 1");
+        if (o.out == null) o.out = o.root.resolve(".idea").resolve("index").resolve("zy");
+        return o;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+        return args[i];
+    }
+}
@@ -0,0 +1,53 @@
+package com.company.plugin.highlighting;
+
+import com.company.plugin.index.ZyBenchmarkInputs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 词法分析基准：整文件切分 token
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZyLexerBenchmark {
+
+    @Param({ZyBenchmarkInputs.SMALL, ZyBenchmarkInputs.MEDIUM, ZyBenchmarkInputs.LARGE})
+    public String size;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = ZyBenchmarkInputs.text(size);
+    }
+
+    /**
+     * 从头到尾切分整个文件，返回 token 数
+     */
+    @Benchmark
+    public int lexFullFile() {
+        ZyLexer lexer = new ZyLexer();
+        lexer.start(text, 0, text.length(), 0);
+        int count = 0;
+        while (lexer.getTokenType() != null) {
+            count++;
+            lexer.advance();
+        }
+        return count;
+    }
+}
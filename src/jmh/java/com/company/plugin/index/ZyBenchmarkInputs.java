@@ -0,0 +1,69 @@
+package com.company.plugin.index;
+
+import com.company.plugin.fixtures.ZyCorpusGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试输入：按规模生成确定性的 .zy 文本（相同规模每次内容一致）
+ * - small：约 200 行
+ * - medium：约 5000 行
+ * - large：约 50000 行
+ */
+public final class ZyBenchmarkInputs {
+
+    /** 可用规模（与各基准的 @Param 取值一致） */
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+
+    // 固定种子，保证不同提交间的输入一致
+    private static final long SEED = 42L;
+
+    private ZyBenchmarkInputs() {}
+
+    /**
+     * 规模对应的目标行数
+     */
+    public static int lines(String size) {
+        switch (size) {
+            case SMALL: return 200;
+            case MEDIUM: return 5_000;
+            case LARGE: return 50_000;
+            default: throw new IllegalArgumentException("Unknown input size: " + size);
+        }
+    }
+
+    /**
+     * 生成指定规模的单文件文本（由合成语料生成器产出，种子固定）
+     */
+    public static String text(String size) {
+        return ZyCorpusGenerator.hugeFile(SEED, "Bench\\Model", "Entity", lines(size));
+    }
+
+    /**
+     * 构造一份符号表状态：classes 个类，每类若干方法，分布在 files 个文件中
+     * 用于定义查找的命中/未命中基准
+     */
+    public static ZySymbolIndexService.State state(int files, int classesPerFile) {
+        ZySymbolIndexService.State state = new ZySymbolIndexService.State();
+        Map<String, List<ZySymbolIndexService.LocationState>> map = new HashMap<>();
+        for (int f = 0; f < files; f++) {
+            String path = "/bench/src/module" + (f % 50) + "/File" + f + ".zy";
+            state.fileTimestamps.put(path, 1L);
+            for (int c = 0; c < classesPerFile; c++) {
+                int offset = c * 400;
+                map.computeIfAbsent("Entity" + c, k -> new ArrayList<>()).add(new ZySymbolIndexService.LocationState(path, offset));
+                for (int m = 0; m < 6; m++) {
+                    map.computeIfAbsent("method" + m, k -> new ArrayList<>()).add(new ZySymbolIndexService.LocationState(path, offset + 40 + m * 50));
+                }
+            }
+        }
+        state.symbolToLocations = map;
+        state.formatVersion = ZySymbolIndexService.FORMAT_VERSION;
+        return state;
+    }
+}
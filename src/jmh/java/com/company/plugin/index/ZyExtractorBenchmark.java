@@ -0,0 +1,55 @@
+package com.company.plugin.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 符号提取基准
+ * - ZyScopeBasedParser.extractSymbols 整体提取（内部失败时返回空列表）
+ * - 索引使用的两条提取路径：作用域解析（失败后回退正则）与纯正则
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZyExtractorBenchmark {
+
+    @Param({ZyBenchmarkInputs.SMALL, ZyBenchmarkInputs.MEDIUM, ZyBenchmarkInputs.LARGE})
+    public String size;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = ZyBenchmarkInputs.text(size);
+    }
+
+    @Benchmark
+    public List<ZyScopeBasedParser.Symbol> extractSymbols() {
+        return ZyScopeBasedParser.extractSymbols(text);
+    }
+
+    @Benchmark
+    public List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithNamespace() {
+        return ZySymbolIndexService.extractSymbolsWithNamespace(text);
+    }
+
+    @Benchmark
+    public List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithRegex() {
+        return ZySymbolIndexService.extractSymbolsWithRegex(text);
+    }
+}
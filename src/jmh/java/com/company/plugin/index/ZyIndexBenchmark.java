@@ -0,0 +1,79 @@
+package com.company.plugin.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 索引查询与序列化基准
+ * - findDefinitions 命中/未命中（直接查询已加载的符号表，不触发磁盘扫描）
+ * - 目录索引 JSON 正文的编码与解码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZyIndexBenchmark {
+
+    @Param({ZyBenchmarkInputs.SMALL, ZyBenchmarkInputs.MEDIUM, ZyBenchmarkInputs.LARGE})
+    public String size;
+
+    private ZySymbolIndexService service;
+    private ZyJsonIndexStore.DirIndex dirIndex;
+    private byte[] dirIndexBody;
+
+    @Setup
+    public void setUp() {
+        // 规模映射为符号表中的文件数
+        int files = ZyBenchmarkInputs.lines(size) / 50;
+        service = new ZySymbolIndexService(null);
+        service.loadState(ZyBenchmarkInputs.state(files, 20));
+
+        // 由同规模文本构造一个目录索引
+        dirIndex = ZyJsonIndexStore.newDirIndex("bench/model");
+        String text = ZyBenchmarkInputs.text(size);
+        List<ZyJsonIndexStore.FileEntry> entries = new ArrayList<>();
+        ZyJsonIndexStore.FileEntry fe = new ZyJsonIndexStore.FileEntry();
+        fe.path = "bench/model/Entity.zy";
+        fe.size = text.length();
+        fe.symbols = ZySymbolIndexService.extractSymbolsWithNamespace(text);
+        entries.add(fe);
+        dirIndex.files = entries;
+        ZyJsonIndexStore.assembleDirIndex(dirIndex);
+        dirIndexBody = ZyJsonIndexStore.encode(dirIndex);
+    }
+
+    @Benchmark
+    public List<ZySymbolIndexService.LocationState> findDefinitionsHit() {
+        return service.lookupDefinitions("Entity7", "module7/File7");
+    }
+
+    @Benchmark
+    public List<ZySymbolIndexService.LocationState> findDefinitionsMiss() {
+        return service.lookupDefinitions("NoSuchSymbol", null);
+    }
+
+    @Benchmark
+    public byte[] writeDirIndex() {
+        return ZyJsonIndexStore.encode(dirIndex);
+    }
+
+    @Benchmark
+    public ZyJsonIndexStore.DirIndex readDirIndex() {
+        return ZyJsonIndexStore.decode(dirIndexBody, ZyJsonIndexStore.DirIndex.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.company.plugin.completion;
+
+import com.intellij.codeInsight.completion.InsertHandler;
+import com.intellij.codeInsight.completion.InsertionContext;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.editor.Document;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 补全其他命名空间的类时自动添加 use 导入
+ * - 候选列表只带类的全名，不读取文件、不解析 PSI；导入位置在选中后才由插入处理器扫描文件头部确定
+ * - 插入的 "use 全名;" 与 {@link com.company.plugin.navigation.ZyFileDefinitions} 识别的写法一致，跳转随即可用
+ */
+final class ZyAutoImport {
+
+    // 文件头部：namespace、use 语句（行首可有空白）
+    private static final Pattern NAMESPACE = Pattern.compile("^\\s*namespace\\s+([A-Za-z_\\\\][A-Za-z0-9_\\\\]*)");
+    private static final Pattern USE = Pattern.compile("^\\s*use\\s+([\\\\\\w]+)(?:\\s+as\\s+(\\w+))?\\s*;");
+
+    private ZyAutoImport() {
+    }
+
+    /**
+     * 类 fqn 的插入处理器：选中后按需导入
+     */
+    @NotNull
+    static InsertHandler<LookupElement> handler(@NotNull String fqn) {
+        return (context, item) -> importClass(context, fqn);
+    }
+
+    /**
+     * 同命名空间或已导入时不做处理；短名已被导入为其他类时改写为完全限定名；否则在文件头部加入 use 语句
+     * 在 use 语句中补全时直接写入全名
+     */
+    static void importClass(@NotNull InsertionContext context, @NotNull String fqn) {
+        int slash = fqn.lastIndexOf('\\');
+        if (slash <= 0) return;
+        String namespace = fqn.substring(0, slash);
+        String shortName = fqn.substring(slash + 1);
+        Document document = context.getDocument();
+        CharSequence text = document.getCharsSequence();
+        int lineStart = context.getStartOffset();
+        while (lineStart > 0 && text.charAt(lineStart - 1) != '\n') lineStart--;
+        String linePrefix = text.subSequence(lineStart, context.getStartOffset()).toString().trim();
+        if (linePrefix.equals("use") || linePrefix.equals("namespace")) {
+            // 正在写 use 语句本身：直接补全为全名
+            if (linePrefix.equals("use")) document.replaceString(context.getStartOffset(), context.getTailOffset(), fqn);
+            return;
+        }
+        Header header = Header.scan(text);
+        if (namespace.equals(header.namespace)) return;
+        String imported = header.imports.get(shortName);
+        if (imported != null) {
+            if (!imported.equals(fqn)) {
+                document.replaceString(context.getStartOffset(), context.getTailOffset(), "\\" + fqn);
+            }
+            return;
+        }
+        // 在补全位置之前插入，补全位置随文档修改后移
+        if (header.lastUseEnd >= 0) {
+            document.insertString(header.lastUseEnd, "\nuse " + fqn + ";");
+        } else if (header.namespaceEnd >= 0) {
+            document.insertString(header.namespaceEnd, "\n\nuse " + fqn + ";");
+        } else {
+            document.insertString(header.firstLineStart, "use " + fqn + ";\n\n");
+        }
+    }
+
+    /**
+     * 文件头部（第一行声明或代码之前）的 namespace 与 use 语句及其位置
+     */
+    private static final class Header {
+        String namespace;
+        // namespace 行、最后一条 use 行的行尾偏移；没有时为 -1
+        int namespaceEnd = -1;
+        int lastUseEnd = -1;
+        // 既无 namespace 也无 use 时的插入位置（跳过 <?php 行）
+        int firstLineStart;
+        // 短名或别名 -> 全名
+        final Map<String, String> imports = new HashMap<>();
+
+        static Header scan(CharSequence text) {
+            Header header = new Header();
+            int pos = 0;
+            boolean inComment = false;
+            while (pos < text.length()) {
+                int eol = pos;
+                while (eol < text.length() && text.charAt(eol) != '\n') eol++;
+                String line = text.subSequence(pos, eol).toString();
+                String trimmed = line.trim();
+                if (inComment) {
+                    if (trimmed.contains("*/")) inComment = false;
+                } else if (trimmed.startsWith("/*")) {
+                    inComment = !trimmed.contains("*/");
+                } else if (trimmed.startsWith("<?")) {
+                    header.firstLineStart = Math.min(eol + 1, text.length());
+                } else if (!trimmed.isEmpty() && !trimmed.startsWith("//") && !trimmed.startsWith("#")) {
+                    Matcher use = USE.matcher(line);
+                    Matcher ns = NAMESPACE.matcher(line);
+                    if (use.find()) {
+                        String fqn = use.group(1).startsWith("\\") ? use.group(1).substring(1) : use.group(1);
+                        String alias = use.group(2) != null ? use.group(2) : fqn.substring(fqn.lastIndexOf('\\') + 1);
+                        header.imports.putIfAbsent(alias, fqn);
+                        header.lastUseEnd = eol;
+                    } else if (ns.find() && header.namespace == null) {
+                        header.namespace = ns.group(1).startsWith("\\") ? ns.group(1).substring(1) : ns.group(1);
+                        header.namespaceEnd = eol;
+                    } else {
+                        // 第一行声明或代码：头部结束（类体内的 trait use 不计入）
+                        break;
+                    }
+                }
+                pos = eol + 1;
+            }
+            return header;
+        }
+    }
+}
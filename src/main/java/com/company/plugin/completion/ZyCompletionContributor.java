@@ -1,12 +1,20 @@
 package com.company.plugin.completion;
 
+import com.company.plugin.index.ZySymbolIndexService;
+import com.company.plugin.index.ZySymbolNameTable;
+import com.company.plugin.language.ZyBuiltins;
+import com.company.plugin.navigation.ZyTypeInference;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.util.ProcessingContext;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
@@ -127,170 +135,100 @@ public class ZyCompletionContributor extends CompletionContributor {
         add("true");
     }};
     
-    // PHP 内置函数
-    private static final Set<String> PHP_FUNCTIONS = new HashSet<String>() {{
-        // 字符串函数
-        add("strlen");
-        add("strpos");
-        add("str_replace");
-        add("substr");
-        add("trim");
-        add("ltrim");
-        add("rtrim");
-        add("strtolower");
-        add("strtoupper");
-        add("ucfirst");
-        add("ucwords");
-        add("str_split");
-        add("explode");
-        add("implode");
-        add("sprintf");
-        add("printf");
-        add("htmlspecialchars");
-        add("htmlentities");
-        add("strip_tags");
-        
-        // 数组函数
-        add("array");
-        add("count");
-        add("sizeof");
-        add("array_push");
-        add("array_pop");
-        add("array_shift");
-        add("array_unshift");
-        add("array_merge");
-        add("array_slice");
-        add("array_splice");
-        add("array_keys");
-        add("array_values");
-        add("array_search");
-        add("in_array");
-        add("array_unique");
-        add("array_reverse");
-        add("sort");
-        add("rsort");
-        add("asort");
-        add("arsort");
-        add("ksort");
-        add("krsort");
-        add("usort");
-        add("uasort");
-        add("uksort");
-        
-        // 文件系统函数
-        add("file_exists");
-        add("is_file");
-        add("is_dir");
-        add("file_get_contents");
-        add("file_put_contents");
-        add("fopen");
-        add("fclose");
-        add("fread");
-        add("fwrite");
-        add("fgets");
-        add("fgetc");
-        add("feof");
-        add("fseek");
-        add("ftell");
-        add("copy");
-        add("move_uploaded_file");
-        add("unlink");
-        add("mkdir");
-        add("rmdir");
-        add("chmod");
-        add("chown");
-        
-        // 数学函数
-        add("abs");
-        add("ceil");
-        add("floor");
-        add("round");
-        add("min");
-        add("max");
-        add("rand");
-        add("mt_rand");
-        add("pi");
-        add("pow");
-        add("sqrt");
-        add("sin");
-        add("cos");
-        add("tan");
-        add("asin");
-        add("acos");
-        add("atan");
-        add("log");
-        add("exp");
-        
-        // 日期时间函数
-        add("date");
-        add("time");
-        add("strtotime");
-        add("mktime");
-        add("getdate");
-        add("gmdate");
-        add("microtime");
-        
-        // 其他常用函数
-        add("json_encode");
-        add("json_decode");
-        add("serialize");
-        add("unserialize");
-        add("var_dump");
-        add("print_r");
-        add("gettype");
-        add("is_array");
-        add("is_string");
-        add("is_numeric");
-        add("is_null");
-        add("is_bool");
-        add("filter_var");
-        add("filter_input");
-        add("preg_match");
-        add("preg_replace");
-        add("preg_split");
-    }};
-    
-    // PHP 常量
-    private static final Set<String> PHP_CONSTANTS = new HashSet<String>() {{
-        add("PHP_VERSION");
-        add("PHP_OS");
-        add("PHP_EOL");
-        add("PHP_INT_MAX");
-        add("PHP_INT_MIN");
-        add("PHP_FLOAT_MAX");
-        add("PHP_FLOAT_MIN");
-        add("PHP_SAPI");
-        add("PHP_BINARY");
-        add("E_ERROR");
-        add("E_WARNING");
-        add("E_PARSE");
-        add("E_NOTICE");
-        add("E_CORE_ERROR");
-        add("E_CORE_WARNING");
-        add("E_COMPILE_ERROR");
-        add("E_COMPILE_WARNING");
-        add("E_USER_ERROR");
-        add("E_USER_WARNING");
-        add("E_USER_NOTICE");
-        add("E_STRICT");
-        add("E_RECOVERABLE_ERROR");
-        add("E_DEPRECATED");
-        add("E_USER_DEPRECATED");
-        add("E_ALL");
-        add("DIRECTORY_SEPARATOR");
-        add("PATH_SEPARATOR");
-        add("FILE_SEPARATOR");
-        add("TRUE");
-        add("FALSE");
-        add("NULL");
-        add("M_PI");
-        add("M_E");
-        add("M_LOG2E");
-        add("M_LOG10E");
-        add("M_LN2");
-        add("M_LN10");
-    }};
+    private static final String FUNCTION_TYPE = "PHP Function";
+    private static final String CONSTANT_TYPE = "PHP Constant";
+
+    // 静态词表：ZY/PHP 关键字与内置库（{@link ZyBuiltins}）中的函数、常量合并为按小写排序、去重的名字与类型文本数组
+    // 同名（不区分大小写）只保留一项，优先级：PHP 函数 > ZY 关键字 > PHP 关键字 > PHP 常量
+    // 首次补全时才构建（按需初始化的持有类），词表增大不拖慢贡献者的加载
+    // 只缓存字符串：补全项每次补全时新建，不在会话与项目之间共享同一个 LookupElement 实例
+    private static final class Vocabulary {
+        static final String[] KEYS;
+        static final String[] NAMES;
+        static final String[] TYPE_TEXTS;
+
+        static {
+            TreeMap<String, String[]> merged = new TreeMap<>();
+            for (ZyBuiltins.Function function : ZyBuiltins.getFunctions()) {
+                merged.putIfAbsent(function.name.toLowerCase(), new String[]{function.name, FUNCTION_TYPE});
+            }
+            for (String keyword : ZY_KEYWORDS) {
+                merged.putIfAbsent(keyword.toLowerCase(), new String[]{keyword, "ZY Keyword"});
+            }
+            for (String keyword : PHP_KEYWORDS) {
+                merged.putIfAbsent(keyword.toLowerCase(), new String[]{keyword, "PHP Keyword"});
+            }
+            for (ZyBuiltins.Constant constant : ZyBuiltins.getConstants()) {
+                merged.putIfAbsent(constant.name.toLowerCase(), new String[]{constant.name, CONSTANT_TYPE});
+            }
+            KEYS = merged.keySet().toArray(new String[0]);
+            NAMES = new String[KEYS.length];
+            TYPE_TEXTS = new String[KEYS.length];
+            int i = 0;
+            for (String[] entry : merged.values()) {
+                NAMES[i] = entry[0];
+                TYPE_TEXTS[i] = entry[1];
+                i++;
+            }
+        }
+
+        /**
+         * 按下标新建补全项
+         */
+        static LookupElement element(int i) {
+            String name = NAMES[i];
+            String typeText = TYPE_TEXTS[i];
+            if (FUNCTION_TYPE.equals(typeText)) return createFunctionElement(name);
+            return LookupElementBuilder.create(name)
+                    .withTypeText(typeText)
+                    .withIcon(CONSTANT_TYPE.equals(typeText) ? com.intellij.icons.AllIcons.Nodes.Constant : com.intellij.icons.AllIcons.Nodes.Static);
+        }
+    }
+
+    private static LookupElement createFunctionElement(String function) {
+        return LookupElementBuilder.create(function + "()")
+                .withTypeText(FUNCTION_TYPE)
+                .withIcon(com.intellij.icons.AllIcons.Nodes.Function)
+                .withInsertHandler((context, item) -> {
+                    // 将光标定位到括号中间
+                    int offset = context.getStartOffset() + function.length() + 1;
+                    context.getEditor().getCaretModel().moveToOffset(offset);
+                });
+    }
+
+    /**
+     * 静态词表中键以 lowerPrefix 开头的下标区间 [from, to)
+     */
+    private static int[] vocabularyRange(String lowerPrefix) {
+        int from = lowerBound(lowerPrefix);
+        if (lowerPrefix.isEmpty()) return new int[]{0, Vocabulary.KEYS.length};
+        // 上界：把最后一个字符加一后的下界
+        char last = lowerPrefix.charAt(lowerPrefix.length() - 1);
+        int to = lowerBound(lowerPrefix.substring(0, lowerPrefix.length() - 1) + (char) (last + 1));
+        return new int[]{from, Math.max(from, to)};
+    }
+
+    private static int lowerBound(String key) {
+        int lo = 0;
+        int hi = Vocabulary.KEYS.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Vocabulary.KEYS[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
     
+    // 函数与方法补全：补上括号并把光标放在括号内，已有括号时只移动光标
+    static final InsertHandler<LookupElement> PARENTHESES = (context, item) -> {
+        int tail = context.getTailOffset();
+        CharSequence chars = context.getDocument().getCharsSequence();
+        if (tail >= chars.length() || chars.charAt(tail) != '(') {
+            context.getDocument().insertString(tail, "()");
+        }
+        context.getEditor().getCaretModel().moveToOffset(tail + 1);
+    };
+
     public ZyCompletionContributor() {
         extend(
             CompletionType.BASIC,
@@ -300,6 +238,9 @@ public class ZyCompletionContributor extends CompletionContributor {
     }
     
     private static class ZyCompletionProvider extends CompletionProvider<CompletionParameters> {
+
+        // 项目符号每批加入结果集的条数，批间检查取消
+        private static final int PROJECT_SYMBOL_BATCH = 200;
         
         @Override
         protected void addCompletions(
@@ -323,24 +264,32 @@ public class ZyCompletionContributor extends CompletionContributor {
                 
                 // 获取当前光标位置的文本上下文
                 String prefix = getPrefix(parameters);
+
+                // 变量（"$前缀"）：只提供光标处可见的参数与局部变量
+                if (prefix.startsWith("$")) {
+                    addVariableCompletions(parameters, result, prefix);
+                    return;
+                }
+
+                // 成员访问（"->" 之后）：只提供接收者类的方法与属性
+                if (isAfterArrow(parameters, prefix)) {
+                    addMemberCompletions(project, parameters, result);
+                    return;
+                }
                 
-                // 添加关键字补全
-                addKeywordCompletions(result, prefix);
-                
-                // 添加 PHP 关键字补全
-                addPhpKeywordCompletions(result, prefix);
-                
-                // 添加 PHP 函数补全
-                addPhpFunctionCompletions(result, prefix);
-                
-                // 添加 PHP 常量补全
-                addPhpConstantCompletions(result, prefix);
+                // 添加关键字、PHP 函数与常量补全（静态词表）
+                addVocabularyCompletions(result, prefix);
                 
                 // 添加代码片段补全
                 addSnippetCompletions(result, prefix);
+
+                // 添加项目符号补全（类、函数、命名空间），结果分批流入
+                addProjectSymbolCompletions(project, result, prefix);
                 
                 LOG.debug("Added completions with prefix: " + prefix);
                 
+            } catch (ProcessCanceledException e) {
+                throw e;
             } catch (Exception e) {
                 LOG.error("Error in completion", e);
             }
@@ -367,70 +316,90 @@ public class ZyCompletionContributor extends CompletionContributor {
         }
         
         /**
-         * 添加 ZY 关键字补全
+         * 前缀之前（跳过空白）是否为 "->"
          */
-        private void addKeywordCompletions(CompletionResultSet result, String prefix) {
-            for (String keyword : ZY_KEYWORDS) {
-                if (keyword.toLowerCase().startsWith(prefix.toLowerCase())) {
-                    result.addElement(
-                        LookupElementBuilder.create(keyword)
-                            .withTypeText("ZY Keyword")
-                            .withIcon(com.intellij.icons.AllIcons.Nodes.Static)
-                    );
-                }
-            }
+        private boolean isAfterArrow(CompletionParameters parameters, String prefix) {
+            if (prefix.startsWith("$")) return false;
+            CharSequence chars = parameters.getEditor().getDocument().getCharsSequence();
+            int i = parameters.getOffset() - prefix.length();
+            while (i > 0 && Character.isWhitespace(chars.charAt(i - 1))) i--;
+            return i >= 2 && chars.charAt(i - 1) == '>' && chars.charAt(i - 2) == '-';
         }
-        
+
         /**
-         * 添加 PHP 关键字补全
+         * 添加成员补全：推断接收者类型，取类成员索引中的成员（含继承）
          */
-        private void addPhpKeywordCompletions(CompletionResultSet result, String prefix) {
-            for (String keyword : PHP_KEYWORDS) {
-                if (keyword.toLowerCase().startsWith(prefix.toLowerCase())) {
-                    result.addElement(
-                        LookupElementBuilder.create(keyword)
-                            .withTypeText("PHP Keyword")
-                            .withIcon(com.intellij.icons.AllIcons.Nodes.Static)
-                    );
-                }
+        private void addMemberCompletions(Project project, CompletionParameters parameters, CompletionResultSet result) {
+            PsiFile file = parameters.getOriginalFile();
+            String receiver = ZyTypeInference.of(file).completionReceiverType(project, parameters.getOffset());
+            if (receiver == null) return;
+            ZySymbolIndexService index = ZySymbolIndexService.getInstance(project);
+            for (String fqn : ZyTypeInference.resolveClassFqns(index, file, receiver)) {
+                result.addAllElements(ZyMemberCompletion.elements(project, fqn));
             }
         }
-        
+
         /**
-         * 添加 PHP 函数补全
+         * 添加变量补全：所在函数的参数与光标前出现的局部变量，作用域按函数体缓存
          */
-        private void addPhpFunctionCompletions(CompletionResultSet result, String prefix) {
-            for (String function : PHP_FUNCTIONS) {
-                if (function.toLowerCase().startsWith(prefix.toLowerCase())) {
-                    result.addElement(
-                        LookupElementBuilder.create(function + "()")
-                            .withTypeText("PHP Function")
-                            .withIcon(com.intellij.icons.AllIcons.Nodes.Function)
-                            .withInsertHandler((context, item) -> {
-                                // 将光标定位到括号中间
-                                int offset = context.getStartOffset() + function.length() + 1;
-                                context.getEditor().getCaretModel().moveToOffset(offset);
-                            })
-                    );
-                }
+        private void addVariableCompletions(CompletionParameters parameters, CompletionResultSet result, String prefix) {
+            Document document = parameters.getEditor().getDocument();
+            int prefixStart = parameters.getOffset() - prefix.length();
+            result.addAllElements(ZyVariableCompletion.elements(parameters.getOriginalFile(), document, prefixStart));
+        }
+
+        /**
+         * 添加静态词表补全：二分定位前缀区间，只为区间内的名字新建补全项，开销与命中数成正比
+         */
+        private void addVocabularyCompletions(CompletionResultSet result, String prefix) {
+            int[] range = vocabularyRange(prefix.toLowerCase());
+            for (int i = range[0]; i < range[1]; i++) {
+                result.addElement(Vocabulary.element(i));
             }
         }
         
         /**
-         * 添加 PHP 常量补全
+         * 添加项目符号补全
+         * 在按名字排序的符号名表上二分定位前缀区间，分批加入结果集，首批结果无需等待其余符号
          */
-        private void addPhpConstantCompletions(CompletionResultSet result, String prefix) {
-            for (String constant : PHP_CONSTANTS) {
-                if (constant.toLowerCase().startsWith(prefix.toLowerCase())) {
-                    result.addElement(
-                        LookupElementBuilder.create(constant)
-                            .withTypeText("PHP Constant")
-                            .withIcon(com.intellij.icons.AllIcons.Nodes.Constant)
-                    );
-                }
+        private void addProjectSymbolCompletions(Project project, CompletionResultSet result, String prefix) {
+            if (prefix.isEmpty() || prefix.startsWith("$")) return;
+            ZySymbolNameTable table = ZySymbolIndexService.getInstance(project).getSymbolNameTable();
+            int[] range = table.prefixRange(prefix);
+            List<LookupElement> batch = new ArrayList<>(Math.min(PROJECT_SYMBOL_BATCH, range[1] - range[0]));
+            for (int i = range[0]; i < range[1]; i++) {
+                batch.add(createSymbolElement(table, i));
+                if (batch.size() < PROJECT_SYMBOL_BATCH) continue;
+                result.addAllElements(batch);
+                batch.clear();
+                ProgressManager.checkCanceled();
+                if (result.isStopped()) return;
             }
+            result.addAllElements(batch);
         }
-        
+
+        private static LookupElement createSymbolElement(ZySymbolNameTable table, int i) {
+            String namespace = table.namespace(i);
+            switch (table.kind(i)) {
+                case CLASS:
+                    // 其他命名空间的类选中后自动导入；导入位置由插入处理器在选中时确定
+                    LookupElementBuilder element = LookupElementBuilder.create(table.fqn(i), table.name(i))
+                            .withTypeText(namespace.isEmpty() ? "Class" : namespace)
+                            .withIcon(com.intellij.icons.AllIcons.Nodes.Class);
+                    return namespace.isEmpty() ? element : element.withInsertHandler(ZyAutoImport.handler(table.fqn(i)));
+                case FUNCTION:
+                    return LookupElementBuilder.create(table.name(i))
+                            .withTailText("()", true)
+                            .withTypeText(namespace.isEmpty() ? "Function" : namespace)
+                            .withIcon(com.intellij.icons.AllIcons.Nodes.Function)
+                            .withInsertHandler(PARENTHESES);
+                default:
+                    return LookupElementBuilder.create(table.fqn(i))
+                            .withTypeText("Namespace")
+                            .withIcon(com.intellij.icons.AllIcons.Nodes.Package);
+            }
+        }
+
         /**
          * 添加代码片段补全
          */
@@ -0,0 +1,108 @@
+package com.company.plugin.completion;
+
+import com.company.plugin.index.ZySymbolIndexService;
+import com.company.plugin.navigation.ZyTypeInference;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 成员补全（"接收者->" 之后）：方法与属性，含继承成员
+ * - 成员取自类成员索引（{@link ZySymbolIndexService#collectHierarchyMembers}），不读取类文件
+ * - 过滤后的成员（名字、类型文本、来源类）按（类 FQN，类索引修改计数）缓存在项目上，输入过程中重复触发不再查索引
+ * - 补全项每次调用新建，LookupElement 不跨补全会话共享
+ * - 只读取当前索引状态，不触发索引刷新（不在按键路径上遍历项目文件）
+ */
+final class ZyMemberCompletion {
+
+    private static final Key<Cache> CACHE = Key.create("zy.memberCompletion");
+
+    private ZyMemberCompletion() {
+    }
+
+    /**
+     * 缓存的成员：只含构建补全项所需的字符串与标志
+     */
+    private static final class Item {
+        final String name;
+        final String typeText;
+        final boolean method;
+        // 继承成员的来源类短名；本类成员为 null
+        final String inheritedFrom;
+
+        Item(String name, String typeText, boolean method, String inheritedFrom) {
+            this.name = name;
+            this.typeText = typeText;
+            this.method = method;
+            this.inheritedFrom = inheritedFrom;
+        }
+    }
+
+    /**
+     * 某一类索引版本下的成员缓存；版本变化时整体丢弃
+     */
+    private static final class Cache {
+        final long generation;
+        final Map<String, List<Item>> byClass = new ConcurrentHashMap<>();
+
+        Cache(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * 类 FQN 的成员补全项（含继承，子类覆盖父类同名成员）
+     */
+    @NotNull
+    static List<LookupElement> elements(@NotNull Project project, @NotNull String classFqn) {
+        ZySymbolIndexService index = ZySymbolIndexService.getInstance(project);
+        long generation = index.getClassGeneration();
+        Cache cache;
+        synchronized (CACHE) {
+            cache = project.getUserData(CACHE);
+            if (cache == null || cache.generation != generation) {
+                cache = new Cache(generation);
+                project.putUserData(CACHE, cache);
+            }
+        }
+        List<Item> items = cache.byClass.computeIfAbsent(classFqn, fqn -> collect(index, fqn));
+        if (items.isEmpty()) return Collections.emptyList();
+        List<LookupElement> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            LookupElementBuilder element = LookupElementBuilder.create(item.name)
+                    .withTypeText(item.typeText)
+                    .withIcon(item.method ? com.intellij.icons.AllIcons.Nodes.Method : com.intellij.icons.AllIcons.Nodes.Property);
+            if (item.method) element = element.withTailText("()", true).withInsertHandler(ZyCompletionContributor.PARENTHESES);
+            if (item.inheritedFrom != null) element = element.withTailText((item.method ? "() " : " ") + "(" + item.inheritedFrom + ")", true);
+            else element = element.bold();
+            result.add(element);
+        }
+        return result;
+    }
+
+    private static List<Item> collect(ZySymbolIndexService index, String classFqn) {
+        List<ZySymbolIndexService.MemberLocation> members = index.collectHierarchyMembers(classFqn);
+        if (members.isEmpty()) return Collections.emptyList();
+        List<Item> result = new ArrayList<>(members.size());
+        for (ZySymbolIndexService.MemberLocation ml : members) {
+            ZySymbolIndexService.MemberState m = ml.member;
+            boolean inherited = !classFqn.equals(ml.owner.fqn);
+            List<String> modifiers = m.modifiers != null ? m.modifiers : Collections.emptyList();
+            // 父类的私有成员对子类不可见；静态属性不经 -> 访问
+            if (inherited && modifiers.contains("private")) continue;
+            boolean method = ZySymbolIndexService.MemberState.METHOD.equals(m.kind);
+            if (!method && modifiers.contains("static")) continue;
+            String typeText = m.type != null ? ZyTypeInference.shortName(m.type) : ZyTypeInference.shortName(ml.owner.fqn);
+            result.add(new Item(m.name, typeText, method, inherited ? ZyTypeInference.shortName(ml.owner.fqn) : null));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,148 @@
+package com.company.plugin.completion;
+
+import com.company.plugin.language.ZyBuiltins;
+import com.intellij.lang.parameterInfo.CreateParameterInfoContext;
+import com.intellij.lang.parameterInfo.ParameterInfoHandler;
+import com.intellij.lang.parameterInfo.ParameterInfoUIContext;
+import com.intellij.lang.parameterInfo.UpdateParameterInfoContext;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.TokenType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * 内置函数参数提示（Ctrl+P）
+ * - PSI 为扁平 Token 序列：从光标向前找未闭合的 "("，其前一个标识符若是内置函数（不含方法调用）则展示签名
+ * - 参数持有者为该 "(" Token；当前参数下标为 "(" 到光标之间同层逗号的个数
+ */
+public class ZyParameterInfoHandler implements ParameterInfoHandler<PsiElement, ZyBuiltins.Function> {
+
+    // 向前查找 "(" 时最多经过的 Token 数，避免在大文件中逐个回溯到文件头
+    private static final int MAX_LOOKBEHIND_TOKENS = 2000;
+
+    @Nullable
+    @Override
+    public PsiElement findElementForParameterInfo(@NotNull CreateParameterInfoContext context) {
+        PsiElement open = findOpenParen(context.getFile(), context.getOffset());
+        if (open == null) return null;
+        ZyBuiltins.Function function = ZyBuiltins.getFunction(calleeName(open));
+        if (function == null) return null;
+        context.setItemsToShow(new Object[]{function});
+        return open;
+    }
+
+    @Override
+    public void showParameterInfo(@NotNull PsiElement element, @NotNull CreateParameterInfoContext context) {
+        context.showHint(element, element.getTextRange().getStartOffset(), this);
+    }
+
+    @Nullable
+    @Override
+    public PsiElement findElementForUpdatingParameterInfo(@NotNull UpdateParameterInfoContext context) {
+        PsiElement open = findOpenParen(context.getFile(), context.getOffset());
+        return open != null && ZyBuiltins.isFunction(calleeName(open)) ? open : null;
+    }
+
+    @Override
+    public void updateParameterInfo(@NotNull PsiElement owner, @NotNull UpdateParameterInfoContext context) {
+        if (context.getParameterOwner() != owner) context.setParameterOwner(owner);
+        context.setCurrentParameter(parameterIndex(owner, context.getOffset()));
+    }
+
+    @Override
+    public void updateUI(ZyBuiltins.Function function, @NotNull ParameterInfoUIContext context) {
+        if (function == null) return;
+        List<String> parameters = function.getParameters();
+        if (parameters.isEmpty()) {
+            context.setupUIComponentPresentation("<no parameters>", -1, -1, false, false, false, context.getDefaultParameterColor());
+            return;
+        }
+        int current = context.getCurrentParameterIndex();
+        // 超出参数个数时，可变参数（...$values）继续高亮
+        if (current >= parameters.size() && parameters.get(parameters.size() - 1).contains("...")) {
+            current = parameters.size() - 1;
+        }
+        StringBuilder text = new StringBuilder();
+        int highlightStart = -1;
+        int highlightEnd = -1;
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) text.append(", ");
+            if (i == current) highlightStart = text.length();
+            text.append(parameters.get(i));
+            if (i == current) highlightEnd = text.length();
+        }
+        context.setupUIComponentPresentation(text.toString(), highlightStart, highlightEnd, false, false, false, context.getDefaultParameterColor());
+    }
+
+    /**
+     * 光标所在的未闭合 "("：向前逐个 Token 回溯，跳过已配对的括号（含参数中的闭包体）
+     */
+    @Nullable
+    static PsiElement findOpenParen(@Nullable PsiFile file, int offset) {
+        if (file == null || offset <= 0) return null;
+        PsiElement leaf = file.findElementAt(offset - 1);
+        int depth = 0;
+        for (int n = 0; leaf != null && n < MAX_LOOKBEHIND_TOKENS; leaf = leaf.getPrevSibling(), n++) {
+            String text = leaf.getText();
+            if (text.length() != 1) continue;
+            char c = text.charAt(0);
+            if (c == ')' || c == ']' || c == '}') {
+                depth++;
+            } else if (c == '(' || c == '[' || c == '{') {
+                if (depth == 0) return c == '(' ? leaf : null;
+                depth--;
+            } else if (c == ';' && depth == 0) {
+                // 语句边界之外不再是同一次调用
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * "(" 之前（跳过空白）的标识符文本；不是标识符时返回空串
+     */
+    @NotNull
+    static String calleeName(@NotNull PsiElement open) {
+        PsiElement callee = skipWhitespaceBackward(open.getPrevSibling());
+        if (callee == null) return "";
+        String text = callee.getText();
+        if (text.isEmpty() || !(Character.isLetter(text.charAt(0)) || text.charAt(0) == '_')) return "";
+        // 方法调用（->name、::name）与函数声明（function name）不是内置函数调用
+        PsiElement before = skipWhitespaceBackward(callee.getPrevSibling());
+        if (before != null) {
+            String t = before.getText();
+            if (">".equals(t) || ":".equals(t) || "function".equals(t)) return "";
+        }
+        return text;
+    }
+
+    @Nullable
+    private static PsiElement skipWhitespaceBackward(@Nullable PsiElement element) {
+        while (element != null && element.getNode() != null && element.getNode().getElementType() == TokenType.WHITE_SPACE) {
+            element = element.getPrevSibling();
+        }
+        return element;
+    }
+
+    /**
+     * "(" 与 offset 之间同层逗号的个数，即当前参数下标
+     */
+    static int parameterIndex(@NotNull PsiElement open, int offset) {
+        int index = 0;
+        int depth = 0;
+        for (PsiElement leaf = open.getNextSibling(); leaf != null; leaf = leaf.getNextSibling()) {
+            if (leaf.getTextRange().getStartOffset() >= offset) break;
+            String text = leaf.getText();
+            if (text.length() != 1) continue;
+            char c = text.charAt(0);
+            if (c == '(' || c == '[' || c == '{') depth++;
+            else if (c == ')' || c == ']' || c == '}') depth--;
+            else if (c == ',' && depth == 0) index++;
+        }
+        return index;
+    }
+}
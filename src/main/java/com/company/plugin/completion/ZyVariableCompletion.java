@@ -0,0 +1,333 @@
+package com.company.plugin.completion;
+
+import com.company.plugin.highlighting.ZyLexer;
+import com.company.plugin.highlighting.ZyTokenTypes;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 变量补全（"$前缀"）：光标处可见的参数与局部变量
+ * - 从光标沿扁平 PSI 向前找到最内层的函数（含闭包），只扫描该函数的文本；不在函数内时为顶层代码（只扫描光标之前，跳过函数体与类体）
+ * - 向前回溯至多 {@link #MAX_LOOKBEHIND_TOKENS} 个 Token，超出时不提供变量补全，避免大文件中逐个 Token 回溯到文件开头
+ * - 作用域按（文档修改戳，扫描范围）缓存在文件上，不复制函数文本：文档未修改时再次补全或在同一函数内移动光标直接命中
+ * - 可见性：参数在整个函数内可见，局部变量取光标之前的首次出现；嵌套闭包内部的变量不可见
+ */
+final class ZyVariableCompletion {
+
+    private static final Key<CachedScope> CACHE = Key.create("zy.variableCompletion");
+
+    // 从光标向前查找所在函数时最多经过的 Token 数
+    private static final int MAX_LOOKBEHIND_TOKENS = 2000;
+
+    // 从函数体 "{" 回溯函数头时最多经过的 Token 数（返回类型、use 列表）
+    private static final int MAX_HEADER_TOKENS = 64;
+
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "private", "protected", "static", "final", "abstract"));
+
+    private ZyVariableCompletion() {
+    }
+
+    /**
+     * 光标处可见变量的补全项
+     * @param prefixStart 正在输入的变量（含 $）的起始偏移
+     */
+    @NotNull
+    static List<LookupElement> elements(@NotNull PsiFile file, @NotNull Document document, int prefixStart) {
+        Header header = prefixStart > 0 ? enclosingFunction(file.findElementAt(prefixStart - 1)) : null;
+        if (header == TOO_FAR) return Collections.emptyList();
+        CharSequence text = document.getCharsSequence();
+        int start = header != null ? header.start : 0;
+        // 顶层代码中光标之后的变量不可见，只扫描到正在输入的前缀
+        int end = header != null ? bodyEnd(header.bodyOpen, text.length()) : prefixStart;
+        Scope scope = scope(file, document.getModificationStamp(), text, start, end, header != null);
+
+        List<LookupElement> result = new ArrayList<>(scope.names.length + 1);
+        boolean hasThis = false;
+        for (int i = 0; i < scope.names.length; i++) {
+            // 局部变量取光标之前的首次出现（正在输入的变量本身起始于 prefixStart，不计入）
+            if (!scope.parameter[i] && scope.firstOffsets[i] >= prefixStart) continue;
+            hasThis |= "$this".equals(scope.names[i]);
+            LookupElementBuilder element = LookupElementBuilder.create(scope.names[i])
+                    .withIcon(scope.parameter[i] ? com.intellij.icons.AllIcons.Nodes.Parameter : com.intellij.icons.AllIcons.Nodes.Variable);
+            if (scope.types[i] != null) element = element.withTypeText(scope.types[i]);
+            result.add(element);
+        }
+        if (header != null && header.method && !hasThis) {
+            result.add(LookupElementBuilder.create("$this").withIcon(com.intellij.icons.AllIcons.Nodes.Variable).bold());
+        }
+        return result;
+    }
+
+    private static Scope scope(PsiFile file, long stamp, CharSequence text, int start, int end, boolean function) {
+        CachedScope cached = file.getUserData(CACHE);
+        if (cached != null && cached.stamp == stamp && cached.start == start && cached.end == end) {
+            return cached.scope;
+        }
+        Scope scope = Scope.build(text, start, end, function);
+        file.putUserData(CACHE, new CachedScope(stamp, start, end, scope));
+        return scope;
+    }
+
+    /**
+     * 最近一次扫描的作用域及其文档修改戳与范围；只保留一份，文档修改后自然失效
+     */
+    private static final class CachedScope {
+        final long stamp;
+        final int start;
+        final int end;
+        final Scope scope;
+
+        CachedScope(long stamp, int start, int end, Scope scope) {
+            this.stamp = stamp;
+            this.start = start;
+            this.end = end;
+            this.scope = scope;
+        }
+    }
+
+    // ---- 定位所在函数（扁平 PSI 上回溯） ----
+
+    /**
+     * 函数头：function 关键字的起始偏移、函数体 "{" Token，以及是否为实例方法（可用 $this）
+     */
+    private static final class Header {
+        final int start;
+        final PsiElement bodyOpen;
+        final boolean method;
+
+        Header(int start, PsiElement bodyOpen, boolean method) {
+            this.start = start;
+            this.bodyOpen = bodyOpen;
+            this.method = method;
+        }
+    }
+
+    // 回溯超出 MAX_LOOKBEHIND_TOKENS 时的结果：无法确定所在函数
+    private static final Header TOO_FAR = new Header(-1, null, false);
+
+    /**
+     * 包含 leaf 的最内层函数；逐个 Token 向前回溯，未配对的 "{" 若不是函数体（if、类体等）则继续向外
+     * @return 不在函数内时为 null，回溯超出上限时为 {@link #TOO_FAR}
+     */
+    @Nullable
+    private static Header enclosingFunction(@Nullable PsiElement leaf) {
+        int depth = 0;
+        for (int n = 0; leaf != null; leaf = leaf.getPrevSibling(), n++) {
+            if (n >= MAX_LOOKBEHIND_TOKENS) return TOO_FAR;
+            String s = leaf.getText();
+            if ("}".equals(s)) {
+                depth++;
+            } else if ("{".equals(s)) {
+                if (depth > 0) {
+                    depth--;
+                    continue;
+                }
+                Header header = functionHeader(leaf);
+                if (header != null) return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * "{" 是否为函数体：向前依次为 [: 返回类型] [use (...)] (参数) [名称] function
+     */
+    @Nullable
+    private static Header functionHeader(@NotNull PsiElement bodyOpen) {
+        PsiElement t = prevSignificant(bodyOpen);
+        for (int n = 0; t != null && !")".equals(t.getText()); n++) {
+            String s = t.getText();
+            if (n >= MAX_HEADER_TOKENS || !(isIdentifier(s) || "?".equals(s) || "\\".equals(s) || "|".equals(s) || ":".equals(s))) {
+                return null;
+            }
+            t = prevSignificant(t);
+        }
+        if (t == null) return null;
+        PsiElement before = prevSignificant(matchOpenParen(t));
+        if (before != null && "use".equals(before.getText())) {
+            // 闭包的 use (...) 列表，之前还有参数列表
+            PsiElement close = prevSignificant(before);
+            if (close == null || !")".equals(close.getText())) return null;
+            before = prevSignificant(matchOpenParen(close));
+        }
+        boolean named = false;
+        if (before != null && isIdentifier(before.getText()) && !"function".equals(before.getText())) {
+            named = true;
+            before = prevSignificant(before);
+        }
+        if (before == null || !"function".equals(before.getText())) return null;
+        // 带可见性修饰符的非静态方法可用 $this
+        boolean visibility = false;
+        boolean isStatic = false;
+        for (PsiElement m = prevSignificant(before); m != null && MODIFIERS.contains(m.getText()); m = prevSignificant(m)) {
+            if ("static".equals(m.getText())) isStatic = true;
+            else if (!"final".equals(m.getText()) && !"abstract".equals(m.getText())) visibility = true;
+        }
+        return new Header(before.getTextRange().getStartOffset(), bodyOpen, named && visibility && !isStatic);
+    }
+
+    // 函数体的结束偏移（配对的 "}" 之后）；未闭合时为文件末尾
+    private static int bodyEnd(@NotNull PsiElement bodyOpen, int fileEnd) {
+        int depth = 0;
+        for (PsiElement leaf = bodyOpen; leaf != null; leaf = leaf.getNextSibling()) {
+            String s = leaf.getText();
+            if ("{".equals(s)) depth++;
+            else if ("}".equals(s) && --depth == 0) return leaf.getTextRange().getEndOffset();
+        }
+        return fileEnd;
+    }
+
+    @Nullable
+    private static PsiElement matchOpenParen(@NotNull PsiElement close) {
+        int depth = 0;
+        for (PsiElement leaf = close; leaf != null; leaf = leaf.getPrevSibling()) {
+            String s = leaf.getText();
+            if (")".equals(s)) depth++;
+            else if ("(".equals(s) && --depth == 0) return leaf;
+        }
+        return null;
+    }
+
+    // 前一个非空白、非注释 Token
+    @Nullable
+    private static PsiElement prevSignificant(@Nullable PsiElement element) {
+        if (element == null) return null;
+        PsiElement prev = element.getPrevSibling();
+        while (prev != null && prev.getNode() != null) {
+            IElementType type = prev.getNode().getElementType();
+            if (type != TokenType.WHITE_SPACE && type != ZyTokenTypes.COMMENT) break;
+            prev = prev.getPrevSibling();
+        }
+        return prev;
+    }
+
+    private static boolean isIdentifier(String s) {
+        return !s.isEmpty() && (Character.isLetter(s.charAt(0)) || s.charAt(0) == '_');
+    }
+
+    // ---- 作用域 ----
+
+    /**
+     * 一段函数（或顶层代码）文本中的变量：名称（含 $）、首次出现的偏移、是否为参数及参数类型
+     */
+    private static final class Scope {
+        final String[] names;
+        final int[] firstOffsets;
+        final boolean[] parameter;
+        final String[] types;
+
+        private Scope(String[] names, int[] firstOffsets, boolean[] parameter, String[] types) {
+            this.names = names;
+            this.firstOffsets = firstOffsets;
+            this.parameter = parameter;
+            this.types = types;
+        }
+
+        /**
+         * 切分 text 的 [start, end) 建立变量表，偏移为文档中的绝对偏移
+         * @param function 范围是否以 function 开头（否则为文件的顶层代码）
+         */
+        static Scope build(CharSequence text, int start, int end, boolean function) {
+            Map<String, int[]> offsets = new LinkedHashMap<>();
+            Map<String, String> parameterTypes = new LinkedHashMap<>();
+            ZyLexer lexer = new ZyLexer();
+            lexer.start(text, start, end, 0);
+            // 函数头：参数列表（第一对括号）内的变量为参数，其前的标识符为类型
+            boolean inHeader = function;
+            int parens = 0;
+            int parameterGroups = 0;
+            String pendingType = null;
+            // 跳过的嵌套函数体或类体：等待其 "{" 时为 -1，之后为花括号深度
+            int skipDepth = 0;
+            boolean skipping = false;
+            String prev = null;
+            for (; lexer.getTokenType() != null; lexer.advance()) {
+                IElementType type = lexer.getTokenType();
+                if (type == TokenType.WHITE_SPACE || type == ZyTokenTypes.COMMENT || type == ZyTokenTypes.STRING) continue;
+                String s = text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString();
+                if (inHeader) {
+                    if ("(".equals(s)) {
+                        parens++;
+                        pendingType = null;
+                    } else if (")".equals(s)) {
+                        if (--parens == 0) parameterGroups++;
+                    } else if ("{".equals(s) && parens == 0) {
+                        inHeader = false;
+                    } else if (",".equals(s)) {
+                        pendingType = null;
+                    } else if (type == ZyTokenTypes.PHP_VARIABLE && s.length() > 1) {
+                        if (parameterGroups == 0 && parens == 1) {
+                            parameterTypes.putIfAbsent(s, pendingType);
+                        } else {
+                            // 闭包 use (...) 中引入的外部变量
+                            offsets.putIfAbsent(s, new int[]{lexer.getTokenStart()});
+                        }
+                    } else if (isIdentifier(s) && parens == 1 && parameterGroups == 0 && !MODIFIERS.contains(s)) {
+                        pendingType = s;
+                    }
+                    continue;
+                }
+                if (skipping) {
+                    if ("{".equals(s)) {
+                        skipDepth = skipDepth < 0 ? 1 : skipDepth + 1;
+                    } else if ("}".equals(s) && skipDepth > 0 && --skipDepth == 0) {
+                        skipping = false;
+                    } else if (";".equals(s) && skipDepth < 0) {
+                        // 抽象方法或接口方法：没有函数体
+                        skipping = false;
+                    }
+                    continue;
+                }
+                String before = prev;
+                prev = s;
+                if ("function".equals(s) || (!function && isTypeKeyword(s) && !":".equals(before))) {
+                    // 嵌套函数（闭包）有自己的作用域；顶层代码中类体内的属性不是变量（X::class 除外）
+                    skipping = true;
+                    skipDepth = -1;
+                } else if (type == ZyTokenTypes.PHP_VARIABLE && s.length() > 1) {
+                    offsets.putIfAbsent(s, new int[]{lexer.getTokenStart()});
+                }
+            }
+            int n = parameterTypes.size() + offsets.size();
+            String[] names = new String[n];
+            int[] firstOffsets = new int[n];
+            boolean[] parameter = new boolean[n];
+            String[] types = new String[n];
+            int i = 0;
+            for (Map.Entry<String, String> e : parameterTypes.entrySet()) {
+                names[i] = e.getKey();
+                types[i] = e.getValue();
+                parameter[i++] = true;
+            }
+            for (Map.Entry<String, int[]> e : offsets.entrySet()) {
+                if (parameterTypes.containsKey(e.getKey())) continue;
+                names[i] = e.getKey();
+                firstOffsets[i++] = e.getValue()[0];
+            }
+            return new Scope(Arrays.copyOf(names, i), Arrays.copyOf(firstOffsets, i),
+                    Arrays.copyOf(parameter, i), Arrays.copyOf(types, i));
+        }
+
+        private static boolean isTypeKeyword(String s) {
+            return "class".equals(s) || "interface".equals(s) || "trait".equals(s) || "enum".equals(s);
+        }
+    }
+}
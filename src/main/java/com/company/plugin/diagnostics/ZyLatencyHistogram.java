@@ -0,0 +1,111 @@
+package com.company.plugin.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图（HDR 风格的对数-线性分桶，单位纳秒）
+ * - 0..63 纳秒逐值计数；之后每个 2 的幂区间再细分 32 个子桶，相对误差不超过 1/32（约 3%）
+ * - 覆盖 long 全范围，桶数固定，记录路径只有一次数组自增，不分配对象
+ * - 分位数取桶上界（与 HdrHistogram 的 highestEquivalentValue 一致），并截断到最大值
+ */
+public final class ZyLatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // 线性区：0 .. 2*SUB_COUNT-1 每个值一个桶
+    private static final int LINEAR = SUB_COUNT * 2;
+    private static final int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 记录一次耗时（纳秒），负值按 0 计
+     */
+    public void record(long nanos) {
+        long v = Math.max(0L, nanos);
+        counts.incrementAndGet(bucketIndex(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0L);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * 生成当前快照（并发记录时各字段之间可能有微小偏差，用于展示足够）
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        Snapshot s = new Snapshot();
+        s.count = total;
+        s.sumNanos = sum.sum();
+        s.maxNanos = max.get();
+        // 桶上界可能略超实际最大值，截断到 max
+        s.p50Nanos = Math.min(s.maxNanos, percentile(copy, total, 0.50));
+        s.p90Nanos = Math.min(s.maxNanos, percentile(copy, total, 0.90));
+        s.p99Nanos = Math.min(s.maxNanos, percentile(copy, total, 0.99));
+        s.p999Nanos = Math.min(s.maxNanos, percentile(copy, total, 0.999));
+        return s;
+    }
+
+    private static long percentile(long[] buckets, long total, double q) {
+        if (total == 0) return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(total * q));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return bucketUpperBound(i);
+        }
+        return bucketUpperBound(buckets.length - 1);
+    }
+
+    static int bucketIndex(long v) {
+        if (v < LINEAR) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exp - SUB_BITS;
+        int top = (int) (v >>> shift); // [SUB_COUNT, 2*SUB_COUNT)
+        return LINEAR + (exp - (SUB_BITS + 1)) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR) return index;
+        int rel = index - LINEAR;
+        int exp = rel / SUB_COUNT + SUB_BITS + 1;
+        int shift = exp - SUB_BITS;
+        long top = SUB_COUNT + (rel % SUB_COUNT);
+        long upper = ((top + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static final class Snapshot {
+        public long count;
+        public long sumNanos;
+        public long maxNanos;
+        public long p50Nanos;
+        public long p90Nanos;
+        public long p99Nanos;
+        public long p999Nanos;
+
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.company.plugin.diagnostics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 插件内部指标注册表（进程级）
+ * - 计数器：LongAdder，成对的 xxx.hit / xxx.miss 在报告中自动折算命中率
+ * - 延迟直方图：{@link ZyLatencyHistogram}，报告 p50/p90/p99/p999/max
+ * - 不依赖 IDE 平台，命令行索引器与基准中同样可用
+ *
+ * 用法：long t = ZyMetrics.start(); ...; ZyMetrics.recordSince(ZyMetrics.GOTO_LOCAL, t);
+ */
+public final class ZyMetrics {
+
+    // ---------- 索引 ----------
+    /** ensureUpToDate：节流直接返回（计数） */
+    public static final String ENSURE_THROTTLED = "index.ensureUpToDate.throttled";
+    /** ensureUpToDate：无变化（只做时间戳比对） */
+    public static final String ENSURE_NOOP = "index.ensureUpToDate.noop";
+    /** ensureUpToDate：增量更新 */
+    public static final String ENSURE_INCREMENTAL = "index.ensureUpToDate.incremental";
+    /** ensureUpToDate：全量重建 */
+    public static final String ENSURE_FULL = "index.ensureUpToDate.full";
+    /** 单文件符号提取 */
+    public static final String PARSE_FILE = "index.parseFile";
+    /** 作用域解析器未产出结果、回退正则提取（计数） */
+    public static final String PARSE_REGEX_FALLBACK = "index.parseFile.regexFallback";
+    /** JSON 索引：全量收集目录索引 */
+    public static final String JSON_BUILD = "index.json.build";
+    /** JSON 索引：全量写出分段 */
+    public static final String JSON_WRITE = "index.json.write";
+    /** JSON 索引：局部重建受影响目录 */
+    public static final String JSON_REBUILD_DIRS = "index.json.rebuildDirs";
+    /** 定义查询内存缓存（hit/miss 计数） */
+    public static final String DEFINITION_CACHE = "index.definitionCache";
+    /** 出现索引：按标识符查询候选文件（含时间戳对账） */
+    public static final String OCCURRENCE_LOOKUP = "index.occurrences.lookup";
+    /** 三元组索引：按文本查询候选文件（含时间戳对账） */
+    public static final String TRIGRAM_LOOKUP = "index.trigrams.lookup";
+
+    // ---------- 跳转到定义 ----------
+    public static final String GOTO_TOTAL = "goto.total";
+    public static final String GOTO_PROPERTY = "goto.property";
+    public static final String GOTO_LOCAL = "goto.local";
+    public static final String GOTO_CONTEXT_CLASS = "goto.contextClass";
+    public static final String GOTO_CROSS_FILE = "goto.crossFile";
+    public static final String GOTO_REFERENCES = "goto.referencesFallback";
+
+    // ---------- 查找用法 ----------
+    public static final String USAGES_SEARCH = "usages.search";
+
+    private static final String HIT = ".hit";
+    private static final String MISS = ".miss";
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, ZyLatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private ZyMetrics() {}
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 记录从 startNanos 到现在的耗时
+     */
+    public static void recordSince(String name, long startNanos) {
+        histogram(name).record(System.nanoTime() - startNanos);
+    }
+
+    public static void increment(String name) {
+        counter(name).increment();
+    }
+
+    public static void add(String name, long delta) {
+        counter(name).add(delta);
+    }
+
+    /**
+     * 记录一次缓存访问，报告中按 hit/(hit+miss) 折算命中率
+     */
+    public static void cacheAccess(String name, boolean hit) {
+        increment(name + (hit ? HIT : MISS));
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static ZyLatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new ZyLatencyHistogram());
+    }
+
+    /**
+     * 清零全部指标（保留已注册的名字）
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(ZyLatencyHistogram::reset);
+    }
+
+    /**
+     * 当前全部指标的快照（名字有序）
+     */
+    public static Report snapshot() {
+        Report report = new Report();
+        report.takenAt = System.currentTimeMillis();
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+            report.counters.put(e.getKey(), e.getValue().sum());
+        }
+        for (Map.Entry<String, ZyLatencyHistogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            report.histograms.put(e.getKey(), e.getValue().snapshot());
+        }
+        for (Map.Entry<String, Long> e : report.counters.entrySet()) {
+            if (!e.getKey().endsWith(HIT)) continue;
+            String base = e.getKey().substring(0, e.getKey().length() - HIT.length());
+            long hit = e.getValue();
+            long miss = report.counters.getOrDefault(base + MISS, 0L);
+            if (hit + miss > 0) report.hitRates.put(base, (double) hit / (hit + miss));
+        }
+        return report;
+    }
+
+    /**
+     * 以纯文本表格输出快照（耗时单位毫秒）
+     */
+    public static String format(Report report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-36s %8s %9s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "mean", "p50", "p90", "p99", "p999", "max"));
+        for (Map.Entry<String, ZyLatencyHistogram.Snapshot> e : report.histograms.entrySet()) {
+            ZyLatencyHistogram.Snapshot s = e.getValue();
+            if (s.count == 0) continue;
+            sb.append(String.format("%-36s %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n", e.getKey(), s.count,
+                    s.meanNanos() / 1e6, s.p50Nanos / 1e6, s.p90Nanos / 1e6, s.p99Nanos / 1e6, s.p999Nanos / 1e6, s.maxNanos / 1e6));
+        }
+        sb.append(System.lineSeparator());
+        sb.append(String.format("%-36s %8s%n", "counter", "value"));
+        for (Map.Entry<String, Long> e : report.counters.entrySet()) {
+            if (e.getValue() == 0) continue;
+            sb.append(String.format("%-36s %8d%n", e.getKey(), e.getValue()));
+        }
+        if (!report.hitRates.isEmpty()) {
+            sb.append(System.lineSeparator());
+            sb.append(String.format("%-36s %8s%n", "cache", "hit rate"));
+            for (Map.Entry<String, Double> e : report.hitRates.entrySet()) {
+                sb.append(String.format("%-36s %7.1f%%%n", e.getKey(), e.getValue() * 100));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 将当前快照写为 JSON 文件
+     */
+    public static Path dump(Path out) throws IOException {
+        Path parent = out.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.writeString(out, GSON.toJson(snapshot()), StandardCharsets.UTF_8);
+        return out;
+    }
+
+    /**
+     * 指标快照（可直接序列化为 JSON）
+     */
+    public static final class Report {
+        public long takenAt;
+        public Map<String, Long> counters = new LinkedHashMap<>();
+        public Map<String, ZyLatencyHistogram.Snapshot> histograms = new LinkedHashMap<>();
+        public Map<String, Double> hitRates = new LinkedHashMap<>();
+    }
+}
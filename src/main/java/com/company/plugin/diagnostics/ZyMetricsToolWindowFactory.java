@@ -0,0 +1,88 @@
+package com.company.plugin.diagnostics;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * “ZY Metrics” 工具窗口：展示索引与跳转各阶段的延迟分位数、计数与缓存命中率
+ * - 可见时每 2 秒自动刷新
+ * - Reset 清零全部指标；Dump 写出 JSON 到 .idea/zy-metrics/
+ */
+public class ZyMetricsToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    private static final int REFRESH_MS = 2000;
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        JTextArea text = new JTextArea();
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        Runnable refresh = () -> text.setText(ZyMetrics.format(ZyMetrics.snapshot()));
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh.run());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            ZyMetrics.reset();
+            refresh.run();
+        });
+        JButton dumpButton = new JButton("Dump");
+        dumpButton.addActionListener(e -> dump(project));
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+        buttons.add(dumpButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(buttons, BorderLayout.NORTH);
+        panel.add(new JScrollPane(text), BorderLayout.CENTER);
+        refresh.run();
+
+        // 仅在窗口可见时刷新，随工具窗口一起释放
+        Timer timer = new Timer(REFRESH_MS, e -> {
+            if (panel.isShowing()) refresh.run();
+        });
+        timer.start();
+        Disposer.register(toolWindow.getDisposable(), timer::stop);
+
+        Content content = ContentFactory.getInstance().createContent(panel, "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+
+    private static void dump(@NotNull Project project) {
+        String base = project.getBasePath();
+        if (base == null) return;
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path out = Path.of(base, ".idea", "zy-metrics", "metrics-" + stamp + ".json");
+        try {
+            ZyMetrics.dump(out);
+            Notifications.Bus.notify(new Notification("ZY", "ZY Metrics", "Dumped to " + out, NotificationType.INFORMATION), project);
+        } catch (Exception ex) {
+            Notifications.Bus.notify(new Notification("ZY", "ZY Metrics", "Dump failed: " + ex.getMessage(), NotificationType.ERROR), project);
+        }
+    }
+}
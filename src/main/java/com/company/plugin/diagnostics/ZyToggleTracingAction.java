@@ -0,0 +1,65 @@
+package com.company.plugin.diagnostics;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 开始/停止追踪；停止时将缓冲导出为 Chrome trace 到 .idea/zy-traces/
+ * 采样率取 -Dzy.trace.sample（默认全部记录）
+ */
+public class ZyToggleTracingAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (!ZyTracer.isEnabled()) {
+            double rate = parseRate(System.getProperty("zy.trace.sample"));
+            ZyTracer.setEnabled(true, rate);
+            notify(project, "Tracing started (sample rate " + rate + ")", NotificationType.INFORMATION);
+            return;
+        }
+        ZyTracer.setEnabled(false, ZyTracer.getSampleRate());
+        if (project == null || project.getBasePath() == null) return;
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path out = Path.of(project.getBasePath(), ".idea", "zy-traces", "trace-" + stamp + ".json");
+        try {
+            int n = ZyTracer.exportChromeTrace(out);
+            notify(project, "Exported " + n + " spans to " + out, NotificationType.INFORMATION);
+        } catch (Exception ex) {
+            notify(project, "Export trace failed: " + ex.getMessage(), NotificationType.ERROR);
+        }
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setText(ZyTracer.isEnabled() ? "ZY: Stop Tracing and Export" : "ZY: Start Tracing");
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    private static double parseRate(String value) {
+        try {
+            double r = value == null ? 1.0 : Double.parseDouble(value);
+            return r > 0 && r <= 1 ? r : 1.0;
+        } catch (NumberFormatException e) {
+            return 1.0;
+        }
+    }
+
+    private static void notify(Project project, String content, NotificationType type) {
+        Notifications.Bus.notify(new Notification("ZY", "ZY Tracing", content, type), project);
+    }
+}
@@ -0,0 +1,218 @@
+package com.company.plugin.diagnostics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 轻量结构化追踪（默认关闭）
+ * - 关闭时 {@link #span} 只读一个 volatile 标志并返回共享的空 span，不分配对象
+ * - 开启后按根 span 采样：未采样的根及其所有子 span 都不记录
+ * - 已完成的 span 写入有界环形缓冲，可导出为 Chrome trace（chrome://tracing、Perfetto 可直接打开）
+ *
+ * 启用：-Dzy.trace=true [-Dzy.trace.sample=0.1]，或在 IDE 中执行 “ZY: Start/Stop Tracing”
+ * 用法：
+ * <pre>
+ * try (ZyTracer.Span span = ZyTracer.span("goto")) {
+ *     if (span.isRecording()) span.attr("word", word);
+ *     ...
+ * }
+ * </pre>
+ * 属性值的计算（拼接、getText 等）应放在 isRecording() 判断内，保证关闭时零开销
+ */
+public final class ZyTracer {
+
+    /** 环形缓冲容量（事件数），超出后覆盖最早的事件 */
+    private static final int CAPACITY = Integer.getInteger("zy.trace.capacity", 100_000);
+
+    private static volatile boolean enabled = Boolean.getBoolean("zy.trace");
+    private static volatile double sampleRate = parseRate(System.getProperty("zy.trace.sample"), 1.0);
+
+    // 当前线程正在记录的最内层 span；根未被采样时为 SUPPRESSED
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final Event[] RING = new Event[CAPACITY];
+    private static long written;
+    // 与导出时的时间基准（Chrome trace 的 ts 以微秒计）
+    private static final long EPOCH_NANOS = System.nanoTime();
+    private static final long PID = ProcessHandle.current().pid();
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /** 关闭或未采样时返回的空 span */
+    private static final Span NOOP = new Span(null, null);
+    /** 未采样根 span：关闭时清除线程状态，其子 span 均为空 span */
+    private static final Span SUPPRESSED = new Span(null, null);
+
+    private ZyTracer() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启或关闭追踪；开启时清空缓冲
+     * @param rate 根 span 采样率（0..1]
+     */
+    public static void setEnabled(boolean on, double rate) {
+        if (on) {
+            clear();
+            sampleRate = rate > 0 && rate <= 1 ? rate : 1.0;
+        }
+        enabled = on;
+    }
+
+    public static double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 开始一个 span；当前线程无活动 span 时为根 span 并做采样决定
+     */
+    public static Span span(String name) {
+        if (!enabled) return NOOP;
+        Span parent = CURRENT.get();
+        if (parent == SUPPRESSED) return NOOP;
+        if (parent == null && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            CURRENT.set(SUPPRESSED);
+            return SUPPRESSED;
+        }
+        Span span = new Span(name, parent);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * 已记录的事件数（不超过缓冲容量）
+     */
+    public static synchronized int size() {
+        return (int) Math.min(written, CAPACITY);
+    }
+
+    public static synchronized void clear() {
+        java.util.Arrays.fill(RING, null);
+        written = 0;
+    }
+
+    /**
+     * 按 Chrome trace 格式（JSON Object Format）导出缓冲中的全部事件
+     * @return 导出的事件数
+     */
+    public static int exportChromeTrace(Path out) throws IOException {
+        List<Event> events = drainCopy();
+        Path parent = out.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            for (int i = 0; i < events.size(); i++) {
+                if (i > 0) w.write(",\n");
+                GSON.toJson(events.get(i), w);
+            }
+            w.write("\n]}\n");
+        }
+        return events.size();
+    }
+
+    private static synchronized List<Event> drainCopy() {
+        List<Event> list = new ArrayList<>(size());
+        long from = Math.max(0, written - CAPACITY);
+        for (long i = from; i < written; i++) {
+            Event e = RING[(int) (i % CAPACITY)];
+            if (e != null) list.add(e);
+        }
+        return list;
+    }
+
+    private static synchronized void append(Event event) {
+        RING[(int) (written % CAPACITY)] = event;
+        written++;
+    }
+
+    private static double parseRate(String value, double def) {
+        if (value == null || value.isEmpty()) return def;
+        try {
+            double r = Double.parseDouble(value);
+            return r > 0 && r <= 1 ? r : def;
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /**
+     * 追踪区间；只能在创建它的线程上关闭
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final Span parent;
+        private final long startNanos;
+        private Map<String, Object> attrs;
+
+        private Span(String name, Span parent) {
+            this.name = name;
+            this.parent = parent;
+            this.startNanos = name != null ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * 是否实际记录；为 false 时调用方应跳过属性计算
+         */
+        public boolean isRecording() {
+            return name != null;
+        }
+
+        public Span attr(String key, Object value) {
+            if (name == null) return this;
+            if (attrs == null) attrs = new LinkedHashMap<>();
+            attrs.put(key, value == null ? null : String.valueOf(value));
+            return this;
+        }
+
+        public Span attr(String key, long value) {
+            if (name == null) return this;
+            if (attrs == null) attrs = new LinkedHashMap<>();
+            attrs.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP) return;
+            if (this == SUPPRESSED) {
+                CURRENT.remove();
+                return;
+            }
+            long end = System.nanoTime();
+            if (parent == null) CURRENT.remove(); else CURRENT.set(parent);
+            Event e = new Event();
+            e.name = name;
+            e.ph = "X";
+            e.ts = (startNanos - EPOCH_NANOS) / 1000.0;
+            e.dur = (end - startNanos) / 1000.0;
+            e.pid = PID;
+            e.tid = Thread.currentThread().getId();
+            e.args = attrs;
+            append(e);
+        }
+    }
+
+    /**
+     * Chrome trace 的 “complete” 事件（ph=X，时间单位微秒）
+     */
+    static final class Event {
+        String name;
+        String ph;
+        double ts;
+        double dur;
+        long pid;
+        long tid;
+        Map<String, Object> args;
+    }
+}
@@ -1,5 +1,7 @@
 package com.company.plugin.highlighting;
 
+import com.company.plugin.language.ZyBuiltins;
+import com.company.plugin.language.ZyTokenScanner;
 import com.intellij.lexer.LexerBase;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.TokenType;
@@ -20,6 +22,7 @@ public class ZyLexer extends LexerBase {
     private int tokenStart;
     private int tokenEnd;
     private IElementType tokenType;
+    private final ZyTokenScanner scanner = new ZyTokenScanner();
     
     // ZY 语言关键字集合
     private static final Set<String> ZY_KEYWORDS = new HashSet<String>() {{
@@ -131,177 +134,6 @@ public class ZyLexer extends LexerBase {
         add("true");
     }};
     
-    // PHP 内置函数集合
-    private static final Set<String> PHP_FUNCTIONS = new HashSet<String>() {{
-        // 字符串函数
-        add("strlen");
-        add("strpos");
-        add("str_replace");
-        add("substr");
-        add("trim");
-        add("ltrim");
-        add("rtrim");
-        add("strtolower");
-        add("strtoupper");
-        add("ucfirst");
-        add("ucwords");
-        add("str_split");
-        add("explode");
-        add("implode");
-        add("sprintf");
-        add("printf");
-        add("htmlspecialchars");
-        add("htmlentities");
-        add("strip_tags");
-        
-        // 数组函数
-        add("array");
-        add("count");
-        add("sizeof");
-        add("array_push");
-        add("array_pop");
-        add("array_shift");
-        add("array_unshift");
-        add("array_merge");
-        add("array_slice");
-        add("array_splice");
-        add("array_keys");
-        add("array_values");
-        add("array_search");
-        add("in_array");
-        add("array_unique");
-        add("array_reverse");
-        add("sort");
-        add("rsort");
-        add("asort");
-        add("arsort");
-        add("ksort");
-        add("krsort");
-        add("usort");
-        add("uasort");
-        add("uksort");
-        
-        // 文件系统函数
-        add("file_exists");
-        add("is_file");
-        add("is_dir");
-        add("file_get_contents");
-        add("file_put_contents");
-        add("fopen");
-        add("fclose");
-        add("fread");
-        add("fwrite");
-        add("fgets");
-        add("fgetc");
-        add("feof");
-        add("fseek");
-        add("ftell");
-        add("copy");
-        add("move_uploaded_file");
-        add("unlink");
-        add("mkdir");
-        add("rmdir");
-        add("chmod");
-        add("chown");
-        
-        // 数学函数
-        add("abs");
-        add("ceil");
-        add("floor");
-        add("round");
-        add("min");
-        add("max");
-        add("rand");
-        add("mt_rand");
-        add("pi");
-        add("pow");
-        add("sqrt");
-        add("sin");
-        add("cos");
-        add("tan");
-        add("asin");
-        add("acos");
-        add("atan");
-        add("log");
-        add("exp");
-        
-        // 日期时间函数
-        add("date");
-        add("time");
-        add("strtotime");
-        add("mktime");
-        add("getdate");
-        add("gmdate");
-        add("microtime");
-        
-        // 其他常用函数
-        add("json_encode");
-        add("json_decode");
-        add("serialize");
-        add("unserialize");
-        add("var_dump");
-        add("print_r");
-        add("gettype");
-        add("is_array");
-        add("is_string");
-        add("is_numeric");
-        add("is_null");
-        add("is_bool");
-        add("filter_var");
-        add("filter_input");
-        add("preg_match");
-        add("preg_replace");
-        add("preg_split");
-    }};
-    
-    // PHP 常量集合
-    private static final Set<String> PHP_CONSTANTS = new HashSet<String>() {{
-        // PHP 预定义常量
-        add("PHP_VERSION");
-        add("PHP_OS");
-        add("PHP_EOL");
-        add("PHP_INT_MAX");
-        add("PHP_INT_MIN");
-        add("PHP_FLOAT_MAX");
-        add("PHP_FLOAT_MIN");
-        add("PHP_SAPI");
-        add("PHP_BINARY");
-        
-        // 错误级别常量
-        add("E_ERROR");
-        add("E_WARNING");
-        add("E_PARSE");
-        add("E_NOTICE");
-        add("E_CORE_ERROR");
-        add("E_CORE_WARNING");
-        add("E_COMPILE_ERROR");
-        add("E_COMPILE_WARNING");
-        add("E_USER_ERROR");
-        add("E_USER_WARNING");
-        add("E_USER_NOTICE");
-        add("E_STRICT");
-        add("E_RECOVERABLE_ERROR");
-        add("E_DEPRECATED");
-        add("E_USER_DEPRECATED");
-        add("E_ALL");
-        
-        // 文件系统常量
-        add("DIRECTORY_SEPARATOR");
-        add("PATH_SEPARATOR");
-        add("FILE_SEPARATOR");
-        
-        // 其他常量
-        add("TRUE");
-        add("FALSE");
-        add("NULL");
-        add("M_PI");
-        add("M_E");
-        add("M_LOG2E");
-        add("M_LOG10E");
-        add("M_LN2");
-        add("M_LN10");
-    }};
-    
     @Override
     public void start(@NotNull CharSequence buffer, int startOffset, int endOffset, int initialState) {
         this.buffer = buffer;
@@ -309,6 +141,7 @@ public class ZyLexer extends LexerBase {
         this.tokenStart = startOffset;
         this.tokenEnd = startOffset;
         this.tokenType = null;
+        scanner.reset(buffer, startOffset, endOffset);
         if (startOffset < endOffset) {
             advance();
         }
@@ -337,90 +170,42 @@ public class ZyLexer extends LexerBase {
     
     /**
      * 前进到下一个标记
-     * 根据当前字符类型识别并创建相应的标记
+     * 切分规则由 {@link ZyTokenScanner} 提供（与索引、类型推断共用），这里只把种类映射为标记类型
      */
     @Override
     public void advance() {
-        tokenStart = tokenEnd;
-        if (tokenEnd >= bufferEnd) {
+        if (!scanner.advance()) {
+            tokenStart = tokenEnd;
             tokenType = null;
             return;
         }
-
-        char currentChar = buffer.charAt(tokenEnd);
-
-        // 处理空白字符为独立 token，确保 token 序列连续且不出现空洞
-        if (Character.isWhitespace(currentChar)) {
-            while (tokenEnd < bufferEnd && Character.isWhitespace(buffer.charAt(tokenEnd))) {
-                tokenEnd++;
-            }
-            tokenType = TokenType.WHITE_SPACE;
-            return;
-        }
-
-        // 简化的token识别逻辑，减少复杂性
-        if (currentChar == '/' && tokenEnd + 1 < bufferEnd) {
-            if (buffer.charAt(tokenEnd + 1) == '/') {
-                // 单行注释
-                tokenEnd += 2;
-                while (tokenEnd < bufferEnd && buffer.charAt(tokenEnd) != '\n') {
-                    tokenEnd++;
-                }
+        tokenStart = scanner.start();
+        tokenEnd = scanner.end();
+        switch (scanner.kind()) {
+            case ZyTokenScanner.WHITESPACE:
+                // 空白为独立 token，确保 token 序列连续且不出现空洞
+                tokenType = TokenType.WHITE_SPACE;
+                break;
+            case ZyTokenScanner.COMMENT:
                 tokenType = ZyTokenTypes.COMMENT;
-            } else if (buffer.charAt(tokenEnd + 1) == '*') {
-                // 多行注释
-                tokenEnd += 2;
-                while (tokenEnd < bufferEnd - 1) {
-                    if (buffer.charAt(tokenEnd) == '*' && buffer.charAt(tokenEnd + 1) == '/') {
-                        tokenEnd += 2;
-                        break;
-                    }
-                    tokenEnd++;
-                }
-                tokenType = ZyTokenTypes.COMMENT;
-            } else {
-                tokenEnd++;
+                break;
+            case ZyTokenScanner.STRING:
+                tokenType = ZyTokenTypes.STRING;
+                break;
+            case ZyTokenScanner.NUMBER:
+                tokenType = ZyTokenTypes.NUMBER;
+                break;
+            case ZyTokenScanner.VARIABLE:
+                // PHP 变量 - 包含 $ 符号本身
+                tokenType = ZyTokenTypes.PHP_VARIABLE;
+                break;
+            case ZyTokenScanner.IDENTIFIER:
+                // 标识符或关键字
+                tokenType = getTokenTypeForText(buffer.subSequence(tokenStart, tokenEnd).toString());
+                break;
+            default:
                 tokenType = ZyTokenTypes.OPERATOR;
-            }
-        } else if (currentChar == '"' || currentChar == '\'') {
-            // 字符串字面量
-            char quote = currentChar;
-            tokenEnd++;
-            while (tokenEnd < bufferEnd && buffer.charAt(tokenEnd) != quote) {
-                if (buffer.charAt(tokenEnd) == '\\' && tokenEnd + 1 < bufferEnd) {
-                    tokenEnd += 2;
-                } else {
-                    tokenEnd++;
-                }
-            }
-            if (tokenEnd < bufferEnd) tokenEnd++;
-            tokenType = ZyTokenTypes.STRING;
-        } else if (Character.isDigit(currentChar)) {
-            // 数字字面量
-            tokenEnd++;
-            while (tokenEnd < bufferEnd && (Character.isDigit(buffer.charAt(tokenEnd)) || buffer.charAt(tokenEnd) == '.')) {
-                tokenEnd++;
-            }
-            tokenType = ZyTokenTypes.NUMBER;
-        } else if (currentChar == '$') {
-            // PHP 变量 - 包含 $ 符号本身
-            tokenEnd++;
-            while (tokenEnd < bufferEnd && (Character.isLetterOrDigit(buffer.charAt(tokenEnd)) || buffer.charAt(tokenEnd) == '_')) {
-                tokenEnd++;
-            }
-            tokenType = ZyTokenTypes.PHP_VARIABLE;
-        } else if (Character.isLetter(currentChar) || currentChar == '_') {
-            // 标识符或关键字
-            tokenEnd++;
-            while (tokenEnd < bufferEnd && (Character.isLetterOrDigit(buffer.charAt(tokenEnd)) || buffer.charAt(tokenEnd) == '_')) {
-                tokenEnd++;
-            }
-            String text = buffer.subSequence(tokenStart, tokenEnd).toString();
-            tokenType = getTokenTypeForText(text);
-        } else {
-            // 其他字符
-            tokenEnd++;
-            tokenType = ZyTokenTypes.OPERATOR;
+                break;
         }
     }
     
@@ -462,12 +247,12 @@ public class ZyLexer extends LexerBase {
     }
     
     /**
-     * 检查文本是否为 PHP 内置函数
+     * 检查文本是否为 PHP 内置函数（内置库首次使用时加载）
      * @param text 要检查的文本
      * @return 如果是 PHP 函数返回 true，否则返回 false
      */
     private boolean isPhpFunction(String text) {
-        return PHP_FUNCTIONS.contains(text);
+        return ZyBuiltins.isFunction(text);
     }
     
     /**
@@ -476,7 +261,7 @@ public class ZyLexer extends LexerBase {
      * @return 如果是 PHP 常量返回 true，否则返回 false
      */
     private boolean isPhpConstant(String text) {
-        return PHP_CONSTANTS.contains(text);
+        return ZyBuiltins.isConstant(text);
     }
     
     @Override
@@ -0,0 +1,433 @@
+package com.company.plugin.index;
+
+import com.company.plugin.language.ZyTokenScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类结构扫描器：一次顺序扫描文本，提取类/接口/trait 及其成员（方法、属性）
+ * - 按 {@link ZyTokenScanner} 切分（与词法分析器一致），跳过注释与字符串，按花括号深度判断成员是否直接位于类体内（方法体内的变量不计为属性）
+ * - 成员记录种类、名字、名字偏移、修饰符与声明类型（属性类型或方法返回类型）
+ * - 类头的 extends / implements 与类体内的 use（trait）记为直接父类型，按 use 导入与命名空间解析为 FQN
+ * - 成员类型同样解析为 FQN（内置类型保持原样，self / static 换成所属类），供跨文件类型推断直接使用
+ * - 类与成员附带行号；结果直接是符号索引的持久化模型，filePath 由调用方填写
+ * - 可顺带收集文本中的全部标识符（出现位置倒排索引的键），建索引时每个文件只切分一遍
+ */
+public final class ZyClassScanner {
+
+    /** 成员修饰符 */
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "private", "protected", "static", "final", "abstract", "readonly", "var"));
+
+    /** 内置类型：不按命名空间解析 */
+    private static final Set<String> BUILTIN_TYPES = new HashSet<>(Arrays.asList(
+            "string", "int", "float", "bool", "array", "void", "mixed", "object", "callable", "iterable",
+            "null", "false", "true", "never"));
+
+    private ZyClassScanner() {}
+
+    /**
+     * 扫描文本中的全部类、接口与 trait（按出现顺序）
+     */
+    @NotNull
+    public static List<ZySymbolIndexService.ClassState> scan(@NotNull CharSequence text) {
+        return scan(text, null);
+    }
+
+    /**
+     * 同 {@link #scan(CharSequence)}，并把扫描经过的标识符与数字 token 文本加入 identifiers
+     * 收集的键与 {@link ZyOccurrenceIndex#keys} 相同（同一切分规则，注释与字符串不计入）
+     */
+    @NotNull
+    public static List<ZySymbolIndexService.ClassState> scan(@NotNull CharSequence text, @Nullable Set<String> identifiers) {
+        List<ZySymbolIndexService.ClassState> classes = new Scan(text, identifiers).run();
+        if (!classes.isEmpty()) {
+            // 行号供候选列表直接展示
+            ZyLineTable lines = ZyLineTable.of(text);
+            for (ZySymbolIndexService.ClassState cs : classes) {
+                cs.line = lines.line(cs.offset);
+                for (ZySymbolIndexService.MemberState m : cs.members) m.line = lines.line(m.offset);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 是否为内置类型（string、int、array 等，不区分大小写）
+     */
+    public static boolean isBuiltinType(@NotNull String name) {
+        return BUILTIN_TYPES.contains(name.toLowerCase());
+    }
+
+    /**
+     * 单次扫描的游标状态
+     */
+    private static final class Scan {
+        private final CharSequence text;
+        private final ZyTokenScanner scanner;
+        // 顺带收集的标识符；回退重读的 token 由集合去重
+        private final Set<String> identifiers;
+        // 当前 token 的结束偏移；回退时恢复到先前的值
+        private int pos;
+        // 上一个 token 与当前 token 之间是否换行
+        private boolean newline;
+
+        private final List<ZySymbolIndexService.ClassState> classes = new ArrayList<>();
+        private String namespace;
+        // 文件级 use 导入：短名或别名 -> 全名
+        private final Map<String, String> imports = new HashMap<>();
+        private int braceDepth;
+        private int parenDepth;
+
+        // 当前类（仅处理非嵌套类；类体位于 classDepth 层）
+        private ZySymbolIndexService.ClassState current;
+        private int classDepth = -1;
+        // 已读到 class 关键字，等待类体 '{'
+        private ZySymbolIndexService.ClassState pending;
+
+        // 当前成员声明的修饰符与类型
+        private final List<String> modifiers = new ArrayList<>();
+        private String type;
+        // 方法返回类型：读到 function name(...) 后等待 ':' 类型
+        private ZySymbolIndexService.MemberState method;
+        private boolean expectReturnType;
+        // 属性初始值：跳过到 ';' 或换行
+        private boolean inInitializer;
+
+        Scan(CharSequence text, Set<String> identifiers) {
+            this.text = text;
+            this.scanner = new ZyTokenScanner(text);
+            this.identifiers = identifiers;
+        }
+
+        List<ZySymbolIndexService.ClassState> run() {
+            String word;
+            int start;
+            while (true) {
+                start = next();
+                if (start < 0) break;
+                char c = text.charAt(start);
+                if (isIdentStart(c)) {
+                    word = text.subSequence(start, pos).toString();
+                    onWord(word, start);
+                } else if (c == '$') {
+                    onVariable(start);
+                } else {
+                    onPunct(c);
+                }
+            }
+            return classes;
+        }
+
+        private void onWord(String word, int start) {
+            if (inInitializer) {
+                if (!newline) return;
+                inInitializer = false;
+            }
+            if ("namespace".equals(word) && braceDepth == 0 && namespace == null) {
+                namespace = readQualifiedName();
+                return;
+            }
+            if ("use".equals(word) && braceDepth == 0 && current == null && pending == null) {
+                readImports();
+                return;
+            }
+            if (("class".equals(word) || "interface".equals(word) || "trait".equals(word)) && current == null && pending == null
+                    && !precededBy(start, ':')) {
+                int save = pos;
+                int nameStart = next();
+                if (nameStart < 0 || !isIdentStart(text.charAt(nameStart))) {
+                    // 匿名类或 Foo::class 之类的写法：退回，交给常规处理
+                    pos = save;
+                    return;
+                }
+                ZySymbolIndexService.ClassState cls = new ZySymbolIndexService.ClassState();
+                cls.kind = word;
+                cls.name = text.subSequence(nameStart, pos).toString();
+                cls.offset = nameStart;
+                cls.namespace = namespace;
+                cls.fqn = namespace != null ? namespace + "\\" + cls.name : cls.name;
+                pending = cls;
+                return;
+            }
+            if (pending != null) {
+                // 类头：class A extends B implements C, D
+                if ("extends".equals(word) || "implements".equals(word)) readSupertypes(pending);
+                return;
+            }
+            if (!inClassBody() || parenDepth > 0) return;
+            if ("use".equals(word) && method == null) {
+                // 类体内 use 引入 trait，其成员同样可见
+                readSupertypes(current);
+                resetDeclaration();
+                return;
+            }
+            if (expectReturnType) {
+                method.type = appendType(method.type, word);
+                return;
+            }
+            if (newline && method == null && modifiers.isEmpty() && type != null) {
+                // 新的一行开始新的声明
+                type = null;
+            }
+            if ("function".equals(word)) {
+                int save = pos;
+                int nameStart = next();
+                if (nameStart < 0 || !isIdentStart(text.charAt(nameStart))) {
+                    pos = save;
+                    resetDeclaration();
+                    return;
+                }
+                ZySymbolIndexService.MemberState m = member(ZySymbolIndexService.MemberState.METHOD,
+                        text.subSequence(nameStart, pos).toString(), nameStart);
+                current.members.add(m);
+                method = m;
+                return;
+            }
+            if (MODIFIERS.contains(word)) {
+                modifiers.add(word);
+                return;
+            }
+            type = appendType(type, word);
+        }
+
+        private void onVariable(int start) {
+            if (inInitializer) {
+                // 无分号写法：换行即结束初始值
+                if (!newline) return;
+                inInitializer = false;
+            }
+            if (!inClassBody() || parenDepth > 0 || method != null) return;
+            if (pos - start < 2) return;
+            ZySymbolIndexService.MemberState p = member(ZySymbolIndexService.MemberState.PROPERTY,
+                    text.subSequence(start + 1, pos).toString(), start + 1);
+            current.members.add(p);
+            resetDeclaration();
+        }
+
+        private void onPunct(char c) {
+            switch (c) {
+                case '{':
+                    braceDepth++;
+                    if (pending != null && current == null) {
+                        current = pending;
+                        current.bodyStart = pos - 1;
+                        classDepth = braceDepth;
+                        pending = null;
+                        classes.add(current);
+                    }
+                    finishMethod();
+                    resetDeclaration();
+                    break;
+                case '}':
+                    if (current != null && braceDepth == classDepth) {
+                        current.bodyEnd = pos - 1;
+                        current = null;
+                        classDepth = -1;
+                    }
+                    braceDepth = Math.max(0, braceDepth - 1);
+                    resetDeclaration();
+                    break;
+                case '(':
+                    parenDepth++;
+                    break;
+                case ')':
+                    parenDepth = Math.max(0, parenDepth - 1);
+                    break;
+                case ':':
+                    if (method != null && parenDepth == 0 && inClassBody()) expectReturnType = true;
+                    break;
+                case '\\':
+                    // 限定类型名中的分隔符，保留在类型文本中
+                    if (expectReturnType) method.type = appendType(method.type, "\\");
+                    else if (inClassBody() && parenDepth == 0 && method == null && !inInitializer) type = appendType(type, "\\");
+                    break;
+                case '=':
+                    if (inClassBody() && parenDepth == 0 && method == null) inInitializer = true;
+                    break;
+                case ';':
+                    inInitializer = false;
+                    finishMethod();
+                    resetDeclaration();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // start 之前（跳过空白）的字符是否为 c
+        private boolean precededBy(int start, char c) {
+            int i = start - 1;
+            while (i >= 0 && Character.isWhitespace(text.charAt(i))) i--;
+            return i >= 0 && text.charAt(i) == c;
+        }
+
+        private boolean inClassBody() {
+            return current != null && braceDepth == classDepth;
+        }
+
+        private ZySymbolIndexService.MemberState member(String kind, String name, int offset) {
+            ZySymbolIndexService.MemberState m = new ZySymbolIndexService.MemberState();
+            m.kind = kind;
+            m.name = name;
+            m.offset = offset;
+            m.modifiers = new ArrayList<>(modifiers);
+            m.type = ZySymbolIndexService.MemberState.PROPERTY.equals(kind) ? resolveType(type) : null;
+            return m;
+        }
+
+        // 方法声明结束（读到方法体 '{' 或抽象方法的 ';'）：返回类型解析为 FQN
+        private void finishMethod() {
+            if (method != null && expectReturnType) method.type = resolveType(method.type);
+        }
+
+        /**
+         * 成员类型解析：内置类型原样返回，self / static 为所属类，parent 为第一个父类型，其余按 {@link #resolve}
+         */
+        private String resolveType(String name) {
+            if (name == null || name.isEmpty()) return name;
+            String lower = name.toLowerCase();
+            if (BUILTIN_TYPES.contains(lower)) return name;
+            if ("self".equals(lower) || "static".equals(lower)) return current != null ? current.fqn : name;
+            if ("parent".equals(lower)) {
+                return current != null && !current.supertypes.isEmpty() ? current.supertypes.get(0) : name;
+            }
+            return resolve(name);
+        }
+
+        private void resetDeclaration() {
+            modifiers.clear();
+            type = null;
+            method = null;
+            expectReturnType = false;
+        }
+
+        private String appendType(String existing, String part) {
+            if (existing == null) return part;
+            // 限定名片段直接拼接，其余情况以最后一个单词为准（如 "static int" 中的 int）
+            if (existing.endsWith("\\") || "\\".equals(part)) return existing + part;
+            return part;
+        }
+
+        /**
+         * 读取逗号分隔的类型名列表并登记为 target 的父类型
+         */
+        private void readSupertypes(ZySymbolIndexService.ClassState target) {
+            while (true) {
+                String name = readQualifiedName();
+                if (name == null) return;
+                String fqn = resolve(name);
+                if (!fqn.equals(target.fqn) && !target.supertypes.contains(fqn)) target.supertypes.add(fqn);
+                if (!skipComma()) return;
+            }
+        }
+
+        /**
+         * 读取 use A\B [as C][, ...] 导入；use function / use const 不登记
+         */
+        private void readImports() {
+            while (true) {
+                String fqn = readQualifiedName();
+                if (fqn == null || "function".equals(fqn) || "const".equals(fqn)) return;
+                if (fqn.startsWith("\\")) fqn = fqn.substring(1);
+                String alias = fqn.substring(fqn.lastIndexOf('\\') + 1);
+                int save = pos;
+                boolean saveNewline = newline;
+                int t = next();
+                if (t >= 0 && pos - t == 2 && text.charAt(t) == 'a' && text.charAt(t + 1) == 's') {
+                    int a = next();
+                    if (a >= 0 && isIdentStart(text.charAt(a))) alias = text.subSequence(a, pos).toString();
+                } else {
+                    pos = save;
+                    newline = saveNewline;
+                }
+                imports.put(alias, fqn);
+                if (!skipComma()) return;
+            }
+        }
+
+        // 下一个 token 是逗号则消费并返回 true，否则不移动
+        private boolean skipComma() {
+            int save = pos;
+            boolean saveNewline = newline;
+            int t = next();
+            if (t >= 0 && text.charAt(t) == ',') return true;
+            pos = save;
+            newline = saveNewline;
+            return false;
+        }
+
+        /**
+         * 类型名解析为 FQN：\ 开头为全名；首段命中 use 导入则替换；否则拼接当前命名空间
+         */
+        private String resolve(String name) {
+            if (name.startsWith("\\")) return name.substring(1);
+            int sep = name.indexOf('\\');
+            String first = sep < 0 ? name : name.substring(0, sep);
+            String imported = imports.get(first);
+            if (imported != null) return sep < 0 ? imported : imported + name.substring(sep);
+            return namespace != null ? namespace + "\\" + name : name;
+        }
+
+        /**
+         * 读取 A\B\C 形式的限定名（跳过中间空白）
+         */
+        private String readQualifiedName() {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int save = pos;
+                boolean saveNewline = newline;
+                int start = next();
+                if (start < 0) break;
+                char c = text.charAt(start);
+                boolean sep = c == '\\';
+                boolean ident = isIdentStart(c);
+                boolean expectIdent = sb.length() == 0 || sb.charAt(sb.length() - 1) == '\\';
+                if ((ident && expectIdent && (sb.length() == 0 || !newline)) || (sep && !expectIdent)
+                        || (sep && sb.length() == 0)) {
+                    sb.append(text, start, pos);
+                    continue;
+                }
+                pos = save;
+                newline = saveNewline;
+                break;
+            }
+            return sb.length() > 0 ? sb.toString() : null;
+        }
+
+        /**
+         * 前进到下一个 token，返回其起始偏移（结束位置为 pos）；文本结束返回 -1
+         * 跳过空白、注释与字符串
+         */
+        private int next() {
+            boolean nl = false;
+            scanner.seek(pos);
+            while (scanner.nextSignificant()) {
+                nl |= scanner.newlineBefore();
+                byte kind = scanner.kind();
+                if (kind == ZyTokenScanner.STRING) continue;
+                if (identifiers != null && (kind == ZyTokenScanner.IDENTIFIER || kind == ZyTokenScanner.NUMBER)) {
+                    identifiers.add(text.subSequence(scanner.start(), scanner.end()).toString());
+                }
+                newline = nl;
+                pos = scanner.end();
+                return scanner.start();
+            }
+            newline = nl;
+            pos = scanner.end();
+            return -1;
+        }
+
+        private static boolean isIdentStart(char c) {
+            return ZyTokenScanner.isIdentifierStart(c);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.company.plugin.index;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * 导出可迁移的预构建索引包（供 CI 预热或新检出目录导入）
+ * 读取与解析全部 .zy 文件耗时与项目规模成正比，放在可取消的后台任务中执行，结果以通知告知
+ */
+public class ZyExportIndexBundleAction extends AnAction {
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Exporting ZY index bundle", true) {
+            private Path out;
+            private long cost;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                long start = System.currentTimeMillis();
+                try {
+                    out = ZyIndexBundle.export(project, indicator);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                cost = System.currentTimeMillis() - start;
+            }
+
+            @Override
+            public void onSuccess() {
+                notify("Exported bundle to " + out + " in " + cost + " ms", NotificationType.INFORMATION);
+            }
+
+            @Override
+            public void onCancel() {
+                notify("Export bundle cancelled", NotificationType.WARNING);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                Throwable cause = error instanceof UncheckedIOException ? error.getCause() : error;
+                notify("Export bundle failed: " + cause.getMessage(), NotificationType.ERROR);
+            }
+
+            private void notify(String content, NotificationType type) {
+                Notifications.Bus.notify(new Notification("ZY", "ZY Index", content, type), project);
+            }
+        });
+    }
+}
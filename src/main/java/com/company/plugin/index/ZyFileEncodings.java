@@ -0,0 +1,95 @@
+package com.company.plugin.index;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 不经过 VFS 读取项目文件时的编码解析，与 IDE 的 VirtualFile 编码一致
+ * - 解析顺序：文件或最近的上级目录映射、项目编码（url="PROJECT"）、UTF-8
+ * - 只读取 .idea/encodings.xml，不做 BOM 与内容探测
+ * 供索引包与命令行索引器使用
+ */
+public final class ZyFileEncodings {
+    private static final Logger LOG = Logger.getInstance(ZyFileEncodings.class);
+
+    private static final Pattern MAPPING = Pattern.compile("<file\\s+url=\"([^\"]*)\"\\s+charset=\"([^\"]*)\"");
+    private static final String PROJECT_DIR_URL = "file://$PROJECT_DIR$/";
+
+    private final Charset projectCharset;
+    // 项目相对路径（文件或目录）-> 编码
+    private final Map<String, Charset> mappings;
+
+    private ZyFileEncodings(Charset projectCharset, Map<String, Charset> mappings) {
+        this.projectCharset = projectCharset;
+        this.mappings = mappings;
+    }
+
+    /**
+     * 所有文件使用同一编码
+     */
+    @NotNull
+    public static ZyFileEncodings fixed(@NotNull Charset charset) {
+        return new ZyFileEncodings(charset, Map.of());
+    }
+
+    /**
+     * 读取项目根目录下的 .idea/encodings.xml；不存在或无法读取时全部为 UTF-8
+     */
+    @NotNull
+    public static ZyFileEncodings load(@NotNull Path projectRoot) {
+        Charset project = StandardCharsets.UTF_8;
+        Map<String, Charset> mappings = new HashMap<>();
+        Path xml = projectRoot.resolve(".idea").resolve("encodings.xml");
+        if (Files.isRegularFile(xml)) {
+            try {
+                Matcher m = MAPPING.matcher(Files.readString(xml, StandardCharsets.UTF_8));
+                while (m.find()) {
+                    Charset charset = charset(m.group(2));
+                    if (charset == null) continue;
+                    String url = m.group(1);
+                    if ("PROJECT".equals(url)) {
+                        project = charset;
+                    } else if (url.startsWith(PROJECT_DIR_URL)) {
+                        mappings.put(url.substring(PROJECT_DIR_URL.length()), charset);
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warn("Read encodings failed: " + xml, e);
+            }
+        }
+        return new ZyFileEncodings(project, mappings);
+    }
+
+    /**
+     * 项目相对路径（'/' 分隔）对应文件的编码
+     */
+    @NotNull
+    public Charset charsetOf(@NotNull String relativePath) {
+        if (!mappings.isEmpty()) {
+            for (String p = relativePath; !p.isEmpty(); p = p.substring(0, Math.max(p.lastIndexOf('/'), 0))) {
+                Charset charset = mappings.get(p);
+                if (charset != null) return charset;
+            }
+        }
+        return projectCharset;
+    }
+
+    private static Charset charset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unsupported charset in encodings.xml: " + name);
+            return null;
+        }
+    }
+}
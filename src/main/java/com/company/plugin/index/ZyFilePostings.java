@@ -0,0 +1,295 @@
+package com.company.plugin.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件级倒排表：键 -> 含有该键的文件
+ * - 键与文件都编号为 int，倒排表与正排表都是 int 数组，十万级文件也只占几十 MB
+ * - 按文件增量更新：先按正排表从旧倒排表中移除，再登记新内容
+ * - 子类决定从文本中提取哪些键（标识符、三元组等）
+ * 非线程安全，由 {@link ZySymbolIndexService} 在其锁内访问
+ */
+public abstract class ZyFilePostings {
+
+    private static final int[] NONE = new int[0];
+
+    private final String kind;
+    private final int version;
+
+    // 键字典
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    // 倒排表：键编号 -> 文件编号（无序，size 之后为空位）
+    private final List<int[]> postings = new ArrayList<>();
+    private final List<int[]> postingSizes = new ArrayList<>();
+    // 文件表：路径 -> 编号；编号 -> 路径（已删除为 null）、时间戳、所含键编号
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final List<String> filePaths = new ArrayList<>();
+    private final List<Long> fileTimestamps = new ArrayList<>();
+    private final List<int[]> fileKeys = new ArrayList<>();
+
+    private boolean dirty;
+
+    /**
+     * @param kind 索引种类，写入文件头部与正文
+     * @param version 正文格式版本，不符时丢弃磁盘文件
+     */
+    protected ZyFilePostings(@NotNull String kind, int version) {
+        this.kind = kind;
+        this.version = version;
+    }
+
+    /**
+     * 从文本中提取去重后的键
+     */
+    @NotNull
+    public abstract Collection<String> keys(@NotNull CharSequence text);
+
+    /**
+     * 提取文本中的键并替换该文件的登记
+     */
+    public void update(@NotNull String filePath, long timestamp, @NotNull CharSequence text) {
+        update(filePath, timestamp, keys(text));
+    }
+
+    /**
+     * 用已去重的键集合替换该文件的登记
+     */
+    public void update(@NotNull String filePath, long timestamp, @NotNull Iterable<String> newKeys) {
+        int fileId = remove(filePath, true);
+        int[] ids = new int[8];
+        int n = 0;
+        for (String key : newKeys) {
+            int id = keyId(key);
+            if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+            ids[n++] = id;
+            addPosting(id, fileId);
+        }
+        fileKeys.set(fileId, Arrays.copyOf(ids, n));
+        fileTimestamps.set(fileId, timestamp);
+        dirty = true;
+    }
+
+    /**
+     * 移除文件的全部登记
+     */
+    public void remove(@NotNull String filePath) {
+        remove(filePath, false);
+    }
+
+    // 从倒排表中摘除文件；keep 为 true 时保留（或新分配）文件编号并返回
+    private int remove(String filePath, boolean keep) {
+        Integer fileId = fileIds.get(filePath);
+        if (fileId == null) {
+            if (!keep) return -1;
+            fileId = filePaths.size();
+            fileIds.put(filePath, fileId);
+            filePaths.add(filePath);
+            fileTimestamps.add(0L);
+            fileKeys.add(NONE);
+            return fileId;
+        }
+        for (int id : fileKeys.get(fileId)) removePosting(id, fileId);
+        fileKeys.set(fileId, NONE);
+        if (!keep) {
+            // 编号不复用，路径置空即可；重新出现时分配新编号
+            fileIds.remove(filePath);
+            filePaths.set(fileId, null);
+            fileTimestamps.set(fileId, 0L);
+        }
+        dirty = true;
+        return fileId;
+    }
+
+    /**
+     * 含有 key 的文件路径
+     */
+    @NotNull
+    public List<String> files(@NotNull String key) {
+        Integer id = keyIds.get(key);
+        if (id == null) return Collections.emptyList();
+        int[] files = postings.get(id);
+        int n = postingSizes.get(id)[0];
+        List<String> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String path = filePaths.get(files[i]);
+            if (path != null) result.add(path);
+        }
+        return result;
+    }
+
+    /**
+     * 同时含有全部键的文件路径：从最短的倒排表出发逐表求交
+     */
+    @NotNull
+    public List<String> filesContainingAll(@NotNull Collection<String> required) {
+        List<Integer> ids = new ArrayList<>(required.size());
+        for (String key : required) {
+            Integer id = keyIds.get(key);
+            if (id == null) return Collections.emptyList();
+            if (!ids.contains(id)) ids.add(id);
+        }
+        if (ids.isEmpty()) return Collections.emptyList();
+        ids.sort((a, b) -> Integer.compare(postingSizes.get(a)[0], postingSizes.get(b)[0]));
+        // hits[f] 为文件 f 已命中的表数，只有命中全部前序表的文件才继续累加
+        int[] hits = new int[filePaths.size()];
+        int[] first = postings.get(ids.get(0));
+        int n = postingSizes.get(ids.get(0))[0];
+        for (int i = 0; i < n; i++) hits[first[i]] = 1;
+        for (int k = 1; k < ids.size(); k++) {
+            int[] files = postings.get(ids.get(k));
+            int size = postingSizes.get(ids.get(k))[0];
+            for (int i = 0; i < size; i++) {
+                if (hits[files[i]] == k) hits[files[i]] = k + 1;
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (hits[first[i]] != ids.size()) continue;
+            String path = filePaths.get(first[i]);
+            if (path != null) result.add(path);
+        }
+        return result;
+    }
+
+    /**
+     * 已登记文件的时间戳；未登记返回 null
+     */
+    @Nullable
+    public Long timestamp(@NotNull String filePath) {
+        Integer id = fileIds.get(filePath);
+        return id != null ? fileTimestamps.get(id) : null;
+    }
+
+    /**
+     * 已登记的全部文件路径
+     */
+    @NotNull
+    public List<String> filePaths() {
+        return new ArrayList<>(fileIds.keySet());
+    }
+
+    public int fileCount() {
+        return fileIds.size();
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    private int keyId(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null) return id;
+        id = keys.size();
+        keyIds.put(key, id);
+        keys.add(key);
+        postings.add(NONE);
+        postingSizes.add(new int[1]);
+        return id;
+    }
+
+    private void addPosting(int id, int fileId) {
+        int[] files = postings.get(id);
+        int[] size = postingSizes.get(id);
+        if (size[0] == files.length) {
+            files = Arrays.copyOf(files, Math.max(2, files.length * 2));
+            postings.set(id, files);
+        }
+        files[size[0]++] = fileId;
+    }
+
+    private void removePosting(int id, int fileId) {
+        int[] files = postings.get(id);
+        int[] size = postingSizes.get(id);
+        for (int i = 0; i < size[0]; i++) {
+            if (files[i] != fileId) continue;
+            // 无序表：用末尾元素填补空位
+            files[i] = files[--size[0]];
+            return;
+        }
+    }
+
+    // ---- 持久化 ----
+
+    /**
+     * 写入索引文件（经 {@link ZyIndexFileFormat}，原子替换），写入后清除脏标记
+     */
+    public void save(@NotNull Path out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeUTF(kind);
+            data.writeInt(version);
+            // 只写仍被引用的键，按新编号紧凑排列
+            int[] remap = new int[keys.size()];
+            Arrays.fill(remap, -1);
+            List<String> live = new ArrayList<>();
+            for (int fileId = 0; fileId < filePaths.size(); fileId++) {
+                if (filePaths.get(fileId) == null) continue;
+                for (int id : fileKeys.get(fileId)) {
+                    if (remap[id] < 0) {
+                        remap[id] = live.size();
+                        live.add(keys.get(id));
+                    }
+                }
+            }
+            data.writeInt(live.size());
+            for (String key : live) data.writeUTF(key);
+            data.writeInt(fileIds.size());
+            for (int fileId = 0; fileId < filePaths.size(); fileId++) {
+                String path = filePaths.get(fileId);
+                if (path == null) continue;
+                data.writeUTF(path);
+                data.writeLong(fileTimestamps.get(fileId));
+                int[] ids = fileKeys.get(fileId);
+                data.writeInt(ids.length);
+                for (int id : ids) data.writeInt(remap[id]);
+            }
+        }
+        ZyIndexFileFormat.write(out, kind, null, bytes.toByteArray());
+        dirty = false;
+    }
+
+    /**
+     * 把索引文件读入空的 index；文件缺失、损坏、种类或版本不符时返回 null
+     */
+    @Nullable
+    protected static <T extends ZyFilePostings> T load(@NotNull Path in, @NotNull T index) {
+        if (!Files.isRegularFile(in)) return null;
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(ZyIndexFileFormat.readBody(in)))) {
+            ZyFilePostings target = index;
+            if (!target.kind.equals(data.readUTF()) || data.readInt() != target.version) return null;
+            int keyCount = data.readInt();
+            String[] names = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) names[i] = data.readUTF();
+            int fileCount = data.readInt();
+            for (int f = 0; f < fileCount; f++) {
+                String path = data.readUTF();
+                long timestamp = data.readLong();
+                int n = data.readInt();
+                List<String> keysOfFile = new ArrayList<>(n);
+                for (int k = 0; k < n; k++) keysOfFile.add(names[data.readInt()]);
+                index.update(path, timestamp, keysOfFile);
+            }
+            target.dirty = false;
+            return index;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.company.plugin.index;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 可迁移的预构建索引包
+ * - 包内只记录项目相对路径、每个文件的内容哈希与提取出的符号，不含任何本机绝对路径
+ * - 导出：CI 或本地对检出目录执行一次，产出单个 zip 归档
+ * - 导入：新检出目录首次启动时读取归档，仅对哈希不一致的文件重新解析，
+ *   然后一次性写出目录/命名空间 JSON 索引并初始化 zySymbolIndex.xml 对应的符号表
+ * 导出与导入的扫描只依赖本地文件系统，可在无 IDE 环境下调用；文件按 {@link ZyFileEncodings} 解码，与 IDE 建索引时的编码一致
+ */
+public final class ZyIndexBundle {
+    private static final Logger LOG = Logger.getInstance(ZyIndexBundle.class);
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /** 索引包格式版本 */
+    public static final int BUNDLE_VERSION = 6;
+    /** 默认索引包文件名（位于 .idea/index 下） */
+    public static final String BUNDLE_FILE_NAME = "zy-index-bundle.zip";
+    /** 可通过系统属性指定索引包位置 */
+    public static final String BUNDLE_PROPERTY = "zy.index.bundle";
+
+    // 归档内的唯一条目
+    private static final String ENTRY_NAME = "bundle.json";
+
+    private ZyIndexBundle() {}
+
+    /**
+     * 索引包内容
+     */
+    public static class Bundle {
+        public int version;
+        /** 生成该包的插件版本，版本不一致时解析结果可能不同，导入时忽略 */
+        public String plugin;
+        public long generatedAt;
+        /** 项目相对路径 -> 文件记录 */
+        public Map<String, BundleFile> files;
+    }
+
+    /**
+     * 单个文件的记录
+     */
+    public static class BundleFile {
+        /** 文件内容 SHA-256（十六进制） */
+        public String hash;
+        /** 解析时使用的编码；导入时编码不同的记录不复用（偏移以字符计，依赖编码） */
+        public String charset;
+        public long size;
+        /** 作用域解析器提取的符号（未做目录命名空间继承） */
+        public List<ZyJsonIndexStore.SymbolEntry> symbols;
+        /** 类/函数定义：名字 -> 位置（符号表使用，filePath 为空） */
+        public Map<String, List<ZySymbolIndexService.LocationState>> definitions;
+        /** 类及其成员（成员索引使用，filePath 为空） */
+        public List<ZySymbolIndexService.ClassState> classes;
+    }
+
+    /**
+     * 导入统计
+     */
+    public static final class ImportResult {
+        public final int reused;
+        public final int reparsed;
+
+        ImportResult(int reused, int reparsed) {
+            this.reused = reused;
+            this.reparsed = reparsed;
+        }
+    }
+
+    /**
+     * 项目默认的索引包位置；系统属性 zy.index.bundle 优先
+     */
+    @Nullable
+    public static Path getBundlePath(@NotNull Project project) {
+        String configured = System.getProperty(BUNDLE_PROPERTY);
+        if (configured != null && !configured.isEmpty()) return Path.of(configured);
+        String basePath = project.getBasePath();
+        if (basePath == null) return null;
+        return Path.of(basePath, ".idea", "index", BUNDLE_FILE_NAME);
+    }
+
+    /**
+     * 扫描项目根目录下所有 .zy 文件并导出索引包
+     * @return 包含的文件数
+     */
+    public static int export(@NotNull Path projectRoot, @NotNull Path out) throws IOException {
+        return export(projectRoot, out, null);
+    }
+
+    /**
+     * 同 {@link #export(Path, Path)}，逐个文件汇报进度并检查取消（取消时抛出 ProcessCanceledException，不写出归档）
+     */
+    public static int export(@NotNull Path projectRoot, @NotNull Path out, @Nullable ProgressIndicator indicator) throws IOException {
+        return export(projectRoot, out, indicator, ZyFileEncodings.load(projectRoot));
+    }
+
+    /**
+     * 同上，指定文件编码（命令行索引器的 --charset）
+     */
+    static int export(@NotNull Path projectRoot, @NotNull Path out, @Nullable ProgressIndicator indicator,
+                      @NotNull ZyFileEncodings encodings) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Path> files = listZyFiles(projectRoot);
+        AtomicInteger done = new AtomicInteger();
+        Map<String, BundleFile> records = files.parallelStream()
+                .collect(Collectors.toMap(p -> relativize(projectRoot, p), p -> {
+                    if (indicator != null) {
+                        indicator.checkCanceled();
+                        indicator.setFraction((double) done.incrementAndGet() / files.size());
+                    }
+                    try {
+                        return describe(Files.readAllBytes(p), encodings.charsetOf(relativize(projectRoot, p)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, (a, b) -> a, TreeMap::new));
+
+        Bundle bundle = new Bundle();
+        bundle.version = BUNDLE_VERSION;
+        bundle.plugin = ZyIndexFileFormat.pluginVersion();
+        bundle.generatedAt = System.currentTimeMillis();
+        bundle.files = records;
+        if (indicator != null) indicator.checkCanceled();
+        write(bundle, out);
+        LOG.info("Exported index bundle: files=" + records.size() + " to " + out + " in " + (System.currentTimeMillis() - start) + " ms");
+        return records.size();
+    }
+
+    /**
+     * 在 IDE 中导出当前项目的索引包到默认位置（在后台任务中调用）
+     */
+    @NotNull
+    public static Path export(@NotNull Project project, @Nullable ProgressIndicator indicator) throws IOException {
+        String basePath = project.getBasePath();
+        Path out = getBundlePath(project);
+        if (basePath == null || out == null) throw new IOException("Project has no base path");
+        export(Path.of(basePath), out, indicator);
+        return out;
+    }
+
+    /**
+     * 启动时调用：项目尚无符号表与 JSON 索引且存在索引包时导入
+     * @return 导入统计；未导入时返回 null
+     */
+    @Nullable
+    public static ImportResult importIfPresent(@NotNull Project project) {
+        Path bundlePath = getBundlePath(project);
+        String basePath = project.getBasePath();
+        if (bundlePath == null || basePath == null || !Files.isRegularFile(bundlePath)) return null;
+        ZySymbolIndexService service = ZySymbolIndexService.getInstance(project);
+        if (service.hasState() || ZyJsonIndexStore.hasIndexes(project)) return null;
+        try {
+            Bundle bundle = read(bundlePath);
+            if (bundle == null || bundle.version != BUNDLE_VERSION || bundle.files == null) {
+                LOG.info("Ignore index bundle with unsupported format: " + bundlePath);
+                return null;
+            }
+            if (!ZyIndexFileFormat.pluginVersion().equals(bundle.plugin)) {
+                LOG.info("Ignore index bundle generated by plugin " + bundle.plugin + ": " + bundlePath);
+                return null;
+            }
+            return importInto(project, Path.of(basePath), bundle);
+        } catch (Exception e) {
+            LOG.warn("Import index bundle failed: " + bundlePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * 以索引包为基础生成本地索引：哈希一致的文件直接复用，其余文件重新解析
+     */
+    private static ImportResult importInto(@NotNull Project project, @NotNull Path root, @NotNull Bundle bundle) throws IOException {
+        long start = System.currentTimeMillis();
+        String basePath = root.toString().replace('\\', '/');
+        Map<String, BundleFile> local = new TreeMap<>();
+        ImportResult counts = describeLocal(root, bundle, local);
+
+        // 按目录分组组装目录索引，并生成符号表
+        Map<String, ZyJsonIndexStore.DirIndex> byDir = new TreeMap<>();
+        Map<String, List<ZySymbolIndexService.LocationState>> symbolMap = new HashMap<>();
+        Map<String, List<ZySymbolIndexService.ClassState>> classMap = new HashMap<>();
+        Map<String, Long> timestamps = new HashMap<>();
+        for (Map.Entry<String, BundleFile> e : local.entrySet()) {
+            String rel = e.getKey();
+            BundleFile record = e.getValue();
+            String absPath = basePath + "/" + rel;
+            Path file = root.resolve(rel);
+            long mtime = Files.getLastModifiedTime(file).toMillis();
+            timestamps.put(absPath, mtime);
+
+            int slash = rel.lastIndexOf('/');
+            String relDir = slash > 0 ? rel.substring(0, slash) : "";
+            ZyJsonIndexStore.FileEntry fe = new ZyJsonIndexStore.FileEntry();
+            fe.path = rel;
+            fe.mtime = mtime;
+            fe.size = record.size;
+            fe.symbols = copySymbols(record.symbols);
+            byDir.computeIfAbsent(relDir, ZyJsonIndexStore::newDirIndex).files.add(fe);
+
+            if (record.definitions != null) {
+                for (Map.Entry<String, List<ZySymbolIndexService.LocationState>> d : record.definitions.entrySet()) {
+                    List<ZySymbolIndexService.LocationState> list = symbolMap.computeIfAbsent(d.getKey(), k -> new ArrayList<>());
+                    for (ZySymbolIndexService.LocationState loc : d.getValue()) {
+                        list.add(new ZySymbolIndexService.LocationState(absPath, loc.offset, loc.fqn, loc.line));
+                    }
+                }
+            }
+            if (record.classes != null) {
+                for (ZySymbolIndexService.ClassState cs : record.classes) {
+                    cs.filePath = absPath;
+                    classMap.computeIfAbsent(cs.fqn, k -> new ArrayList<>()).add(cs);
+                }
+            }
+        }
+
+        List<ZyJsonIndexStore.DirIndex> collected = new ArrayList<>();
+        for (ZyJsonIndexStore.DirIndex index : byDir.values()) {
+            collected.add(ZyJsonIndexStore.assembleDirIndex(index));
+        }
+        ZyJsonIndexStore.writeAllSegments(project, collected);
+        ZySymbolIndexService.getInstance(project).seedState(symbolMap, classMap, timestamps);
+
+        // 新写入的索引文件需让 VFS 感知
+        LocalFileSystem.getInstance().refreshAndFindFileByIoFile(ZyJsonIndexStore.getIndexRoot(project).toFile());
+        LOG.info("Imported index bundle: reused=" + counts.reused + ", reparsed=" + counts.reparsed
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+        return counts;
+    }
+
+    /**
+     * 对照索引包描述本地文件：哈希一致的文件直接复用包内记录，其余重新解析
+     * @param into 项目相对路径 -> 文件记录
+     * @return 复用与重新解析的文件数
+     */
+    static ImportResult describeLocal(@NotNull Path root, @NotNull Bundle bundle, @NotNull Map<String, BundleFile> into) throws IOException {
+        AtomicInteger reused = new AtomicInteger();
+        AtomicInteger reparsed = new AtomicInteger();
+        // 读取、哈希与（必要时）解析可并行，每个文件互不依赖
+        ZyFileEncodings encodings = ZyFileEncodings.load(root);
+        List<Path> files = listZyFiles(root);
+        into.putAll(files.parallelStream()
+                .collect(Collectors.toMap(p -> relativize(root, p), p -> {
+                    try {
+                        byte[] bytes = Files.readAllBytes(p);
+                        String rel = relativize(root, p);
+                        Charset charset = encodings.charsetOf(rel);
+                        BundleFile prebuilt = bundle.files.get(rel);
+                        if (prebuilt != null && charset.name().equals(prebuilt.charset) && sha256(bytes).equals(prebuilt.hash)) {
+                            reused.incrementAndGet();
+                            return prebuilt;
+                        }
+                        reparsed.incrementAndGet();
+                        return describe(bytes, charset);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })));
+        return new ImportResult(reused.get(), reparsed.get());
+    }
+
+    /**
+     * 计算单个文件的哈希与符号
+     */
+    private static BundleFile describe(@NotNull byte[] bytes, @NotNull Charset charset) {
+        String text = new String(bytes, charset);
+        BundleFile record = new BundleFile();
+        record.hash = sha256(bytes);
+        record.charset = charset.name();
+        record.size = bytes.length;
+        record.symbols = ZySymbolIndexService.extractSymbolsWithNamespace(text);
+        record.classes = ZyClassScanner.scan(text);
+        record.definitions = ZySymbolIndexService.extractDefinitions(null, text, record.classes);
+        return record;
+    }
+
+    /**
+     * 目录命名空间继承会修改符号条目，复用包内条目前先复制
+     */
+    private static List<ZyJsonIndexStore.SymbolEntry> copySymbols(@Nullable List<ZyJsonIndexStore.SymbolEntry> symbols) {
+        List<ZyJsonIndexStore.SymbolEntry> copy = new ArrayList<>();
+        if (symbols == null) return copy;
+        for (ZyJsonIndexStore.SymbolEntry s : symbols) {
+            ZyJsonIndexStore.SymbolEntry c = new ZyJsonIndexStore.SymbolEntry();
+            c.kind = s.kind; c.name = s.name; c.offset = s.offset; c.namespace = s.namespace; c.fqn = s.fqn;
+            copy.add(c);
+        }
+        return copy;
+    }
+
+    /**
+     * 递归列出 .zy 文件（不跟随符号链接，跳过 .git）
+     */
+    public static List<Path> listZyFiles(@NotNull Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return ".git".equals(String.valueOf(dir.getFileName())) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".zy")) files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                LOG.debug("Skip unreadable path: " + file, exc);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.naturalOrder());
+        return files;
+    }
+
+    private static String relativize(@NotNull Path root, @NotNull Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String sha256(@NotNull byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void write(@NotNull Bundle bundle, @NotNull Path out) throws IOException {
+        ZyJsonIndexStore.ensureDirExists(out);
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             ZipOutputStream zip = new ZipOutputStream(os)) {
+            zip.putNextEntry(new ZipEntry(ENTRY_NAME));
+            Writer w = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+            GSON.toJson(bundle, w);
+            w.flush();
+            zip.closeEntry();
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Nullable
+    static Bundle read(@NotNull Path in) throws IOException {
+        try (InputStream is = Files.newInputStream(in);
+             ZipInputStream zip = new ZipInputStream(is)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!ENTRY_NAME.equals(entry.getName())) continue;
+                Reader r = new InputStreamReader(zip, StandardCharsets.UTF_8);
+                return GSON.fromJson(r, Bundle.class);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.company.plugin.index;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 索引文件格式：首行为单行 JSON 头，其后为正文
+ * - 头部包含格式版本、生成插件版本、正文长度与 CRC32
+ * - 校验只读取头部并流式计算正文 CRC，不做 JSON 解码，可在启动时并行执行
+ * - 写入时先落临时文件并 fsync，再原子替换，崩溃后不会留下半截文件
+ */
+public final class ZyIndexFileFormat {
+
+    /** 当前索引文件格式版本；旧版本（无头部）文件视为无效并重建 */
+    public static final int FORMAT_VERSION = 2;
+
+    // 头部允许的最大字节数，超过即视为损坏，避免把正文当作头部读取
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    // 插件 ID，用于获取生成索引时的插件版本
+    private static final String PLUGIN_ID = "com.company.zy-language-plugin";
+    // 头部必须单行输出，不能使用 pretty printing
+    private static final Gson HEADER_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /** 无 IDE 环境（如命令行索引器）下通过该系统属性指定插件版本 */
+    public static final String PLUGIN_VERSION_PROPERTY = "zy.plugin.version";
+
+    // 插件版本缓存
+    private static volatile String pluginVersion;
+
+    private ZyIndexFileFormat() {}
+
+    /**
+     * 文件头
+     */
+    public static class Header {
+        /** 格式版本 */
+        public int format;
+        /** 生成该文件的插件版本 */
+        public String plugin;
+        /** 文件类别：dir / namespace / manifest 等 */
+        public String kind;
+        /** 来源标识：相对目录或命名空间 */
+        public String source;
+        /** 正文字节数 */
+        public long length;
+        /** 正文 CRC32（十六进制） */
+        public String crc;
+    }
+
+    /**
+     * 索引文件损坏或与当前插件不兼容
+     */
+    public static class CorruptedIndexException extends IOException {
+        public CorruptedIndexException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 校验结果
+     */
+    public static final class ValidationResult {
+        public final Path path;
+        public final boolean valid;
+        public final String reason;
+        @Nullable public final Header header;
+
+        ValidationResult(Path path, boolean valid, String reason, @Nullable Header header) {
+            this.path = path;
+            this.valid = valid;
+            this.reason = reason;
+            this.header = header;
+        }
+    }
+
+    /**
+     * 当前插件版本；无法从 IDE 获取时依次使用系统属性 zy.plugin.version 与 "dev"
+     */
+    @NotNull
+    public static String pluginVersion() {
+        String v = pluginVersion;
+        if (v == null) {
+            try {
+                var descriptor = com.intellij.ide.plugins.PluginManagerCore.getPlugin(com.intellij.openapi.extensions.PluginId.getId(PLUGIN_ID));
+                v = descriptor != null ? descriptor.getVersion() : null;
+            } catch (Throwable t) {
+                v = null;
+            }
+            if (v == null) v = System.getProperty(PLUGIN_VERSION_PROPERTY, "dev");
+            pluginVersion = v;
+        }
+        return v;
+    }
+
+    /**
+     * 以“头部 + 正文”格式原子写入索引文件
+     */
+    public static void write(@NotNull Path out, @NotNull String kind, @Nullable String source, @NotNull byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        Header header = new Header();
+        header.format = FORMAT_VERSION;
+        header.plugin = pluginVersion();
+        header.kind = kind;
+        header.source = source;
+        header.length = body.length;
+        header.crc = Long.toHexString(crc.getValue());
+        byte[] headerLine = (HEADER_GSON.toJson(header) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        Path parent = out.getParent();
+        if (parent != null && Files.notExists(parent)) Files.createDirectories(parent);
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] buffers = {ByteBuffer.wrap(headerLine), ByteBuffer.wrap(body)};
+            long total = headerLine.length + (long) body.length;
+            long written = 0;
+            while (written < total) written += ch.write(buffers);
+            // 先刷盘再替换，保证替换后的文件内容完整
+            ch.force(true);
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取并校验正文；头部缺失、版本不符、长度或 CRC 不一致时抛出 CorruptedIndexException
+     */
+    @NotNull
+    public static byte[] readBody(@NotNull Path p) throws IOException {
+        byte[] all = Files.readAllBytes(p);
+        int nl = -1;
+        for (int i = 0; i < Math.min(all.length, MAX_HEADER_BYTES); i++) {
+            if (all[i] == '\n') { nl = i; break; }
+        }
+        if (nl < 0) throw new CorruptedIndexException("missing header: " + p);
+        Header header = parseHeader(new String(all, 0, nl, StandardCharsets.UTF_8));
+        String problem = checkHeader(header);
+        if (problem != null) throw new CorruptedIndexException(problem + ": " + p);
+        int bodyStart = nl + 1;
+        int bodyLength = all.length - bodyStart;
+        if (bodyLength != header.length) throw new CorruptedIndexException("length mismatch: " + p);
+        CRC32 crc = new CRC32();
+        crc.update(all, bodyStart, bodyLength);
+        if (!Long.toHexString(crc.getValue()).equals(header.crc)) throw new CorruptedIndexException("crc mismatch: " + p);
+        byte[] body = new byte[bodyLength];
+        System.arraycopy(all, bodyStart, body, 0, bodyLength);
+        return body;
+    }
+
+    /**
+     * 快速校验：读取头部并流式计算正文 CRC，不解码正文 JSON
+     */
+    @NotNull
+    public static ValidationResult validate(@NotNull Path p) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(p), 64 * 1024)) {
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(256);
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (headerBytes.size() >= MAX_HEADER_BYTES) return new ValidationResult(p, false, "header too long", null);
+                headerBytes.write(b);
+            }
+            if (b == -1) return new ValidationResult(p, false, "missing header", null);
+            Header header = parseHeader(headerBytes.toString(StandardCharsets.UTF_8));
+            String problem = checkHeader(header);
+            if (problem != null) return new ValidationResult(p, false, problem, header);
+
+            CRC32 crc = new CRC32();
+            byte[] buf = new byte[64 * 1024];
+            long length = 0;
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                crc.update(buf, 0, n);
+                length += n;
+            }
+            if (length != header.length) return new ValidationResult(p, false, "length mismatch", header);
+            if (!Long.toHexString(crc.getValue()).equals(header.crc)) return new ValidationResult(p, false, "crc mismatch", header);
+            return new ValidationResult(p, true, null, header);
+        } catch (Exception e) {
+            return new ValidationResult(p, false, "unreadable: " + e.getMessage(), null);
+        }
+    }
+
+    @Nullable
+    private static Header parseHeader(@NotNull String line) {
+        try {
+            return HEADER_GSON.fromJson(line, Header.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 检查头部字段；返回问题描述，合法时返回 null
+     */
+    @Nullable
+    private static String checkHeader(@Nullable Header header) {
+        if (header == null || header.crc == null) return "invalid header";
+        if (header.format != FORMAT_VERSION) return "format " + header.format + " != " + FORMAT_VERSION;
+        if (!pluginVersion().equals(header.plugin)) return "generated by plugin " + header.plugin;
+        return null;
+    }
+}
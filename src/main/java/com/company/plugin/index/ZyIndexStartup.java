@@ -37,7 +37,19 @@ public class ZyIndexStartup implements StartupActivity.DumbAware {
         DumbService.getInstance(project).runWhenSmart(() -> {
             com.intellij.util.concurrency.AppExecutorUtil.getAppExecutorService().submit(() -> {
                 try {
+                    // 新检出目录：存在预构建索引包时直接导入，只重新解析内容有变化的文件
+                    ZyIndexBundle.ImportResult imported = ZyIndexBundle.importIfPresent(project);
+                    if (imported != null) {
+                        LOG.info("Imported index bundle: reused=" + imported.reused + ", reparsed=" + imported.reparsed);
+                    }
+                    // 先校验磁盘索引（头部 + CRC），只重建损坏或版本不符的文件
+                    int repaired = ZyJsonIndexStore.validateAndRepair(project);
+                    if (repaired > 0) {
+                        LOG.info("Repaired " + repaired + " invalid index file(s) on startup");
+                    }
                     ZySymbolIndexService.getInstance(project).ensureUpToDate();
+                    // 预建补全用符号名表，首次补全无需同步排序
+                    ZySymbolIndexService.getInstance(project).getSymbolNameTable();
                 } catch (Exception e) {
                     LOG.warn("Warm-up symbol index failed", e);
                 }
@@ -1,5 +1,7 @@
 package com.company.plugin.index;
 
+import com.company.plugin.diagnostics.ZyMetrics;
+import com.company.plugin.diagnostics.ZyTracer;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.intellij.openapi.diagnostic.Logger;
@@ -8,21 +10,31 @@ import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileVisitor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * JSON 索引读写器
- * 在 .idea/index/zy/<relDir>/index.json 下为每个目录生成一个缓存文件
+ * - 无命名空间的目录：在 .idea/index/zy/<relDir>.index.json 下生成目录级缓存文件
+ * - 声明命名空间的目录：作为一个分段（segment）合并进 ns_<namespace>.index.json，
+ *   多个目录共享同一命名空间时互不覆盖，且每个分段可单独更新
+ * - segments.json 清单记录“目录 -> 命名空间”（无命名空间记为空串），用于局部重建时定位并清理旧分段
+ * - 所有文件使用 {@link ZyIndexFileFormat} 的“头部 + CRC”格式，读取失败的文件会被登记并单独修复
  */
 public final class ZyJsonIndexStore {
     private static final Logger LOG = Logger.getInstance(ZyJsonIndexStore.class);
@@ -32,6 +44,18 @@ public final class ZyJsonIndexStore {
             .setPrettyPrinting()
             .create();
 
+    // 命名空间聚合文件与清单的读-改-写需串行，避免并发局部重建互相覆盖
+    private static final Object WRITE_LOCK = new Object();
+    // 读取时校验失败、等待修复的索引文件
+    private static final Set<Path> CORRUPTED = ConcurrentHashMap.newKeySet();
+    // 累计修复的索引文件数
+    private static final AtomicInteger REPAIRED = new AtomicInteger();
+
+    // 文件类别（写入头部，便于排查）
+    private static final String KIND_DIR = "dir";
+    private static final String KIND_NAMESPACE = "namespace";
+    private static final String KIND_MANIFEST = "manifest";
+
     private ZyJsonIndexStore() {}
 
     public static Path getIndexRoot(@NotNull Project project) {
@@ -41,7 +65,10 @@ public final class ZyJsonIndexStore {
     }
 
     public static Path getDirIndexPath(@NotNull Project project, @NotNull String relativeDir) {
-        Path root = getIndexRoot(project);
+        return getDirIndexPath(getIndexRoot(project), relativeDir);
+    }
+
+    public static Path getDirIndexPath(@NotNull Path root, @NotNull String relativeDir) {
         if (relativeDir.isEmpty() || ".".equals(relativeDir)) return root.resolve("index.json");
         // 目录同级生成 index.json（非下级 zy/relativeDir/index.json）
         // 规范：.idea/index/zy/<relativeDir>.index.json
@@ -50,16 +77,44 @@ public final class ZyJsonIndexStore {
     }
 
     public static Path getNamespaceIndexPath(@NotNull Project project, @NotNull String namespace) {
-        Path root = getIndexRoot(project);
+        return getNamespaceIndexPath(getIndexRoot(project), namespace);
+    }
+
+    public static Path getNamespaceIndexPath(@NotNull Path root, @NotNull String namespace) {
         String fileName = "ns_" + namespace.replace('\\', '_').replace('/', '_') + ".index.json";
         return root.resolve(fileName);
     }
 
+    /**
+     * 分段清单路径：记录每个目录当前归属的命名空间
+     */
+    public static Path getManifestPath(@NotNull Project project) {
+        return getManifestPath(getIndexRoot(project));
+    }
+
+    public static Path getManifestPath(@NotNull Path root) {
+        return root.resolve("segments.json");
+    }
+
+    /**
+     * 是否已经生成过目录/命名空间索引（以清单是否存在为准）
+     */
+    public static boolean hasIndexes(@NotNull Project project) {
+        return Files.exists(getManifestPath(project));
+    }
+
     public static String getRelativeDir(@NotNull Project project, @NotNull VirtualFile dir) {
+        return getRelativeDir(project, dir.getPath());
+    }
+
+    /**
+     * 按绝对路径计算相对目录（目录可能已被删除，因此不依赖 VirtualFile）
+     */
+    public static String getRelativeDir(@NotNull Project project, @NotNull String dirPath) {
         VirtualFile base = project.getBaseDir();
         if (base == null) return "";
         String basePath = base.getPath();
-        String full = dir.getPath();
+        String full = dirPath;
         if (full.equals(basePath)) return "";
         if (full.startsWith(basePath + "/")) return full.substring(basePath.length() + 1);
         return full; // fallback
@@ -73,128 +128,352 @@ public final class ZyJsonIndexStore {
     }
 
     /**
-     * 扫描指定目录（不递归）生成目录级 index.json
+     * 扫描指定目录（不递归）并单独落盘该目录的索引
+     * - 目录声明了命名空间：仅替换命名空间聚合文件中该目录的分段
+     * - 目录没有命名空间：写入目录级 index.json
+     * - 目录已无 .zy 文件：清理其旧分段/旧文件
      */
     public static void buildDirIndex(@NotNull Project project, @NotNull VirtualFile dir) {
         try {
             if (!dir.isDirectory()) return;
-            String rel = getRelativeDir(project, dir);
-            LOG.info("Building index for directory: " + dir.getPath() + " (rel: " + rel + ")");
-            
-            // 先尝试从目录内任意 .zy 文件推断目录命名空间
-            DirIndex index = new DirIndex();
-            index.version = 1;
-            index.dir = rel.replace('\\', '/');
-            index.generatedAt = System.currentTimeMillis();
-            index.files = new ArrayList<>();
-
-            // 先尝试从目录内任意 .zy 文件推断目录命名空间
-            String dirNamespace = null;
-            for (VirtualFile child : dir.getChildren()) {
-                if (!child.isDirectory() && child.getName().endsWith(".zy")) {
-                    try {
-                        String text = new String(child.contentsToByteArray(), child.getCharset());
-                        var syms = ZySymbolIndexService.extractSymbolsWithNamespace(text);
-                        for (var s : syms) { 
-                            if (s.namespace != null && !s.namespace.isEmpty()) { 
-                                dirNamespace = s.namespace; 
-                                LOG.info("Found namespace in " + child.getName() + ": " + dirNamespace);
-                                break; 
-                            } 
-                        }
-                        if (dirNamespace != null && !dirNamespace.isEmpty()) break;
-                    } catch (Exception ex) {
-                        LOG.warn("Error reading file for namespace detection: " + child.getPath(), ex);
-                    }
-                }
+            DirIndex index = collectDirIndex(project, dir);
+            synchronized (WRITE_LOCK) {
+                Manifest manifest = readManifest(project);
+                writeDirSegment(project, manifest, index);
+                writeManifest(project, manifest);
             }
+        } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.warn("Build dir index failed: " + dir.getPath(), e);
+        }
+    }
 
-            for (VirtualFile child : dir.getChildren()) {
+    /**
+     * 局部重建：仅重建给定目录（绝对路径），目录不存在时移除其分段
+     * 供增量更新使用，单个目录变化不会触发其它目录或其它分段的重写
+     */
+    public static void rebuildDirIndexes(@NotNull Project project, @NotNull Collection<String> dirPaths) {
+        if (dirPaths.isEmpty()) return;
+        long started = ZyMetrics.start();
+        try (ZyTracer.Span span = ZyTracer.span(ZyMetrics.JSON_REBUILD_DIRS)) {
+            if (span.isRecording()) span.attr("dirs", dirPaths.size());
+            rebuildDirIndexesLocked(project, dirPaths);
+        }
+        ZyMetrics.recordSince(ZyMetrics.JSON_REBUILD_DIRS, started);
+    }
+
+    private static void rebuildDirIndexesLocked(@NotNull Project project, @NotNull Collection<String> dirPaths) {
+        synchronized (WRITE_LOCK) {
+            Manifest manifest = readManifest(project);
+            for (String dirPath : dirPaths) {
                 try {
-                    // 检查是否被取消
                     com.intellij.openapi.progress.ProgressManager.checkCanceled();
-                    
-                    if (child.isDirectory()) continue;
-                    if (!child.getName().endsWith(".zy")) continue;
-                    
-                    String text = new String(child.contentsToByteArray(), child.getCharset());
-                    FileEntry fe = new FileEntry();
-                    fe.path = getRelativePath(project, child);
-                    fe.mtime = child.getTimeStamp();
-                    fe.size = child.getLength();
-                    fe.symbols = ZySymbolIndexService.extractSymbolsWithNamespace(text);
-                    if (fe.symbols != null && dirNamespace != null && !dirNamespace.isEmpty()) {
-                        for (var s : fe.symbols) {
-                            if (s.namespace == null || s.namespace.isEmpty()) {
-                                s.namespace = dirNamespace;
-                                s.fqn = dirNamespace + "\\" + s.name;
-                            }
-                        }
+                    VirtualFile dir = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(dirPath);
+                    DirIndex index;
+                    if (dir != null && dir.isDirectory()) {
+                        index = collectDirIndex(project, dir);
+                    } else {
+                        // 目录已删除：以空分段写入，效果为移除旧分段
+                        index = newDirIndex(getRelativeDir(project, dirPath));
                     }
-                    index.files.add(fe);
-                    LOG.info("Added file to index: " + fe.path + " with " + (fe.symbols != null ? fe.symbols.size() : 0) + " symbols");
+                    writeDirSegment(project, manifest, index);
                 } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
-                    // 搜索被取消，停止处理
-                    LOG.debug("File processing cancelled");
+                    // 已完成的目录仍需写入清单，保证清单与磁盘一致
+                    writeManifestQuietly(project, manifest);
+                    throw e;
+                } catch (Exception e) {
+                    LOG.warn("Rebuild dir index failed: " + dirPath, e);
+                }
+            }
+            writeManifestQuietly(project, manifest);
+        }
+    }
+
+    /**
+     * 扫描目录（不递归）生成内存中的目录索引，不落盘
+     */
+    private static DirIndex collectDirIndex(@NotNull Project project, @NotNull VirtualFile dir) {
+        String rel = getRelativeDir(project, dir);
+        DirIndex index = newDirIndex(rel);
+
+        // 先读取一次目录内 .zy 文件内容，命名空间推断与符号提取共用，避免重复读盘
+        List<VirtualFile> zyFiles = new ArrayList<>();
+        for (VirtualFile child : dir.getChildren()) {
+            if (!child.isDirectory() && child.getName().endsWith(".zy")) zyFiles.add(child);
+        }
+
+        for (VirtualFile child : zyFiles) {
+            com.intellij.openapi.progress.ProgressManager.checkCanceled();
+            try {
+                String text = new String(child.contentsToByteArray(), child.getCharset());
+                FileEntry fe = new FileEntry();
+                fe.path = getRelativePath(project, child);
+                fe.mtime = child.getTimeStamp();
+                fe.size = child.getLength();
+                fe.symbols = ZySymbolIndexService.extractSymbolsWithNamespace(text);
+                index.files.add(fe);
+            } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
+                throw e;
+            } catch (Exception ex) {
+                LOG.warn("Read file failed: " + child.getPath(), ex);
+            }
+        }
+        return assembleDirIndex(index);
+    }
+
+    /**
+     * 由已提取符号的文件条目推断目录命名空间并生成汇总
+     * 供 IDE 扫描与索引包导入共用，保证两条路径产出一致
+     */
+    public static DirIndex assembleDirIndex(@NotNull DirIndex index) {
+        String dirNamespace = null;
+        for (FileEntry fe : index.files) {
+            if (fe.symbols == null) continue;
+            // 目录命名空间取第一个声明了命名空间的文件
+            for (SymbolEntry s : fe.symbols) {
+                if (s.namespace != null && !s.namespace.isEmpty()) {
+                    dirNamespace = s.namespace;
                     break;
-                } catch (Exception ex) {
-                    LOG.warn("Read file failed: " + child.getPath(), ex);
                 }
             }
+            if (dirNamespace != null) break;
+        }
 
-            index.summary = new Summary();
-            index.summary.fileCount = index.files.size();
-            int symCount = 0;
-            for (FileEntry f : index.files) symCount += (f.symbols == null ? 0 : f.symbols.size());
-            index.summary.symbolCount = symCount;
-
-            // 原子落盘
-            Path out = (dirNamespace != null && !dirNamespace.isEmpty())
-                    ? getNamespaceIndexPath(project, dirNamespace)
-                    : getDirIndexPath(project, rel);
-            LOG.info("Writing index to: " + out.toString() + " (namespace: " + dirNamespace + ")");
-            ensureDirExists(out);
-            Path tmp = out.resolveSibling("index.json.tmp");
-            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
-                GSON.toJson(index, w);
+        // 未声明命名空间的文件继承目录命名空间
+        if (dirNamespace != null) {
+            for (FileEntry fe : index.files) {
+                if (fe.symbols == null) continue;
+                for (SymbolEntry s : fe.symbols) {
+                    if (s.namespace == null || s.namespace.isEmpty()) {
+                        s.namespace = dirNamespace;
+                        s.fqn = dirNamespace + "\\" + s.name;
+                    }
+                }
             }
-            java.nio.file.Files.move(tmp, out, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
-            LOG.info("Successfully built index for directory: " + rel + " with " + index.files.size() + " files and " + symCount + " symbols");
-        } catch (Exception e) {
-            LOG.warn("Build dir index failed: " + dir.getPath(), e);
         }
+        index.namespace = dirNamespace;
+        index.summary = summarize(index.files);
+        return index;
     }
 
-    public static DirIndex readDirIndex(@NotNull Project project, @NotNull String relativeDir) {
-        Path p = getDirIndexPath(project, relativeDir);
+    public static DirIndex newDirIndex(@NotNull String rel) {
+        DirIndex index = new DirIndex();
+        index.version = 1;
+        index.dir = rel.replace('\\', '/');
+        index.generatedAt = System.currentTimeMillis();
+        index.files = new ArrayList<>();
+        index.summary = new Summary();
+        return index;
+    }
+
+    private static Summary summarize(@NotNull List<FileEntry> files) {
+        Summary summary = new Summary();
+        summary.fileCount = files.size();
+        int symCount = 0;
+        for (FileEntry f : files) symCount += (f.symbols == null ? 0 : f.symbols.size());
+        summary.symbolCount = symCount;
+        return summary;
+    }
+
+    /**
+     * 将单个目录的索引写入其归属位置，并维护清单（调用方需持有 WRITE_LOCK 并负责写回清单）
+     */
+    private static void writeDirSegment(@NotNull Project project, @NotNull Manifest manifest, @NotNull DirIndex index) throws IOException {
+        String rel = index.dir;
+        String previousNs = emptyToNull(manifest.dirNamespaces.get(rel));
+        String ns = index.namespace;
+        boolean hasNs = ns != null && !ns.isEmpty();
+
+        // 目录命名空间发生变化：从旧命名空间聚合中移除该目录分段
+        if (previousNs != null && !previousNs.equals(hasNs ? ns : null)) {
+            removeNamespaceSegment(project, previousNs, rel);
+        }
+
+        if (index.files.isEmpty()) {
+            // 目录已无 .zy 文件：删除目录文件与清单记录
+            manifest.dirNamespaces.remove(rel);
+            Files.deleteIfExists(getDirIndexPath(project, rel));
+            return;
+        }
+
+        if (hasNs) {
+            updateNamespaceSegment(project, ns, index);
+            manifest.dirNamespaces.put(rel, ns);
+            // 目录此前未声明命名空间时遗留的目录文件需清理
+            Files.deleteIfExists(getDirIndexPath(project, rel));
+        } else {
+            writeIndexFile(getDirIndexPath(project, rel), KIND_DIR, rel, index);
+            manifest.dirNamespaces.put(rel, "");
+        }
+    }
+
+    /**
+     * 替换命名空间聚合文件中的单个目录分段，其他目录分段保持不变
+     */
+    private static void updateNamespaceSegment(@NotNull Project project, @NotNull String namespace, @NotNull DirIndex segment) throws IOException {
+        // 写入路径读取旧聚合时不登记损坏：读不出来就从空聚合开始重建
+        NamespaceIndex agg = readNamespaceAggregate(project, namespace, false);
+        if (agg == null) agg = newNamespaceIndex(namespace);
+        agg.segments.put(segment.dir, segment);
+        agg.generatedAt = System.currentTimeMillis();
+        agg.summary = summarizeSegments(agg.segments);
+        writeIndexFile(getNamespaceIndexPath(project, namespace), KIND_NAMESPACE, namespace, agg);
+    }
+
+    /**
+     * 从命名空间聚合文件中移除单个目录分段；分段清空后删除聚合文件
+     */
+    private static void removeNamespaceSegment(@NotNull Project project, @NotNull String namespace, @NotNull String relDir) throws IOException {
+        NamespaceIndex agg = readNamespaceAggregate(project, namespace, false);
+        if (agg == null || agg.segments.remove(relDir) == null) return;
+        Path out = getNamespaceIndexPath(project, namespace);
+        if (agg.segments.isEmpty()) {
+            Files.deleteIfExists(out);
+            return;
+        }
+        agg.generatedAt = System.currentTimeMillis();
+        agg.summary = summarizeSegments(agg.segments);
+        writeIndexFile(out, KIND_NAMESPACE, namespace, agg);
+    }
+
+    private static NamespaceIndex newNamespaceIndex(@NotNull String namespace) {
+        NamespaceIndex agg = new NamespaceIndex();
+        agg.version = 2;
+        agg.namespace = namespace;
+        agg.segments = new TreeMap<>();
+        return agg;
+    }
+
+    private static Summary summarizeSegments(@NotNull Map<String, DirIndex> segments) {
+        Summary summary = new Summary();
+        for (DirIndex seg : segments.values()) {
+            if (seg.summary == null) continue;
+            summary.fileCount += seg.summary.fileCount;
+            summary.symbolCount += seg.summary.symbolCount;
+        }
+        return summary;
+    }
+
+    /**
+     * 序列化模型并以带校验头的格式原子落盘
+     */
+    private static void writeIndexFile(@NotNull Path out, @NotNull String kind, @Nullable String source, @NotNull Object model) throws IOException {
+        ZyIndexFileFormat.write(out, kind, source, encode(model));
+        CORRUPTED.remove(out);
+    }
+
+    /**
+     * 读取并校验索引文件；校验或解析失败时返回 null，并按需登记为待修复
+     * @param markCorrupted 是否登记为待修复（写入路径内部读取时传 false）
+     */
+    @Nullable
+    private static <T> T readIndexFile(@NotNull Path p, @NotNull Class<T> type, boolean markCorrupted) {
         if (!Files.exists(p)) return null;
-        try (BufferedReader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
-            return GSON.fromJson(r, DirIndex.class);
+        try {
+            return decode(ZyIndexFileFormat.readBody(p), type);
         } catch (Exception e) {
-            LOG.debug("Read dir index failed: " + p, e);
+            if (markCorrupted && CORRUPTED.add(p)) {
+                LOG.warn("Index file invalid, scheduled for repair: " + p + " (" + e.getMessage() + ")");
+            }
             return null;
         }
     }
 
-    public static DirIndex readNamespaceIndex(@NotNull Project project, @NotNull String namespace) {
-        Path p = getNamespaceIndexPath(project, namespace);
-        if (!Files.exists(p)) return null;
-        try (BufferedReader r = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
-            return GSON.fromJson(r, DirIndex.class);
+    /**
+     * 索引模型序列化为正文字节（UTF-8 JSON）
+     */
+    static byte[] encode(@NotNull Object model) {
+        return GSON.toJson(model).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 由正文字节反序列化索引模型
+     */
+    static <T> T decode(@NotNull byte[] body, @NotNull Class<T> type) {
+        return GSON.fromJson(new String(body, StandardCharsets.UTF_8), type);
+    }
+
+    @Nullable
+    private static String emptyToNull(@Nullable String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    private static Manifest readManifest(@NotNull Project project) {
+        Manifest m = readIndexFile(getManifestPath(project), Manifest.class, false);
+        if (m != null && m.dirNamespaces != null) {
+            m.dirNamespaces = new TreeMap<>(m.dirNamespaces);
+            return m;
+        }
+        m = new Manifest();
+        m.version = 1;
+        m.dirNamespaces = new TreeMap<>();
+        return m;
+    }
+
+    private static void writeManifest(@NotNull Project project, @NotNull Manifest manifest) throws IOException {
+        writeIndexFile(getManifestPath(project), KIND_MANIFEST, "", manifest);
+    }
+
+    private static void writeManifestQuietly(@NotNull Project project, @NotNull Manifest manifest) {
+        try {
+            writeManifest(project, manifest);
         } catch (Exception e) {
-            LOG.debug("Read namespace index failed: " + p, e);
-            return null;
+            LOG.warn("Write segment manifest failed", e);
         }
     }
 
+    public static DirIndex readDirIndex(@NotNull Project project, @NotNull String relativeDir) {
+        return readIndexFile(getDirIndexPath(project, relativeDir), DirIndex.class, true);
+    }
+
+    /**
+     * 读取命名空间索引，返回所有目录分段合并后的视图（files 为各分段文件之和）
+     */
+    public static DirIndex readNamespaceIndex(@NotNull Project project, @NotNull String namespace) {
+        NamespaceIndex agg = readNamespaceAggregate(project, namespace, true);
+        if (agg == null) return null;
+        DirIndex merged = new DirIndex();
+        merged.version = agg.version;
+        merged.namespace = agg.namespace;
+        merged.generatedAt = agg.generatedAt;
+        merged.summary = agg.summary;
+        merged.files = new ArrayList<>();
+        for (DirIndex seg : agg.segments.values()) {
+            if (seg.files != null) merged.files.addAll(seg.files);
+        }
+        return merged;
+    }
+
+    /**
+     * 读取命名空间聚合文件（保留分段结构）
+     */
+    public static NamespaceIndex readNamespaceAggregate(@NotNull Project project, @NotNull String namespace) {
+        return readNamespaceAggregate(project, namespace, true);
+    }
+
+    private static NamespaceIndex readNamespaceAggregate(@NotNull Project project, @NotNull String namespace, boolean markCorrupted) {
+        NamespaceIndex agg = readIndexFile(getNamespaceIndexPath(project, namespace), NamespaceIndex.class, markCorrupted);
+        if (agg == null) return null;
+        agg.segments = agg.segments != null ? new TreeMap<>(agg.segments) : new TreeMap<>();
+        return agg;
+    }
+
+    /**
+     * 全量重建：先在内存中收集所有目录索引，再按命名空间聚合一次性落盘
+     * 同一命名空间的多个目录合并为一个聚合文件的多个分段，不再互相覆盖
+     */
     public static void buildAllDirIndexes(@NotNull Project project) {
         VirtualFile base = project.getBaseDir();
         if (base == null) return;
         
         LOG.info("Building all directory indexes starting from: " + base.getPath());
+        List<DirIndex> collected = new ArrayList<>();
+        long started = ZyMetrics.start();
+        ZyTracer.Span buildSpan = ZyTracer.span(ZyMetrics.JSON_BUILD);
         
         try {
-            // 广度优先：为每个包含 .zy 文件的目录生成 index.json
+            // 为每个包含 .zy 文件的目录（含根目录）收集目录索引
             VfsUtilCore.visitChildrenRecursively(base, new VirtualFileVisitor<>() {
                 @Override
                 public boolean visitFile(@NotNull VirtualFile file) {
@@ -211,15 +490,13 @@ public final class ZyJsonIndexStore {
                                 }
                             }
                             if (hasZy) {
-                                LOG.info("Building index for directory: " + file.getPath());
-                                buildDirIndex(project, file);
+                                collected.add(collectDirIndex(project, file));
                             }
                         }
                         return true;
                     } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
-                        // 搜索被取消，停止遍历
-                        LOG.debug("Directory index building cancelled");
-                        return false;
+                        // 取消须抛出到外层：收集结果不完整，不能进入写入与清理阶段
+                        throw e;
                     } catch (Exception e) {
                         LOG.warn("Error processing directory: " + file.getPath(), e);
                         return true; // 继续处理其他目录
@@ -227,22 +504,194 @@ public final class ZyJsonIndexStore {
                 }
             });
         } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
-            // 搜索被取消，记录日志但不抛出异常
+            // 搜索被取消，保留磁盘上已有索引，不写入不完整的聚合结果
             LOG.debug("Directory index building cancelled");
             return;
         } catch (Exception e) {
             LOG.warn("Error building directory indexes", e);
+            return;
+        } finally {
+            if (buildSpan.isRecording()) buildSpan.attr("dirs", collected.size());
+            buildSpan.close();
         }
-        
-        // 同时生成根级 index.json（根目录下 .zy）
+
+        ZyMetrics.recordSince(ZyMetrics.JSON_BUILD, started);
+
         try {
-            LOG.info("Building index for root directory: " + base.getPath());
-            buildDirIndex(project, base);
+            writeAllSegments(project, collected);
         } catch (Exception e) {
-            LOG.warn("Error building root directory index", e);
+            LOG.warn("Error writing directory indexes", e);
         }
     }
 
+    /**
+     * 合并阶段：按命名空间聚合目录分段并整体替换磁盘上的索引与清单
+     * 清理不再存在的命名空间聚合文件与目录文件
+     */
+    static void writeAllSegments(@NotNull Project project, @NotNull List<DirIndex> collected) throws IOException {
+        writeAllSegments(getIndexRoot(project), collected);
+    }
+
+    /**
+     * 同上，直接指定索引根目录（供无 IDE 环境的命令行索引器使用）
+     */
+    public static void writeAllSegments(@NotNull Path root, @NotNull List<DirIndex> collected) throws IOException {
+        Map<String, NamespaceIndex> byNamespace = new TreeMap<>();
+        Manifest manifest = new Manifest();
+        manifest.version = 1;
+        manifest.dirNamespaces = new TreeMap<>();
+        Set<Path> written = new HashSet<>();
+        long started = ZyMetrics.start();
+
+        try (ZyTracer.Span span = ZyTracer.span(ZyMetrics.JSON_WRITE)) {
+            synchronized (WRITE_LOCK) {
+                for (DirIndex index : collected) {
+                    if (index.files.isEmpty()) continue;
+                    if (index.namespace != null && !index.namespace.isEmpty()) {
+                        NamespaceIndex agg = byNamespace.computeIfAbsent(index.namespace, ZyJsonIndexStore::newNamespaceIndex);
+                        agg.segments.put(index.dir, index);
+                        manifest.dirNamespaces.put(index.dir, index.namespace);
+                    } else {
+                        Path out = getDirIndexPath(root, index.dir);
+                        writeIndexFile(out, KIND_DIR, index.dir, index);
+                        manifest.dirNamespaces.put(index.dir, "");
+                        written.add(out);
+                    }
+                }
+                for (NamespaceIndex agg : byNamespace.values()) {
+                    agg.generatedAt = System.currentTimeMillis();
+                    agg.summary = summarizeSegments(agg.segments);
+                    Path out = getNamespaceIndexPath(root, agg.namespace);
+                    writeIndexFile(out, KIND_NAMESPACE, agg.namespace, agg);
+                    written.add(out);
+                }
+                writeIndexFile(getManifestPath(root), KIND_MANIFEST, "", manifest);
+                written.add(getManifestPath(root));
+                deleteStaleIndexFiles(root, written);
+                CORRUPTED.clear();
+            }
+            if (span.isRecording()) span.attr("dirs", collected.size()).attr("namespaces", byNamespace.size());
+        }
+        ZyMetrics.recordSince(ZyMetrics.JSON_WRITE, started);
+        LOG.info("Built directory indexes: dirs=" + collected.size() + ", namespaces=" + byNamespace.size());
+    }
+
+    /**
+     * 删除索引根目录下本轮全量重建未产出的 *.index.json 文件
+     */
+    private static void deleteStaleIndexFiles(@NotNull Path root, @NotNull Set<Path> keep) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        Set<Path> stale = new LinkedHashSet<>();
+        try (var stream = Files.list(root)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(".index.json") || "index.json".equals(p.getFileName().toString()))
+                  .filter(p -> !keep.contains(p))
+                  .forEach(stale::add);
+        }
+        for (Path p : stale) Files.deleteIfExists(p);
+    }
+
+    /**
+     * 并行快速校验索引根目录下的所有索引文件（只读头部与 CRC，不解码正文）
+     * @return 校验失败的文件列表
+     */
+    public static List<Path> validateAll(@NotNull Project project) {
+        Path root = getIndexRoot(project);
+        if (!Files.isDirectory(root)) return new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        try (var stream = Files.list(root)) {
+            for (Path p : (Iterable<Path>) stream::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".json")) {
+                    files.add(p);
+                } else if (name.endsWith(".json.tmp")) {
+                    // 写入中途崩溃遗留的临时文件，目标文件未被替换，直接清理
+                    Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("List index files failed: " + root, e);
+            return new ArrayList<>();
+        }
+        List<Path> failed = new ArrayList<>();
+        files.parallelStream()
+             .map(ZyIndexFileFormat::validate)
+             .filter(r -> !r.valid)
+             .forEachOrdered(r -> {
+                 LOG.info("Index file failed validation: " + r.path.getFileName() + " (" + r.reason + ")");
+                 failed.add(r.path);
+             });
+        return failed;
+    }
+
+    /**
+     * 启动时调用：校验全部索引文件，仅重建校验失败的文件
+     * @return 本次修复的文件数
+     */
+    public static int validateAndRepair(@NotNull Project project) {
+        if (!hasIndexes(project)) return 0; // 尚未生成过索引，交给常规构建
+        return repairIndexes(project, validateAll(project));
+    }
+
+    /**
+     * 修复运行期读取失败而登记的索引文件
+     * @return 本次修复的文件数
+     */
+    public static int repairCorrupted(@NotNull Project project) {
+        if (CORRUPTED.isEmpty()) return 0;
+        List<Path> failed = new ArrayList<>(CORRUPTED);
+        return repairIndexes(project, failed);
+    }
+
+    /**
+     * 按清单把失败文件映射回来源目录并仅重建这些目录；清单本身失效时回退为全量重建
+     */
+    private static int repairIndexes(@NotNull Project project, @NotNull Collection<Path> failed) {
+        if (failed.isEmpty()) return 0;
+        Path manifestPath = getManifestPath(project);
+        Manifest manifest = readIndexFile(manifestPath, Manifest.class, false);
+        if (failed.contains(manifestPath) || manifest == null || manifest.dirNamespaces == null) {
+            LOG.info("Index manifest invalid, rebuilding all directory indexes");
+            buildAllDirIndexes(project);
+        } else {
+            String basePath = project.getBasePath();
+            Set<String> dirs = new LinkedHashSet<>();
+            Set<Path> attributed = new HashSet<>();
+            for (Map.Entry<String, String> e : manifest.dirNamespaces.entrySet()) {
+                String rel = e.getKey();
+                String ns = emptyToNull(e.getValue());
+                Path target = ns != null ? getNamespaceIndexPath(project, ns) : getDirIndexPath(project, rel);
+                if (failed.contains(target)) {
+                    dirs.add(rel.isEmpty() ? basePath : basePath + "/" + rel);
+                    attributed.add(target);
+                }
+            }
+            // 清单中没有来源的失效文件为孤立文件，直接删除
+            for (Path p : failed) {
+                if (attributed.contains(p)) continue;
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    LOG.warn("Delete orphan index file failed: " + p, e);
+                }
+            }
+            if (basePath != null) {
+                rebuildDirIndexes(project, dirs);
+            }
+        }
+        CORRUPTED.removeAll(failed);
+        int count = failed.size();
+        int total = REPAIRED.addAndGet(count);
+        LOG.info("Repaired index files: " + count + " (total " + total + ")");
+        return count;
+    }
+
+    /**
+     * 累计修复的索引文件数
+     */
+    public static int getRepairedCount() {
+        return REPAIRED.get();
+    }
+
     private static String getRelativePath(@NotNull Project project, @NotNull VirtualFile file) {
         VirtualFile base = project.getBaseDir();
         if (base == null) return file.getPath();
@@ -257,10 +706,25 @@ public final class ZyJsonIndexStore {
     public static class DirIndex {
         public int version;
         public String dir;
+        /** 目录推断出的命名空间（无命名空间时为 null） */
+        public String namespace;
         public long generatedAt;
         public Summary summary;
         public List<FileEntry> files;
     }
+    /** 命名空间聚合索引：相对目录 -> 该目录的分段 */
+    public static class NamespaceIndex {
+        public int version;
+        public String namespace;
+        public long generatedAt;
+        public Summary summary;
+        public Map<String, DirIndex> segments;
+    }
+    /** 分段清单：相对目录 -> 命名空间 */
+    public static class Manifest {
+        public int version;
+        public Map<String, String> dirNamespaces;
+    }
     public static class Summary { public int fileCount; public int symbolCount; }
     public static class FileEntry {
         public String path; public long mtime; public long size; public List<SymbolEntry> symbols;
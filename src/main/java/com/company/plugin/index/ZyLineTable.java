@@ -0,0 +1,41 @@
+package com.company.plugin.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * 行首偏移表：一次扫描文本记录每行起始偏移，偏移 -> 行号为二分查找
+ * 建索引时为定义与成员预先算好行号，弹出候选列表时无需为每个候选加载 Document
+ */
+public final class ZyLineTable {
+
+    private final int[] lineStarts;
+    private final int count;
+
+    private ZyLineTable(int[] lineStarts, int count) {
+        this.lineStarts = lineStarts;
+        this.count = count;
+    }
+
+    @NotNull
+    public static ZyLineTable of(@NotNull CharSequence text) {
+        int[] starts = new int[64];
+        int n = 0;
+        starts[n++] = 0;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            if (text.charAt(i) != '\n') continue;
+            if (n == starts.length) starts = Arrays.copyOf(starts, n * 2);
+            starts[n++] = i + 1;
+        }
+        return new ZyLineTable(starts, n);
+    }
+
+    /**
+     * 偏移所在行号（从 1 开始）
+     */
+    public int line(int offset) {
+        int k = Arrays.binarySearch(lineStarts, 0, count, Math.max(0, offset));
+        return (k >= 0 ? k : -k - 2) + 1;
+    }
+}
@@ -0,0 +1,81 @@
+package com.company.plugin.index;
+
+import com.company.plugin.language.ZyTokenScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 标识符出现倒排索引：标识符 -> 含有该标识符的文件
+ * - 与 PSI 的词法分析器共用 {@link ZyTokenScanner} 的切分规则，只登记标识符与数字 Token，注释与字符串中的文字不计入
+ * - 建索引时键由 {@link ZyClassScanner#scan(CharSequence, java.util.Set)} 在类结构扫描中顺带收集，不再单独切分
+ * - 只记录到文件级；具体偏移由查询方对候选文件重新切分得到（候选集很小，可并行）
+ */
+public final class ZyOccurrenceIndex extends ZyFilePostings {
+
+    /** 持久化文件名（位于 .idea/index/zy 下） */
+    public static final String FILE_NAME = "zy-occurrences.idx";
+
+    private static final int[] NONE = new int[0];
+
+    public ZyOccurrenceIndex() {
+        super("occurrences", 1);
+    }
+
+    /**
+     * 逐个回调可能与单词相等的 Token（起止偏移）
+     */
+    public interface TokenConsumer {
+        void accept(int start, int end);
+    }
+
+    /**
+     * 切分文本，回调标识符与数字 Token（即以字母、数字或下划线开头的 Token）
+     */
+    public static void forEachIdentifier(@NotNull CharSequence text, @NotNull TokenConsumer consumer) {
+        ZyTokenScanner scanner = new ZyTokenScanner(text);
+        while (scanner.nextSignificant()) {
+            byte kind = scanner.kind();
+            if (kind == ZyTokenScanner.IDENTIFIER || kind == ZyTokenScanner.NUMBER) consumer.accept(scanner.start(), scanner.end());
+        }
+    }
+
+    /**
+     * 文本中 word 作为完整 Token 出现的起始偏移（升序）
+     */
+    @NotNull
+    public static int[] findOccurrences(@NotNull CharSequence text, @NotNull String word) {
+        int[][] found = {NONE};
+        int[] size = {0};
+        forEachIdentifier(text, (start, end) -> {
+            if (end - start != word.length()) return;
+            for (int k = 0; k < word.length(); k++) {
+                if (text.charAt(start + k) != word.charAt(k)) return;
+            }
+            if (size[0] == found[0].length) found[0] = Arrays.copyOf(found[0], Math.max(4, size[0] * 2));
+            found[0][size[0]++] = start;
+        });
+        return size[0] == found[0].length ? found[0] : Arrays.copyOf(found[0], size[0]);
+    }
+
+    @NotNull
+    @Override
+    public Collection<String> keys(@NotNull CharSequence text) {
+        Set<String> names = new HashSet<>();
+        forEachIdentifier(text, (start, end) -> names.add(text.subSequence(start, end).toString()));
+        return names;
+    }
+
+    /**
+     * 读取索引文件；文件缺失、损坏或版本不符时返回 null
+     */
+    @Nullable
+    public static ZyOccurrenceIndex load(@NotNull Path in) {
+        return load(in, new ZyOccurrenceIndex());
+    }
+}
@@ -1,5 +1,7 @@
 package com.company.plugin.index;
 
+import com.company.plugin.diagnostics.ZyMetrics;
+import com.company.plugin.diagnostics.ZyTracer;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
@@ -18,6 +20,9 @@ import java.util.regex.Pattern;
 /**
  * 符号索引服务（项目级）
  * - 负责建立和持久化类与函数的定义索引
+ * - 同时维护类成员索引：类 FQN -> 成员（种类、名字、偏移、修饰符），成员查找为一次哈希查询，不再加载文件
+ * - 以及类继承关系：类 FQN -> 直接父类型/子类型，继承成员沿父类型链查找，祖先链按类记忆化
+ * - 文件级倒排索引（标识符出现 {@link ZyOccurrenceIndex}、文本三元组 {@link ZyTrigramIndex}）与符号表同步增量更新，单独持久化为二进制文件
  * - 使用文件修改时间戳增量校验，仅在目录/文件变化时重建
  * - 为导航与补全提供快速查询能力
  */
@@ -33,10 +38,14 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
     public static class State {
         /** 符号名 -> 位置列表 */
         public Map<String, List<LocationState>> symbolToLocations = new HashMap<>();
+        /** 类 FQN -> 类定义（同名类可能定义在多个文件） */
+        public Map<String, List<ClassState>> classes = new HashMap<>();
         /** 文件路径 -> 最后修改时间戳 */
         public Map<String, Long> fileTimestamps = new HashMap<>();
         /** 上次完整扫描时间 */
         public long lastFullScanMs = 0L;
+        /** 状态格式版本；旧版本状态缺少类成员索引，加载时丢弃并重建 */
+        public int formatVersion = 0;
     }
 
     /**
@@ -45,6 +54,10 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
     public static class LocationState {
         public String filePath;
         public int offset;
+        /** 展示用全名（Namespace\name，类中的方法为 Namespace\Class::name），未知为 null */
+        public String fqn;
+        /** 行号（从 1 开始），未知为 0 */
+        public int line;
 
         public LocationState() {}
 
@@ -52,20 +65,108 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
             this.filePath = filePath;
             this.offset = offset;
         }
+
+        public LocationState(String filePath, int offset, String fqn, int line) {
+            this(filePath, offset);
+            this.fqn = fqn;
+            this.line = line;
+        }
+    }
+
+    /**
+     * 类或接口定义及其成员
+     */
+    public static class ClassState {
+        public String filePath;
+        /** class / interface */
+        public String kind;
+        public String name;
+        public String namespace;
+        public String fqn;
+        /** 类名偏移 */
+        public int offset;
+        /** 类名所在行（从 1 开始） */
+        public int line;
+        /** 类体花括号的位置 [bodyStart, bodyEnd]，未闭合时 bodyEnd 为 0 */
+        public int bodyStart;
+        public int bodyEnd;
+        /** 直接父类型 FQN（extends / implements / trait），按声明顺序 */
+        public List<String> supertypes = new ArrayList<>();
+        public List<MemberState> members = new ArrayList<>();
+    }
+
+    /**
+     * 类成员：方法或属性
+     */
+    public static class MemberState {
+        public static final String METHOD = "method";
+        public static final String PROPERTY = "property";
+
+        /** method / property */
+        public String kind;
+        /** 成员名（属性不含 $） */
+        public String name;
+        /** 名字偏移（属性为 $ 之后） */
+        public int offset;
+        /** 名字所在行（从 1 开始） */
+        public int line;
+        /** 修饰符：public / private / protected / static / final / abstract / readonly */
+        public List<String> modifiers = new ArrayList<>();
+        /** 属性声明类型或方法返回类型，未声明为 null */
+        public String type;
+    }
+
+    /**
+     * 成员查询结果：成员及其所属类
+     */
+    public static final class MemberLocation {
+        public final ClassState owner;
+        public final MemberState member;
+
+        MemberLocation(ClassState owner, MemberState member) {
+            this.owner = owner;
+            this.member = member;
+        }
+
+        public String getFilePath() {
+            return owner.filePath;
+        }
     }
 
     private final Project project;
     private final Object lock = new Object();
-    private State state = new State();
+    private State state = newState();
     // 内存查询缓存：符号名 -> 最近查询结果与时间
     private final Map<String, List<LocationState>> inMemoryCache = new HashMap<>();
     private long lastEnsureUpToDateMs = 0L;
+    // 由 state.classes 派生的查询表，类表变化后置为 null，下次查询时重建
+    private Map<String, List<MemberLocation>> memberLookup;
+    private Map<String, List<String>> classFqnsByShortName;
+    private Map<String, List<String>> subtypesLookup;
+    // 记忆化：类 FQN -> 祖先链（由近及远）、类 FQN -> 含继承的全部可见成员
+    private final Map<String, List<String>> ancestorsCache = new HashMap<>();
+    private final Map<String, List<MemberLocation>> hierarchyMembersCache = new HashMap<>();
+    // 补全用符号名表：符号表变化后标记过期，由 getSymbolNameTable 在后台重建
+    private ZySymbolNameTable symbolNames;
+    private boolean symbolNamesStale = true;
+    private boolean symbolNamesRebuilding;
+    // 文件级倒排索引：首次使用时从磁盘加载，null 表示尚未加载
+    private ZyOccurrenceIndex occurrences;
+    private ZyTrigramIndex trigrams;
+    // 倒排索引已与符号表时间戳对账：从磁盘加载或导入后对账一次，之后随增量更新保持一致
+    private boolean postingsReconciled;
+    // 派生查询表每重建一次加一，供调用方判断基于类索引的记忆化结果是否过期
+    private long classModificationCount;
     // ensureUpToDate 最小间隔（毫秒），避免高频重复扫描
     private static final long ENSURE_THROTTLE_MS = 1500L;
+    // 当前状态格式版本（2：增加类成员索引；3：增加父类型；4：成员类型解析为 FQN；5：位置带展示全名与行号）
+    static final int FORMAT_VERSION = 5;
 
     // 正则：捕获函数/类定义名
     private static final Pattern FUNCTION_DEF = Pattern.compile("function\\s+(\\w+)\\s*\\(");
     private static final Pattern CLASS_DEF = Pattern.compile("class\\s+(\\w+)\\s*\\{");
+    // 文件命名空间（行首 namespace 声明）
+    private static final Pattern NAMESPACE_DECL = Pattern.compile("(?m)^\\s*namespace\\s+([A-Za-z_\\\\][A-Za-z0-9_\\\\]*)");
     // 类属性模式：支持 "string $name;" 或 "$age;" 格式
     private static final Pattern PROPERTY_DEF = Pattern.compile("(?:\\w+\\s+)?\\$([a-zA-Z_][a-zA-Z0-9_]*)");
 
@@ -83,12 +184,32 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
     @Nullable
     @Override
     public State getState() {
-        return state;
+        synchronized (lock) {
+            // 与符号表一同落盘：设置保存时顺带写出有变化的倒排索引
+            savePostings(occurrences, ZyOccurrenceIndex.FILE_NAME);
+            savePostings(trigrams, ZyTrigramIndex.FILE_NAME);
+            return state;
+        }
     }
 
     @Override
     public void loadState(@NotNull State state) {
-        this.state = state;
+        if (state.classes == null) state.classes = new HashMap<>();
+        synchronized (lock) {
+            // 旧格式没有类成员索引：丢弃后由下一次 ensureUpToDate 重建
+            this.state = state.formatVersion == FORMAT_VERSION ? state : newState();
+            memberLookup = null;
+            symbolNamesStale = true;
+            occurrences = null;
+            trigrams = null;
+            postingsReconciled = false;
+        }
+    }
+
+    private static State newState() {
+        State s = new State();
+        s.formatVersion = FORMAT_VERSION;
+        return s;
     }
 
     /**
@@ -99,17 +220,13 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
             try {
                 long now = System.currentTimeMillis();
                 if (now - lastEnsureUpToDateMs < ENSURE_THROTTLE_MS) {
+                    ZyMetrics.increment(ZyMetrics.ENSURE_THROTTLED);
                     return; // 节流，减少频繁触发
                 }
-                Map<String, Long> currentTimestamps = collectCurrentFileTimestamps();
-                boolean changed = !isSameFilesAndTimestamps(currentTimestamps, state.fileTimestamps);
-                if (changed) {
-                    // 增量更新：仅对新增/修改/删除的文件更新索引
-                    updateIndexIncremental(currentTimestamps);
+                long started = ZyMetrics.start();
+                try (ZyTracer.Span span = ZyTracer.span("index.ensureUpToDate")) {
+                    refreshIndexes(span, started);
                 }
-                // 构建/刷新目录级 JSON 索引
-                LOG.info("ZySymbolIndex: building JSON indexes");
-                ZyJsonIndexStore.buildAllDirIndexes(project);
                 lastEnsureUpToDateMs = now;
             } catch (Exception e) {
                 LOG.warn("ZySymbolIndex ensureUpToDate error", e);
@@ -117,10 +234,102 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         }
     }
 
+    /**
+     * ensureUpToDate 主体：比对时间戳并选择无操作/增量/全量（调用方持有 lock）
+     */
+    private void refreshIndexes(ZyTracer.Span span, long started) {
+        Map<String, Long> currentTimestamps = collectCurrentFileTimestamps();
+        boolean changed = !isSameFilesAndTimestamps(currentTimestamps, state.fileTimestamps);
+        String kind;
+        if (changed) {
+            // 增量更新：仅对新增/修改/删除的文件更新索引
+            Set<String> touched = updateIndexIncremental(currentTimestamps);
+            if (touched == null) {
+                // 已回退为全量重建，目录级 JSON 索引同样全量重建
+                ZyJsonIndexStore.buildAllDirIndexes(project);
+                kind = ZyMetrics.ENSURE_FULL;
+            } else {
+                // 仅重建受影响目录的分段，其它目录/命名空间分段保持不变
+                ZyJsonIndexStore.rebuildDirIndexes(project, parentDirs(touched));
+                kind = ZyMetrics.ENSURE_INCREMENTAL;
+                if (span.isRecording()) span.attr("touched", touched.size());
+            }
+        } else if (!ZyJsonIndexStore.hasIndexes(project)) {
+            // 符号表未变但 JSON 索引缺失（首次启动或被清理），补建一次
+            LOG.info("ZySymbolIndex: building JSON indexes");
+            ZyJsonIndexStore.buildAllDirIndexes(project);
+            kind = ZyMetrics.ENSURE_FULL;
+        } else {
+            // 运行期读取时发现损坏的索引文件，仅重建对应目录
+            ZyJsonIndexStore.repairCorrupted(project);
+            kind = ZyMetrics.ENSURE_NOOP;
+        }
+        // 同一次刷新内与新的时间戳对账（每个索引版本一次），查询不再逐个比对文件
+        if (!postingsReconciled) reconcilePostings();
+        ZyMetrics.recordSince(kind, started);
+        if (span.isRecording()) span.attr("kind", kind).attr("files", currentTimestamps.size());
+    }
+
+    /**
+     * 清空符号表并解除节流，下一次 ensureUpToDate 将全量重建
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            state = newState();
+            inMemoryCache.clear();
+            memberLookup = null;
+            // 旧名表已与清空后的符号表无关，下一次查询同步重建
+            symbolNames = null;
+            symbolNamesStale = true;
+            occurrences = new ZyOccurrenceIndex();
+            trigrams = new ZyTrigramIndex();
+            postingsReconciled = true;
+            lastEnsureUpToDateMs = 0L;
+        }
+    }
+
+    /**
+     * 是否已有持久化的符号表（首次打开的新检出目录为 false）
+     */
+    public boolean hasState() {
+        synchronized (lock) {
+            return !state.fileTimestamps.isEmpty();
+        }
+    }
+
+    /**
+     * 用索引包导入的结果初始化符号表，仅在尚无状态时生效
+     * @param symbols 符号名 -> 位置列表（绝对路径）
+     * @param classes 类 FQN -> 类定义（filePath 为绝对路径）
+     * @param timestamps 文件路径 -> 本地修改时间戳
+     * @return 是否已写入
+     */
+    public boolean seedState(@NotNull Map<String, List<LocationState>> symbols, @NotNull Map<String, List<ClassState>> classes,
+                             @NotNull Map<String, Long> timestamps) {
+        synchronized (lock) {
+            if (!state.fileTimestamps.isEmpty()) return false;
+            state.symbolToLocations = symbols;
+            state.classes = classes;
+            state.fileTimestamps = timestamps;
+            state.lastFullScanMs = System.currentTimeMillis();
+            inMemoryCache.clear();
+            memberLookup = null;
+            symbolNamesStale = true;
+            // 索引包不含倒排索引，首次查询时按时间戳对账补建
+            occurrences = null;
+            trigrams = null;
+            postingsReconciled = false;
+            LOG.info("ZySymbolIndex: seeded from bundle. symbols=" + symbols.size() + ", files=" + timestamps.size());
+            return true;
+        }
+    }
+
     /**
      * 增量更新索引：只处理变更的文件
+     * @return 新增/修改/删除的文件路径集合；回退为全量重建时返回 null
      */
-    private void updateIndexIncremental(Map<String, Long> currentTimestamps) {
+    @Nullable
+    private Set<String> updateIndexIncremental(Map<String, Long> currentTimestamps) {
         // 计算差异集合
         Set<String> oldPaths = new HashSet<>(state.fileTimestamps.keySet());
         Set<String> newPaths = new HashSet<>(currentTimestamps.keySet());
@@ -144,7 +353,7 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         if ((removed.size() + addedOrModified.size()) > Math.max(200, total * 0.3)) {
             LOG.info("ZySymbolIndex: too many changes (removed=" + removed.size() + ", changed=" + addedOrModified.size() + "), fallback to full rebuild");
             rebuildIndex(currentTimestamps);
-            return;
+            return null;
         }
 
         if (!removed.isEmpty()) {
@@ -167,12 +376,37 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         // 更新最后扫描时间并清理内存缓存
         state.lastFullScanMs = System.currentTimeMillis();
         inMemoryCache.clear();
+        memberLookup = null;
+        symbolNamesStale = true;
+
+        Set<String> touched = new HashSet<>(removed);
+        touched.addAll(addedOrModified);
+        return touched;
+    }
+
+    /**
+     * 由文件路径集合计算其所在目录集合（去重）
+     */
+    private static Set<String> parentDirs(@NotNull Collection<String> filePaths) {
+        Set<String> dirs = new LinkedHashSet<>();
+        for (String path : filePaths) {
+            int slash = path.lastIndexOf('/');
+            if (slash > 0) dirs.add(path.substring(0, slash));
+        }
+        return dirs;
     }
 
     /**
      * 从索引中移除某个文件的所有符号条目
      */
     private void removeFileFromIndex(@NotNull String filePath) {
+        for (ZyFilePostings postings : postingIndexes()) postings.remove(filePath);
+        if (!state.classes.isEmpty()) {
+            for (List<ClassState> list : state.classes.values()) {
+                list.removeIf(cs -> filePath.equals(cs.filePath));
+            }
+            state.classes.values().removeIf(List::isEmpty);
+        }
         if (state.symbolToLocations.isEmpty()) return;
         for (Map.Entry<String, List<LocationState>> e : state.symbolToLocations.entrySet()) {
             List<LocationState> list = e.getValue();
@@ -191,14 +425,15 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
             VirtualFile vf = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(filePath);
             if (vf == null || vf.isDirectory() || !vf.getName().endsWith(".zy")) return;
 
-            String text = new String(vf.contentsToByteArray(), vf.getCharset());
+            String text = readText(vf);
 
             // 先移除旧条目
             removeFileFromIndex(filePath);
 
             // 收集该文件的新条目并合并到现有索引
             Map<String, List<LocationState>> tmp = new HashMap<>();
-            indexFile(vf, text, tmp);
+            postingIndexes();
+            indexFile(vf, text, tmp, state.classes, occurrences, trigrams);
             for (Map.Entry<String, List<LocationState>> en : tmp.entrySet()) {
                 for (LocationState ls : en.getValue()) {
                     add(state.symbolToLocations, en.getKey(), ls);
@@ -216,8 +451,16 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
      */
     public List<LocationState> findDefinitions(@NotNull String name, @Nullable String preferredPathSegment) {
         ensureUpToDate();
+        return lookupDefinitions(name, preferredPathSegment);
+    }
+
+    /**
+     * 仅查询已加载的符号表，不触发索引刷新（基准测试直接调用）
+     */
+    List<LocationState> lookupDefinitions(@NotNull String name, @Nullable String preferredPathSegment) {
         // 先查内存缓存
         List<LocationState> cached = inMemoryCache.get(name);
+        ZyMetrics.cacheAccess(ZyMetrics.DEFINITION_CACHE, cached != null);
         List<LocationState> list = cached != null ? cached : state.symbolToLocations.getOrDefault(name, Collections.emptyList());
         if (list.isEmpty() || preferredPathSegment == null || preferredPathSegment.isEmpty()) {
             inMemoryCache.put(name, list);
@@ -236,12 +479,256 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         return list;
     }
 
+    /**
+     * 按短名查询类 FQN（如 Users -> Model\Users、Logic\Users）
+     */
+    @NotNull
+    public List<String> findClassFqns(@NotNull String shortName) {
+        ensureUpToDate();
+        return peekClassFqns(shortName);
+    }
+
+    /**
+     * 同 {@link #findClassFqns}，按当前索引状态查询，不触发刷新
+     * 补全等按键级路径使用；索引由 VFS 监听与启动任务保持最新，这里不再逐次比对文件时间戳
+     */
+    @NotNull
+    public List<String> peekClassFqns(@NotNull String shortName) {
+        synchronized (lock) {
+            ensureClassLookup();
+            return classFqnsByShortName.getOrDefault(shortName, Collections.emptyList());
+        }
+    }
+
+    /**
+     * 查询类 FQN 下名为 memberName 的成员（方法与属性都会返回，调用方按 kind 过滤）
+     */
+    @NotNull
+    public List<MemberLocation> findMembers(@NotNull String classFqn, @NotNull String memberName) {
+        ensureUpToDate();
+        synchronized (lock) {
+            ensureClassLookup();
+            return memberLookup.getOrDefault(memberKey(classFqn, memberName), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 直接父类型（已解析为索引中存在的类 FQN）
+     */
+    @NotNull
+    public List<String> getSupertypes(@NotNull String classFqn) {
+        ensureUpToDate();
+        synchronized (lock) {
+            ensureClassLookup();
+            return directSupertypes(classFqn);
+        }
+    }
+
+    /**
+     * 直接子类型
+     */
+    @NotNull
+    public List<String> getSubtypes(@NotNull String classFqn) {
+        ensureUpToDate();
+        synchronized (lock) {
+            ensureClassLookup();
+            return subtypesLookup.getOrDefault(classFqn, Collections.emptyList());
+        }
+    }
+
+    /**
+     * 全部祖先类型，由近及远（广度优先，容忍循环继承）
+     */
+    @NotNull
+    public List<String> getAncestors(@NotNull String classFqn) {
+        ensureUpToDate();
+        synchronized (lock) {
+            ensureClassLookup();
+            return ancestors(classFqn);
+        }
+    }
+
+    /**
+     * 类索引的修改计数：类表有变化后首次查询时递增
+     * 调用方用它判断依赖类成员索引的缓存（如类型推断结果）是否需要丢弃
+     */
+    public long getClassModificationCount() {
+        ensureUpToDate();
+        return getClassGeneration();
+    }
+
+    /**
+     * 当前类索引的修改计数，不触发刷新（用法同 {@link #getSymbolNameTable}）
+     * 补全路径据此丢弃过期缓存，不必每次按键都遍历项目文件
+     */
+    public long getClassGeneration() {
+        synchronized (lock) {
+            ensureClassLookup();
+            return classModificationCount;
+        }
+    }
+
+    /**
+     * 沿继承链查找成员：先查类本身，再按祖先由近及远，返回最近一层的声明
+     * @param kind 成员种类（{@link MemberState#METHOD} / {@link MemberState#PROPERTY}），null 表示不限
+     */
+    @NotNull
+    public List<MemberLocation> findMembersInHierarchy(@NotNull String classFqn, @NotNull String memberName, @Nullable String kind) {
+        ensureUpToDate();
+        return peekMembersInHierarchy(classFqn, memberName, kind);
+    }
+
+    /**
+     * 同 {@link #findMembersInHierarchy}，按当前索引状态查询，不触发刷新
+     */
+    @NotNull
+    public List<MemberLocation> peekMembersInHierarchy(@NotNull String classFqn, @NotNull String memberName, @Nullable String kind) {
+        synchronized (lock) {
+            ensureClassLookup();
+            for (String fqn : resolveClassName(classFqn)) {
+                List<MemberLocation> found = membersOf(fqn, memberName, kind);
+                if (!found.isEmpty()) return found;
+                for (String ancestor : ancestors(fqn)) {
+                    found = membersOf(ancestor, memberName, kind);
+                    if (!found.isEmpty()) return found;
+                }
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 类的全部可见成员（含继承），子类声明覆盖父类同名同种成员；结果按类记忆化
+     * 供成员补全使用：按当前索引状态查询，不触发刷新
+     */
+    @NotNull
+    public List<MemberLocation> collectHierarchyMembers(@NotNull String classFqn) {
+        synchronized (lock) {
+            ensureClassLookup();
+            List<MemberLocation> cached = hierarchyMembersCache.get(classFqn);
+            if (cached != null) return cached;
+            Map<String, MemberLocation> visible = new LinkedHashMap<>();
+            for (String fqn : resolveClassName(classFqn)) {
+                List<String> chain = new ArrayList<>();
+                chain.add(fqn);
+                chain.addAll(ancestors(fqn));
+                for (String type : chain) {
+                    for (ClassState cs : state.classes.getOrDefault(type, Collections.emptyList())) {
+                        if (cs.members == null) continue;
+                        for (MemberState m : cs.members) {
+                            visible.putIfAbsent(m.kind + ":" + m.name, new MemberLocation(cs, m));
+                        }
+                    }
+                }
+            }
+            List<MemberLocation> result = Collections.unmodifiableList(new ArrayList<>(visible.values()));
+            hierarchyMembersCache.put(classFqn, result);
+            return result;
+        }
+    }
+
+    private List<MemberLocation> membersOf(String classFqn, String memberName, @Nullable String kind) {
+        List<MemberLocation> all = memberLookup.getOrDefault(memberKey(classFqn, memberName), Collections.emptyList());
+        if (kind == null || all.isEmpty()) return all;
+        List<MemberLocation> filtered = new ArrayList<>(all.size());
+        for (MemberLocation ml : all) {
+            if (kind.equals(ml.member.kind)) filtered.add(ml);
+        }
+        return filtered;
+    }
+
+    /**
+     * 类名解析为索引中的 FQN：FQN 已存在直接返回；否则按最后一段短名匹配
+     * 父类型在扫描时按命名空间推断，所在文件未声明命名空间时靠短名兜底
+     */
+    private List<String> resolveClassName(String name) {
+        if (state.classes.containsKey(name)) return Collections.singletonList(name);
+        String shortName = name.substring(name.lastIndexOf('\\') + 1);
+        return classFqnsByShortName.getOrDefault(shortName, Collections.emptyList());
+    }
+
+    private List<String> directSupertypes(String classFqn) {
+        List<ClassState> defs = state.classes.get(classFqn);
+        if (defs == null) return Collections.emptyList();
+        List<String> result = new ArrayList<>();
+        for (ClassState cs : defs) {
+            if (cs.supertypes == null) continue;
+            for (String st : cs.supertypes) {
+                for (String fqn : resolveClassName(st)) {
+                    if (!fqn.equals(classFqn) && !result.contains(fqn)) result.add(fqn);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<String> ancestors(String classFqn) {
+        List<String> cached = ancestorsCache.get(classFqn);
+        if (cached != null) return cached;
+        List<String> order = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        seen.add(classFqn);
+        Deque<String> queue = new ArrayDeque<>(directSupertypes(classFqn));
+        while (!queue.isEmpty()) {
+            String fqn = queue.poll();
+            if (!seen.add(fqn)) continue;
+            order.add(fqn);
+            queue.addAll(directSupertypes(fqn));
+        }
+        List<String> result = Collections.unmodifiableList(order);
+        ancestorsCache.put(classFqn, result);
+        return result;
+    }
+
+    /**
+     * 由类表重建派生查询表（调用方持有 lock）
+     */
+    private void ensureClassLookup() {
+        if (memberLookup != null) return;
+        Map<String, List<MemberLocation>> members = new HashMap<>();
+        Map<String, List<String>> byShortName = new HashMap<>();
+        for (Map.Entry<String, List<ClassState>> e : state.classes.entrySet()) {
+            String fqn = e.getKey();
+            boolean named = false;
+            for (ClassState cs : e.getValue()) {
+                if (!named && cs.name != null) {
+                    byShortName.computeIfAbsent(cs.name, k -> new ArrayList<>()).add(fqn);
+                    named = true;
+                }
+                if (cs.members == null) continue;
+                for (MemberState m : cs.members) {
+                    members.computeIfAbsent(memberKey(fqn, m.name), k -> new ArrayList<>()).add(new MemberLocation(cs, m));
+                }
+            }
+        }
+        classFqnsByShortName = byShortName;
+        memberLookup = members;
+        classModificationCount++;
+        ancestorsCache.clear();
+        hierarchyMembersCache.clear();
+        // 子类型表依赖短名解析，放在短名表就绪之后
+        Map<String, List<String>> subtypes = new HashMap<>();
+        for (String fqn : state.classes.keySet()) {
+            for (String st : directSupertypes(fqn)) {
+                subtypes.computeIfAbsent(st, k -> new ArrayList<>()).add(fqn);
+            }
+        }
+        subtypesLookup = subtypes;
+    }
+
+    private static String memberKey(String classFqn, String memberName) {
+        return classFqn + "::" + memberName;
+    }
+
     /**
      * 重建索引：扫描所有 .zy 文件，提取类与函数定义
      */
     private void rebuildIndex(Map<String, Long> newTimestamps) {
         LOG.info("ZySymbolIndex: rebuilding index");
         Map<String, List<LocationState>> symbolMap = new HashMap<>();
+        Map<String, List<ClassState>> classMap = new HashMap<>();
+        ZyOccurrenceIndex occurrenceMap = new ZyOccurrenceIndex();
+        ZyTrigramIndex trigramMap = new ZyTrigramIndex();
 
         VirtualFile base = project.getBaseDir();
         if (base == null) {
@@ -261,8 +748,8 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
                         if (file.isDirectory()) return true;
                         if (!file.getName().endsWith(".zy")) return true;
                         
-                        String text = new String(file.contentsToByteArray(), file.getCharset());
-                        indexFile(file, text, symbolMap);
+                        String text = readText(file);
+                        indexFile(file, text, symbolMap, classMap, occurrenceMap, trigramMap);
                         return true;
                     } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
                         // 搜索被取消，停止遍历
@@ -281,10 +768,16 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         }
 
         state.symbolToLocations = symbolMap;
+        state.classes = classMap;
         state.fileTimestamps = newTimestamps;
         state.lastFullScanMs = System.currentTimeMillis();
+        occurrences = occurrenceMap;
+        trigrams = trigramMap;
+        postingsReconciled = true;
         // 重建后清理内存缓存，防止陈旧数据
         inMemoryCache.clear();
+        memberLookup = null;
+        symbolNamesStale = true;
         LOG.info("ZySymbolIndex: rebuild done. symbols=" + state.symbolToLocations.size());
         try {
             com.intellij.openapi.application.ApplicationManager.getApplication().saveSettings();
@@ -292,21 +785,220 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
     }
 
     /**
-     * 解析一个文件，提取符号并写入 symbolMap
+     * 解析一个文件，提取符号并写入 symbolMap，类及其成员写入 classMap，并登记到各倒排索引
+     * 标识符出现索引的键由类结构扫描顺带收集，与类结构共用一遍切分
+     */
+    private void indexFile(@NotNull VirtualFile file, @NotNull String text, @NotNull Map<String, List<LocationState>> symbolMap,
+                           @NotNull Map<String, List<ClassState>> classMap, @NotNull ZyOccurrenceIndex occurrenceMap,
+                           @NotNull ZyTrigramIndex trigramMap) {
+        Set<String> identifiers = new HashSet<>();
+        List<ClassState> classes = ZyClassScanner.scan(text, identifiers);
+        occurrenceMap.update(file.getPath(), file.getTimeStamp(), identifiers);
+        trigramMap.update(file.getPath(), file.getTimeStamp(), text);
+        for (Map.Entry<String, List<LocationState>> e : extractDefinitions(file.getPath(), text, classes).entrySet()) {
+            symbolMap.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).addAll(e.getValue());
+        }
+        for (ClassState cs : classes) {
+            cs.filePath = file.getPath();
+            classMap.computeIfAbsent(cs.fqn, k -> new ArrayList<>()).add(cs);
+        }
+    }
+
+    /**
+     * 提取函数/类定义：名字 -> 位置（带展示全名与行号）
+     * 全名按类结构判断：位于类体内的函数记为 Class::name，其余拼接文件命名空间
+     * @param classes 同一文本的 {@link ZyClassScanner#scan} 结果
      */
-    private void indexFile(@NotNull VirtualFile file, @NotNull String text, @NotNull Map<String, List<LocationState>> symbolMap) {
+    @NotNull
+    public static Map<String, List<LocationState>> extractDefinitions(@Nullable String filePath, @NotNull String text,
+                                                                      @NotNull List<ClassState> classes) {
+        Map<String, List<LocationState>> result = new HashMap<>();
+        ZyLineTable lines = ZyLineTable.of(text);
+        Matcher nm = NAMESPACE_DECL.matcher(text);
+        String ns = nm.find() ? nm.group(1) : null;
+        String prefix = ns != null ? ns + "\\" : "";
         Matcher fm = FUNCTION_DEF.matcher(text);
         while (fm.find()) {
             String name = fm.group(1);
             int offset = fm.start(1);
-            add(symbolMap, name, new LocationState(file.getPath(), offset));
+            String fqn = prefix + name;
+            for (ClassState cs : classes) {
+                if (offset > cs.bodyStart && (cs.bodyEnd <= 0 || offset < cs.bodyEnd)) {
+                    fqn = cs.fqn + "::" + name;
+                    break;
+                }
+            }
+            add(result, name, new LocationState(filePath, offset, fqn, lines.line(offset)));
         }
         Matcher cm = CLASS_DEF.matcher(text);
         while (cm.find()) {
             String name = cm.group(1);
             int offset = cm.start(1);
-            add(symbolMap, name, new LocationState(file.getPath(), offset));
+            add(result, name, new LocationState(filePath, offset, prefix + name, lines.line(offset)));
         }
+        return result;
+    }
+
+    /**
+     * 项目符号名表（类、函数、命名空间），供补全做前缀查询；按当前索引状态，不触发刷新
+     * 符号表变化后先返回旧表并在后台重建，补全弹出时不必同步排序全部符号；仅首次调用同步构建
+     */
+    @NotNull
+    public ZySymbolNameTable getSymbolNameTable() {
+        synchronized (lock) {
+            if (symbolNames != null) {
+                if (symbolNamesStale && !symbolNamesRebuilding) {
+                    symbolNamesRebuilding = true;
+                    com.intellij.util.concurrency.AppExecutorUtil.getAppExecutorService().execute(this::rebuildSymbolNames);
+                }
+                return symbolNames;
+            }
+        }
+        return rebuildSymbolNames();
+    }
+
+    private ZySymbolNameTable rebuildSymbolNames() {
+        Map<String, List<LocationState>> symbols = new HashMap<>();
+        Map<String, String> classNames = new HashMap<>();
+        synchronized (lock) {
+            symbolNamesStale = false;
+            // 位置列表会被增量更新原地修改，排序在锁外进行，这里先复制
+            for (Map.Entry<String, List<LocationState>> e : state.symbolToLocations.entrySet()) {
+                symbols.put(e.getKey(), new ArrayList<>(e.getValue()));
+            }
+            // 类结构扫描覆盖带 extends / implements 的类头与接口、trait，正则符号表可能缺少这些类
+            for (List<ClassState> list : state.classes.values()) {
+                for (ClassState cs : list) {
+                    if (cs.fqn != null && cs.name != null) classNames.put(cs.fqn, cs.name);
+                }
+            }
+        }
+        ZySymbolNameTable table = ZySymbolNameTable.EMPTY;
+        try {
+            table = ZySymbolNameTable.build(symbols, classNames);
+        } catch (Exception e) {
+            LOG.warn("ZySymbolIndex: build symbol name table failed", e);
+        } finally {
+            synchronized (lock) {
+                // 重建期间符号表又有变化时 symbolNamesStale 已重新置位，留给下一次调用
+                symbolNames = table;
+                symbolNamesRebuilding = false;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 含有标识符 identifier 的 .zy 文件路径（按磁盘内容，未保存的编辑由调用方自行合并）
+     * 倒排索引首次使用时从磁盘加载，并按符号表的时间戳对账一次，仅重新切分不一致的文件
+     */
+    @NotNull
+    public List<String> findFilesContaining(@NotNull String identifier) {
+        ensureUpToDate();
+        synchronized (lock) {
+            long started = ZyMetrics.start();
+            // 通常已由刷新完成对账；刷新被节流跳过时在这里补做一次
+            if (!postingsReconciled) reconcilePostings();
+            List<String> files = occurrences.files(identifier);
+            ZyMetrics.recordSince(ZyMetrics.OCCURRENCE_LOOKUP, started);
+            return files;
+        }
+    }
+
+    /**
+     * 可能包含文本 query（不区分大小写）的 .zy 文件路径，由三元组索引收窄，调用方需核对原文
+     * query 不足三个字符（无法收窄）时返回全部已索引文件
+     */
+    @NotNull
+    public List<String> findFilesContainingText(@NotNull String query) {
+        ensureUpToDate();
+        synchronized (lock) {
+            long started = ZyMetrics.start();
+            // 通常已由刷新完成对账；刷新被节流跳过时在这里补做一次
+            if (!postingsReconciled) reconcilePostings();
+            List<String> files = trigrams.candidates(query);
+            if (files == null) files = new ArrayList<>(state.fileTimestamps.keySet());
+            ZyMetrics.recordSince(ZyMetrics.TRIGRAM_LOOKUP, started);
+            return files;
+        }
+    }
+
+    /**
+     * 全部倒排索引（调用方持有 lock）：未加载时读取磁盘文件，缺失或损坏则从空表开始
+     */
+    private List<ZyFilePostings> postingIndexes() {
+        if (occurrences == null) {
+            occurrences = ZyOccurrenceIndex.load(postingsPath(ZyOccurrenceIndex.FILE_NAME));
+            if (occurrences == null) occurrences = new ZyOccurrenceIndex();
+            postingsReconciled = false;
+        }
+        if (trigrams == null) {
+            trigrams = ZyTrigramIndex.load(postingsPath(ZyTrigramIndex.FILE_NAME));
+            if (trigrams == null) trigrams = new ZyTrigramIndex();
+            postingsReconciled = false;
+        }
+        return Arrays.asList(occurrences, trigrams);
+    }
+
+    private java.nio.file.Path postingsPath(String fileName) {
+        return ZyJsonIndexStore.getIndexRoot(project).resolve(fileName);
+    }
+
+    private void savePostings(@Nullable ZyFilePostings postings, String fileName) {
+        if (postings == null || !postings.isDirty()) return;
+        try {
+            postings.save(postingsPath(fileName));
+        } catch (Exception e) {
+            LOG.warn("ZySymbolIndex: save " + fileName + " failed", e);
+        }
+    }
+
+    /**
+     * 使各倒排索引与符号表记录的文件集合一致（调用方持有 lock），每次加载或导入后执行一次
+     * 加载的持久化文件可能落后于符号表（上次未保存、由索引包导入），过期文件并行读取一次、
+     * 为每个过期的索引提取键后再逐个登记；文件按 VirtualFile 的字符集解码，与建索引时一致
+     */
+    private void reconcilePostings() {
+        List<ZyFilePostings> indexes = postingIndexes();
+        Map<String, List<ZyFilePostings>> stale = new HashMap<>();
+        for (ZyFilePostings index : indexes) {
+            for (String path : index.filePaths()) {
+                if (!state.fileTimestamps.containsKey(path)) index.remove(path);
+            }
+            for (Map.Entry<String, Long> e : state.fileTimestamps.entrySet()) {
+                if (!e.getValue().equals(index.timestamp(e.getKey()))) {
+                    stale.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(index);
+                }
+            }
+        }
+        postingsReconciled = true;
+        if (stale.isEmpty()) return;
+        LOG.info("ZySymbolIndex: lexing files for posting indexes=" + stale.size());
+        Map<String, List<Collection<String>>> extracted = new java.util.concurrent.ConcurrentHashMap<>();
+        stale.entrySet().parallelStream().forEach(e -> {
+            try {
+                VirtualFile vf = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(e.getKey());
+                if (vf == null || vf.isDirectory()) return;
+                String text = readText(vf);
+                List<Collection<String>> keys = new ArrayList<>();
+                for (ZyFilePostings index : e.getValue()) keys.add(index.keys(text));
+                extracted.put(e.getKey(), keys);
+            } catch (Exception ex) {
+                LOG.debug("ZySymbolIndex: read file error " + e.getKey(), ex);
+            }
+        });
+        for (Map.Entry<String, List<Collection<String>>> e : extracted.entrySet()) {
+            List<ZyFilePostings> targets = stale.get(e.getKey());
+            long timestamp = state.fileTimestamps.get(e.getKey());
+            for (int i = 0; i < targets.size(); i++) targets.get(i).update(e.getKey(), timestamp, e.getValue().get(i));
+        }
+    }
+
+    /**
+     * 读取 .zy 文件文本：建索引、增量更新与倒排索引对账统一按 VirtualFile 的字符集解码
+     */
+    private static String readText(@NotNull VirtualFile file) throws java.io.IOException {
+        return new String(file.contentsToByteArray(), file.getCharset());
     }
 
     private static void add(Map<String, List<LocationState>> map, String key, LocationState value) {
@@ -386,7 +1078,17 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
     public static List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithNamespace(String text) {
         List<ZyJsonIndexStore.SymbolEntry> list = new ArrayList<>();
         if (text == null || text.isEmpty()) return list;
-        
+        long started = ZyMetrics.start();
+        try (ZyTracer.Span span = ZyTracer.span(ZyMetrics.PARSE_FILE)) {
+            List<ZyJsonIndexStore.SymbolEntry> result = extractSymbolsWithNamespace(text, list);
+            if (span.isRecording()) span.attr("chars", text.length()).attr("symbols", result.size());
+            return result;
+        } finally {
+            ZyMetrics.recordSince(ZyMetrics.PARSE_FILE, started);
+        }
+    }
+
+    private static List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithNamespace(String text, List<ZyJsonIndexStore.SymbolEntry> list) {
         try {
             // 使用新的基于作用域的解析器
             List<ZyScopeBasedParser.Symbol> symbols = ZyScopeBasedParser.extractSymbols(text);
@@ -411,13 +1113,14 @@ public class ZySymbolIndexService implements PersistentStateComponent<ZySymbolIn
         }
         
         // 回退到旧的正则表达式方式
+        ZyMetrics.increment(ZyMetrics.PARSE_REGEX_FALLBACK);
         return extractSymbolsWithRegex(text);
     }
     
     /**
      * 旧的正则表达式解析方式（作为回退）
      */
-    private static List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithRegex(String text) {
+    static List<ZyJsonIndexStore.SymbolEntry> extractSymbolsWithRegex(String text) {
         List<ZyJsonIndexStore.SymbolEntry> list = new ArrayList<>();
         if (text == null) return list;
         
@@ -0,0 +1,179 @@
+package com.company.plugin.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 项目符号名表：类、函数与命名空间按名字（不区分大小写）排序，前缀查询为两次二分查找
+ * - 由符号表与类结构表一次性构建，之后只读，可在锁外并发读取
+ * - 类条目以类结构扫描结果为准（含 extends / implements 的类头与接口、trait），符号表正则未识别的类同样收录
+ * - 同名同全名的多处定义只保留一条；类体内的函数（方法）不收录，由成员补全负责
+ * - 条目按所在命名空间分区：命名空间名只存一份，条目记录分区编号，取命名空间不再切分全名
+ */
+public final class ZySymbolNameTable {
+
+    /** 符号种类 */
+    public enum Kind { CLASS, FUNCTION, NAMESPACE }
+
+    public static final ZySymbolNameTable EMPTY = new ZySymbolNameTable(new String[0], new String[0], new String[0], new Kind[0],
+            new int[0], new String[]{""});
+
+    private final String[] names;
+    private final String[] lowerNames;
+    private final String[] fqns;
+    private final Kind[] kinds;
+    // 条目所在命名空间的分区编号；0 为全局（命名空间条目自身也记为 0）
+    private final int[] namespaceIds;
+    private final String[] namespaceNames;
+
+    private ZySymbolNameTable(String[] names, String[] lowerNames, String[] fqns, Kind[] kinds,
+                              int[] namespaceIds, String[] namespaceNames) {
+        this.names = names;
+        this.lowerNames = lowerNames;
+        this.fqns = fqns;
+        this.kinds = kinds;
+        this.namespaceIds = namespaceIds;
+        this.namespaceNames = namespaceNames;
+    }
+
+    /**
+     * 由符号表构建
+     * @param symbols 符号名 -> 位置（{@link ZySymbolIndexService.LocationState#fqn} 为展示全名）
+     * @param classNames 已索引的类（含接口、trait）FQN -> 短名，用于区分类与函数并补齐类条目
+     */
+    @NotNull
+    public static ZySymbolNameTable build(@NotNull Map<String, List<ZySymbolIndexService.LocationState>> symbols,
+                                          @NotNull Map<String, String> classNames) {
+        List<Entry> entries = new ArrayList<>();
+        Set<String> namespaces = new HashSet<>();
+        Set<String> classFqns = classNames.keySet();
+        for (Map.Entry<String, List<ZySymbolIndexService.LocationState>> e : symbols.entrySet()) {
+            String name = e.getKey();
+            String lower = name.toLowerCase();
+            for (ZySymbolIndexService.LocationState loc : e.getValue()) {
+                String fqn = loc.fqn != null ? loc.fqn : name;
+                if (fqn.contains("::")) continue;
+                entries.add(new Entry(name, lower, fqn, classFqns.contains(fqn) ? Kind.CLASS : Kind.FUNCTION));
+                int slash = fqn.lastIndexOf('\\');
+                if (slash > 0) namespaces.add(fqn.substring(0, slash));
+            }
+        }
+        for (Map.Entry<String, String> e : classNames.entrySet()) {
+            String fqn = e.getKey();
+            entries.add(new Entry(e.getValue(), e.getValue().toLowerCase(), fqn, Kind.CLASS));
+            int slash = fqn.lastIndexOf('\\');
+            if (slash > 0) namespaces.add(fqn.substring(0, slash));
+        }
+        for (String ns : namespaces) entries.add(new Entry(ns, ns.toLowerCase(), ns, Kind.NAMESPACE));
+        // 按名字排序，同名再按全名、种类排序，相邻重复（多处定义）只保留一条
+        entries.sort(Comparator.comparing((Entry en) -> en.lower).thenComparing(en -> en.fqn).thenComparing(en -> en.kind));
+        int n = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry en = entries.get(i);
+            if (n > 0) {
+                Entry last = entries.get(n - 1);
+                if (last.kind == en.kind && last.fqn.equals(en.fqn) && last.name.equals(en.name)) continue;
+            }
+            entries.set(n++, en);
+        }
+        String[] names = new String[n];
+        String[] lowerNames = new String[n];
+        String[] fqns = new String[n];
+        Kind[] kinds = new Kind[n];
+        int[] namespaceIds = new int[n];
+        Map<String, Integer> partitions = new HashMap<>();
+        List<String> namespaceNames = new ArrayList<>();
+        partitions.put("", 0);
+        namespaceNames.add("");
+        for (int k = 0; k < n; k++) {
+            Entry en = entries.get(k);
+            names[k] = en.name;
+            lowerNames[k] = en.lower;
+            fqns[k] = en.fqn;
+            kinds[k] = en.kind;
+            int slash = en.kind == Kind.NAMESPACE ? -1 : en.fqn.lastIndexOf('\\');
+            if (slash > 0) {
+                String ns = en.fqn.substring(0, slash);
+                Integer id = partitions.get(ns);
+                if (id == null) {
+                    id = namespaceNames.size();
+                    partitions.put(ns, id);
+                    namespaceNames.add(ns);
+                }
+                namespaceIds[k] = id;
+            }
+        }
+        return new ZySymbolNameTable(names, lowerNames, fqns, kinds, namespaceIds, namespaceNames.toArray(new String[0]));
+    }
+
+    private static final class Entry {
+        final String name;
+        final String lower;
+        final String fqn;
+        final Kind kind;
+
+        Entry(String name, String lower, String fqn, Kind kind) {
+            this.name = name;
+            this.lower = lower;
+            this.fqn = fqn;
+            this.kind = kind;
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 名字以 prefix 开头（不区分大小写）的条目下标区间 [from, to)，返回 {from, to}
+     */
+    @NotNull
+    public int[] prefixRange(@NotNull String prefix) {
+        String lower = prefix.toLowerCase();
+        int from = lowerBound(lower);
+        // 前缀区间的上界：把最后一个字符加一后的下界
+        int to = lower.isEmpty() ? names.length
+                : lowerBound(lower.substring(0, lower.length() - 1) + (char) (lower.charAt(lower.length() - 1) + 1));
+        return new int[]{from, Math.max(from, to)};
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = lowerNames.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lowerNames[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @NotNull
+    public String name(int i) {
+        return names[i];
+    }
+
+    /** 展示全名：类与函数为 namespace\name，命名空间为自身 */
+    @NotNull
+    public String fqn(int i) {
+        return fqns[i];
+    }
+
+    @NotNull
+    public Kind kind(int i) {
+        return kinds[i];
+    }
+
+    /** 所在命名空间，全局为空串 */
+    @NotNull
+    public String namespace(int i) {
+        return namespaceNames[namespaceIds[i]];
+    }
+}
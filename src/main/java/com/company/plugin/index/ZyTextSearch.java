@@ -0,0 +1,136 @@
+package com.company.plugin.index;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ZY 源码文本搜索
+ * - 候选文件由三元组索引按字面量收窄（{@link ZySymbolIndexService#findFilesContainingText}），再并入未保存的文档
+ * - 候选文件并行读取（按文件自身编码解码，与建索引一致）并核对原文，可选地用正则精确匹配（如只找定义处）
+ * 用于跳转的文本兜底与“在 ZY 源码中搜索”动作
+ */
+public final class ZyTextSearch {
+
+    private static final Logger LOG = Logger.getInstance(ZyTextSearch.class);
+
+    private ZyTextSearch() {
+    }
+
+    /**
+     * 一处匹配：文件、偏移、长度、行号（从 1 开始）与所在行文本
+     */
+    public static final class Match {
+        public final String filePath;
+        public final int offset;
+        public final int length;
+        public final int line;
+        public final String lineText;
+
+        Match(String filePath, int offset, int length, int line, String lineText) {
+            this.filePath = filePath;
+            this.offset = offset;
+            this.length = length;
+            this.line = line;
+            this.lineText = lineText;
+        }
+    }
+
+    /**
+     * 查找字面量 literal（区分大小写）的出现
+     * @param limit 最多返回条数
+     */
+    @NotNull
+    public static List<Match> find(@NotNull Project project, @NotNull String literal, int limit) {
+        return find(project, literal, Pattern.compile(Pattern.quote(literal)), limit);
+    }
+
+    /**
+     * 在含有 literal 的候选文件中查找 pattern 的匹配；pattern 的每个匹配都应包含 literal，否则会被收窄漏掉
+     * 结果按文件路径、偏移排序
+     * @param limit 最多返回条数
+     */
+    @NotNull
+    public static List<Match> find(@NotNull Project project, @NotNull String literal, @NotNull Pattern pattern, int limit) {
+        if (literal.isEmpty() || limit <= 0) return new ArrayList<>();
+        Map<String, CharSequence> unsaved = unsavedDocuments();
+        Set<String> candidates = new LinkedHashSet<>(ZySymbolIndexService.getInstance(project).findFilesContainingText(literal));
+        candidates.addAll(unsaved.keySet());
+        ConcurrentLinkedQueue<Match> found = new ConcurrentLinkedQueue<>();
+        // 并行的工作线程不继承调用方的进度指示器，逐个文件显式检查取消
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        LocalFileSystem lfs = LocalFileSystem.getInstance();
+        candidates.parallelStream().forEach(path -> {
+            if (indicator != null) indicator.checkCanceled();
+            CharSequence text = unsaved.get(path);
+            if (text == null) text = read(lfs, path);
+            if (text != null) collect(path, text, pattern, limit, found);
+        });
+        ProgressManager.checkCanceled();
+        List<Match> result = new ArrayList<>(found);
+        result.sort(Comparator.<Match, String>comparing(m -> m.filePath).thenComparingInt(m -> m.offset));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private static void collect(String path, CharSequence text, Pattern pattern, int limit, ConcurrentLinkedQueue<Match> out) {
+        Matcher m = pattern.matcher(text);
+        ZyLineTable lines = null;
+        // 每个文件至多 limit 条，合并后统一排序截断
+        for (int n = 0; n < limit && m.find(); n++) {
+            if (m.end() == m.start()) continue;
+            if (lines == null) lines = ZyLineTable.of(text);
+            out.add(new Match(path, m.start(), m.end() - m.start(), lines.line(m.start()), lineText(text, m.start())));
+        }
+    }
+
+    private static String lineText(CharSequence text, int offset) {
+        int start = offset;
+        while (start > 0 && text.charAt(start - 1) != '\n') start--;
+        int end = offset;
+        while (end < text.length() && text.charAt(end) != '\n' && text.charAt(end) != '\r') end++;
+        return text.subSequence(start, end).toString().trim();
+    }
+
+    @Nullable
+    private static CharSequence read(LocalFileSystem lfs, String path) {
+        try {
+            VirtualFile vf = lfs.findFileByPath(path);
+            return vf != null ? new String(vf.contentsToByteArray(), vf.getCharset()) : null;
+        } catch (Exception e) {
+            LOG.debug("ZyTextSearch: read file error " + path, e);
+            return null;
+        }
+    }
+
+    // 未保存的 .zy 文档：路径 -> 编辑器中的文本
+    private static Map<String, CharSequence> unsavedDocuments() {
+        return ReadAction.compute(() -> {
+            Map<String, CharSequence> result = new HashMap<>();
+            FileDocumentManager fdm = FileDocumentManager.getInstance();
+            for (Document doc : fdm.getUnsavedDocuments()) {
+                VirtualFile vf = fdm.getFile(doc);
+                if (vf != null && vf.getName().endsWith(".zy")) result.put(vf.getPath(), doc.getImmutableCharSequence());
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.company.plugin.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 三元组文本索引：连续三个字符（转小写）-> 含有它的文件
+ * - 覆盖全部文本（含注释、字符串），跨行的三元组不登记
+ * - 查询串的每个三元组都出现的文件才可能包含该串，候选文件再由调用方逐个核对原文
+ * - 不足三个字符的查询无法收窄，返回 null 表示“全部文件”
+ */
+public final class ZyTrigramIndex extends ZyFilePostings {
+
+    /** 持久化文件名（位于 .idea/index/zy 下） */
+    public static final String FILE_NAME = "zy-trigrams.idx";
+
+    public ZyTrigramIndex() {
+        super("trigrams", 1);
+    }
+
+    @NotNull
+    @Override
+    public Collection<String> keys(@NotNull CharSequence text) {
+        Set<String> result = new HashSet<>();
+        collect(text, result);
+        return result;
+    }
+
+    /**
+     * 查询串的三元组（去重，保持出现顺序）
+     */
+    @NotNull
+    public static Set<String> trigrams(@NotNull CharSequence query) {
+        Set<String> result = new LinkedHashSet<>();
+        collect(query, result);
+        return result;
+    }
+
+    private static void collect(CharSequence text, Set<String> out) {
+        char[] window = new char[3];
+        int filled = 0;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                filled = 0;
+                continue;
+            }
+            window[0] = window[1];
+            window[1] = window[2];
+            window[2] = Character.toLowerCase(c);
+            if (++filled >= 3) out.add(new String(window));
+        }
+    }
+
+    /**
+     * 可能包含 query（不区分大小写）的文件；query 无可用三元组时返回 null
+     */
+    @Nullable
+    public List<String> candidates(@NotNull String query) {
+        Set<String> grams = trigrams(query);
+        return grams.isEmpty() ? null : filesContainingAll(grams);
+    }
+
+    /**
+     * 读取索引文件；文件缺失、损坏或版本不符时返回 null
+     */
+    @Nullable
+    public static ZyTrigramIndex load(@NotNull Path in) {
+        return load(in, new ZyTrigramIndex());
+    }
+}
@@ -0,0 +1,174 @@
+package com.company.plugin.language;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内置函数与常量库：数据来自随插件打包的资源表 {@value #RESOURCE}
+ * - 首次使用时才读取（按需初始化的持有类），之后全局只读共享一份
+ * - 词法高亮、补全、参数提示与快速文档都从这里查询，不再各自维护名单
+ * - 名字、类型等字符串驻留（intern），参数列表按需切分
+ */
+public final class ZyBuiltins {
+
+    private static final Logger LOG = Logger.getInstance(ZyBuiltins.class);
+
+    /** 资源表路径（类路径下） */
+    static final String RESOURCE = "/builtins/php-builtins.tsv";
+
+    private ZyBuiltins() {
+    }
+
+    /**
+     * 内置函数：名称、参数列表、返回类型与简要说明
+     */
+    public static final class Function {
+        public final String name;
+        public final String returnType;
+        public final String description;
+        private final String parameterText;
+        private volatile List<String> parameters;
+
+        Function(String name, String parameterText, String returnType, String description) {
+            this.name = name;
+            this.parameterText = parameterText;
+            this.returnType = returnType;
+            this.description = description;
+        }
+
+        /** 参数声明（如 "string $string"），无参数时为空列表 */
+        @NotNull
+        public List<String> getParameters() {
+            List<String> result = parameters;
+            if (result == null) {
+                result = Collections.unmodifiableList(splitParameters(parameterText));
+                parameters = result;
+            }
+            return result;
+        }
+
+        /** 完整签名：name(参数): 返回类型 */
+        @NotNull
+        public String getSignature() {
+            return name + "(" + parameterText + "): " + returnType;
+        }
+    }
+
+    /**
+     * 内置常量：名称、类型与简要说明
+     */
+    public static final class Constant {
+        public final String name;
+        public final String type;
+        public final String description;
+
+        Constant(String name, String type, String description) {
+            this.name = name;
+            this.type = type;
+            this.description = description;
+        }
+    }
+
+    // 按需初始化：第一次访问 Holder 时才读取资源表
+    private static final class Holder {
+        static final Map<String, Function> FUNCTIONS = new HashMap<>();
+        static final Map<String, Constant> CONSTANTS = new HashMap<>();
+
+        static {
+            load(FUNCTIONS, CONSTANTS);
+        }
+    }
+
+    public static boolean isFunction(@NotNull String name) {
+        return Holder.FUNCTIONS.containsKey(name);
+    }
+
+    public static boolean isConstant(@NotNull String name) {
+        return Holder.CONSTANTS.containsKey(name);
+    }
+
+    @Nullable
+    public static Function getFunction(@NotNull String name) {
+        return Holder.FUNCTIONS.get(name);
+    }
+
+    @Nullable
+    public static Constant getConstant(@NotNull String name) {
+        return Holder.CONSTANTS.get(name);
+    }
+
+    @NotNull
+    public static Collection<Function> getFunctions() {
+        return Collections.unmodifiableCollection(Holder.FUNCTIONS.values());
+    }
+
+    @NotNull
+    public static Collection<Constant> getConstants() {
+        return Collections.unmodifiableCollection(Holder.CONSTANTS.values());
+    }
+
+    private static void load(Map<String, Function> functions, Map<String, Constant> constants) {
+        InputStream in = ZyBuiltins.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            LOG.warn("ZyBuiltins: resource not found " + RESOURCE);
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] fields = line.split("\t", -1);
+                if ("f".equals(fields[0]) && fields.length >= 5) {
+                    String name = fields[1].intern();
+                    functions.put(name, new Function(name, fields[2], fields[3].intern(), fields[4]));
+                } else if ("c".equals(fields[0]) && fields.length >= 4) {
+                    String name = fields[1].intern();
+                    constants.put(name, new Constant(name, fields[2].intern(), fields[3]));
+                } else {
+                    LOG.debug("ZyBuiltins: skip malformed line " + line);
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("ZyBuiltins: load resource error", e);
+        }
+    }
+
+    // 按顶层逗号切分参数列表，引号、括号与方括号内的逗号不切分
+    private static List<String> splitParameters(String text) {
+        List<String> result = new ArrayList<>();
+        if (text.trim().isEmpty()) return result;
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') i++;
+                else if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                result.add(text.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        result.add(text.substring(start).trim());
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package com.company.plugin.language;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * ZY 源码的字符级切分规则（唯一实现）
+ * - 词法分析器（高亮与 PSI）、类结构扫描、类型推断与标识符出现索引共用同一套规则，各处 token 边界一致
+ * - 种类只区分空白、注释、字符串、数字、标识符、$变量与单字符符号；关键字、内置名由调用方按文本判断
+ * - 游标本身不分配对象，调用方按起止偏移取文本；可回退到先前的 token 边界重新扫描
+ */
+public final class ZyTokenScanner {
+
+    public static final byte WHITESPACE = 0;
+    public static final byte COMMENT = 1;
+    public static final byte STRING = 2;
+    public static final byte NUMBER = 3;
+    public static final byte IDENTIFIER = 4;
+    /** $ 开头的变量，包含 $ 本身 */
+    public static final byte VARIABLE = 5;
+    /** 单字符符号（运算符、括号、分隔符等） */
+    public static final byte PUNCT = 6;
+
+    private CharSequence text;
+    private int end;
+    private int tokenStart;
+    private int tokenEnd;
+    private byte kind;
+    // 跳过的空白中是否有换行（仅 nextSignificant 维护）
+    private boolean newlineBefore;
+
+    public ZyTokenScanner() {
+        reset("", 0, 0);
+    }
+
+    public ZyTokenScanner(@NotNull CharSequence text) {
+        reset(text, 0, text.length());
+    }
+
+    /**
+     * 在 text 的 [start, end) 范围内重新开始
+     */
+    public void reset(@NotNull CharSequence text, int start, int end) {
+        this.text = text;
+        this.end = end;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+        this.newlineBefore = false;
+    }
+
+    /**
+     * 回到 offset 处继续扫描；offset 须为先前某个 token 的边界
+     */
+    public void seek(int offset) {
+        tokenStart = offset;
+        tokenEnd = offset;
+    }
+
+    /**
+     * 前进到下一个 token（含空白与注释），范围结束时返回 false
+     */
+    public boolean advance() {
+        tokenStart = tokenEnd;
+        if (tokenStart >= end) return false;
+        int pos = tokenStart;
+        char c = text.charAt(pos);
+        if (Character.isWhitespace(c)) {
+            while (pos < end && Character.isWhitespace(text.charAt(pos))) pos++;
+            kind = WHITESPACE;
+        } else if (c == '/' && pos + 1 < end && text.charAt(pos + 1) == '/') {
+            pos += 2;
+            while (pos < end && text.charAt(pos) != '\n') pos++;
+            kind = COMMENT;
+        } else if (c == '/' && pos + 1 < end && text.charAt(pos + 1) == '*') {
+            pos += 2;
+            while (pos + 1 < end && !(text.charAt(pos) == '*' && text.charAt(pos + 1) == '/')) pos++;
+            // 未闭合的块注释延续到范围末尾
+            pos = Math.min(end, pos + 2);
+            kind = COMMENT;
+        } else if (c == '"' || c == '\'') {
+            pos++;
+            while (pos < end && text.charAt(pos) != c) {
+                pos += text.charAt(pos) == '\\' && pos + 1 < end ? 2 : 1;
+            }
+            if (pos < end) pos++;
+            kind = STRING;
+        } else if (Character.isDigit(c)) {
+            pos++;
+            while (pos < end && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) pos++;
+            kind = NUMBER;
+        } else if (c == '$') {
+            pos++;
+            while (pos < end && isIdentifierPart(text.charAt(pos))) pos++;
+            kind = VARIABLE;
+        } else if (isIdentifierStart(c)) {
+            pos++;
+            while (pos < end && isIdentifierPart(text.charAt(pos))) pos++;
+            kind = IDENTIFIER;
+        } else {
+            pos++;
+            kind = PUNCT;
+        }
+        tokenEnd = pos;
+        return true;
+    }
+
+    /**
+     * 跳过空白与注释，前进到下一个有意义的 token；{@link #newlineBefore()} 随之更新
+     */
+    public boolean nextSignificant() {
+        boolean newline = false;
+        while (advance()) {
+            if (kind == WHITESPACE) {
+                for (int i = tokenStart; i < tokenEnd && !newline; i++) {
+                    if (text.charAt(i) == '\n') newline = true;
+                }
+            } else if (kind != COMMENT) {
+                newlineBefore = newline;
+                return true;
+            }
+        }
+        newlineBefore = newline;
+        return false;
+    }
+
+    public int start() {
+        return tokenStart;
+    }
+
+    public int end() {
+        return tokenEnd;
+    }
+
+    public byte kind() {
+        return kind;
+    }
+
+    /**
+     * 当前 token 与上一个有意义的 token 之间是否换行（无分号写法按换行结束语句）
+     */
+    public boolean newlineBefore() {
+        return newlineBefore;
+    }
+
+    public static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    public static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
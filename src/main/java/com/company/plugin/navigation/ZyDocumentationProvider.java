@@ -0,0 +1,88 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.highlighting.ZyTokenTypes;
+import com.company.plugin.language.ZyBuiltins;
+import com.intellij.lang.documentation.AbstractDocumentationProvider;
+import com.intellij.lang.documentation.DocumentationMarkup;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 内置函数与常量的快速文档（Ctrl+Q）与悬停摘要
+ * - 签名与说明取自内置库 {@link ZyBuiltins}，不解析文件
+ * - 只处理词法分析器识别为内置名的 Token，项目中的符号仍走引用解析
+ */
+public class ZyDocumentationProvider extends AbstractDocumentationProvider {
+
+    @Nullable
+    @Override
+    public PsiElement getCustomDocumentationElement(@NotNull Editor editor, @NotNull PsiFile file,
+                                                    @Nullable PsiElement contextElement, int targetOffset) {
+        return isBuiltinToken(contextElement) ? contextElement : null;
+    }
+
+    @Nullable
+    @Override
+    public String getQuickNavigateInfo(PsiElement element, PsiElement originalElement) {
+        if (!isBuiltinToken(element)) return null;
+        ZyBuiltins.Function function = ZyBuiltins.getFunction(element.getText());
+        if (function != null) return StringUtil.escapeXmlEntities(function.getSignature());
+        ZyBuiltins.Constant constant = ZyBuiltins.getConstant(element.getText());
+        return constant != null ? StringUtil.escapeXmlEntities(constant.type + " " + constant.name) : null;
+    }
+
+    @Nullable
+    @Override
+    public String generateDoc(PsiElement element, @Nullable PsiElement originalElement) {
+        if (!isBuiltinToken(element)) return null;
+        ZyBuiltins.Function function = ZyBuiltins.getFunction(element.getText());
+        if (function != null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(DocumentationMarkup.DEFINITION_START)
+                    .append(StringUtil.escapeXmlEntities(function.getSignature()))
+                    .append(DocumentationMarkup.DEFINITION_END)
+                    .append(DocumentationMarkup.CONTENT_START)
+                    .append(StringUtil.escapeXmlEntities(function.description))
+                    .append(DocumentationMarkup.CONTENT_END);
+            if (!function.getParameters().isEmpty()) {
+                sb.append(DocumentationMarkup.SECTIONS_START)
+                        .append(DocumentationMarkup.SECTION_HEADER_START).append("Parameters:")
+                        .append(DocumentationMarkup.SECTION_SEPARATOR);
+                for (String parameter : function.getParameters()) {
+                    sb.append("<code>").append(StringUtil.escapeXmlEntities(parameter)).append("</code><br/>");
+                }
+                sb.append(DocumentationMarkup.SECTION_END)
+                        .append(DocumentationMarkup.SECTION_HEADER_START).append("Returns:")
+                        .append(DocumentationMarkup.SECTION_SEPARATOR)
+                        .append("<code>").append(StringUtil.escapeXmlEntities(function.returnType)).append("</code>")
+                        .append(DocumentationMarkup.SECTION_END)
+                        .append(DocumentationMarkup.SECTIONS_END);
+            }
+            return sb.toString();
+        }
+        ZyBuiltins.Constant constant = ZyBuiltins.getConstant(element.getText());
+        if (constant == null) return null;
+        return DocumentationMarkup.DEFINITION_START
+                + StringUtil.escapeXmlEntities(constant.type + " " + constant.name)
+                + DocumentationMarkup.DEFINITION_END
+                + DocumentationMarkup.CONTENT_START
+                + StringUtil.escapeXmlEntities(constant.description)
+                + DocumentationMarkup.CONTENT_END;
+    }
+
+    // 词法分析器标为内置函数、常量（或与关键字同名，如 array）的 Token
+    private static boolean isBuiltinToken(@Nullable PsiElement element) {
+        if (element == null || element.getNode() == null) return false;
+        IElementType type = element.getNode().getElementType();
+        if (type != ZyTokenTypes.PHP_FUNCTION && type != ZyTokenTypes.PHP_CONSTANT && type != ZyTokenTypes.PHP_KEYWORD) {
+            return false;
+        }
+        String text = element.getText();
+        return ZyBuiltins.isFunction(text) || ZyBuiltins.isConstant(text);
+    }
+}
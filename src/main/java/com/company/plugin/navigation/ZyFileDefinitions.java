@@ -0,0 +1,169 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.index.ZyClassScanner;
+import com.company.plugin.index.ZySymbolIndexService;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单文件定义表：名字 -> 各类定义的偏移（按出现顺序）
+ * - 一次扫描文件内容，按 function / class / var|let|const 分类登记
+ * - 同一次扫描顺带记录文件头部的 namespace 与 use 导入（短名或别名 -> 全名）
+ * - 通过 CachedValuesManager 缓存在 PsiFile 上，随文件 PSI 修改自动失效
+ * 引用解析与本地定义查找只需一次哈希查询，不再为每个单词编译正则并扫描整文件
+ */
+public final class ZyFileDefinitions {
+
+    /** 定义种类 */
+    public enum Kind { FUNCTION, CLASS, VARIABLE }
+
+    // 标识符字符与 ZyReferenceContributor 的切分规则一致（字母、数字、下划线，含 Unicode 字母）
+    private static final String IDENT = "([\\p{L}\\p{N}_]+)";
+    // 三类定义与 namespace / use 合成一个模式，单次扫描；命中的分组号即种类
+    // namespace、use 仅在行首识别（行首可有空白）
+    private static final Pattern DEFINITION = Pattern.compile(
+            "function\\s+" + IDENT + "\\s*\\("
+            + "|class\\s+" + IDENT + "\\s*\\{"
+            + "|(?:var|let|const)\\s+" + IDENT + "\\s*[=;]"
+            + "|(?m:^)\\s*namespace\\s+([A-Za-z_\\\\][A-Za-z0-9_\\\\]*)"
+            + "|(?m:^)\\s*use\\s+([\\\\\\w]+)(?:\\s+as\\s+(\\w+))?\\s*;");
+
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, int[]> functions;
+    private final Map<String, int[]> classes;
+    private final Map<String, int[]> variables;
+    private final String namespace;
+    private final Map<String, String> imports;
+
+    private ZyFileDefinitions(Map<String, int[]> functions, Map<String, int[]> classes, Map<String, int[]> variables,
+                              String namespace, Map<String, String> imports) {
+        this.functions = functions;
+        this.classes = classes;
+        this.variables = variables;
+        this.namespace = namespace;
+        this.imports = imports;
+    }
+
+    /**
+     * 获取文件的定义表（按 PSI 修改缓存）
+     */
+    @NotNull
+    public static ZyFileDefinitions of(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () ->
+                CachedValueProvider.Result.create(build(file.getViewProvider().getContents()), file));
+    }
+
+    /**
+     * 文件中的类及其成员（按 PSI 修改缓存）
+     */
+    @NotNull
+    public static List<ZySymbolIndexService.ClassState> classesOf(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () ->
+                CachedValueProvider.Result.create(ZyClassScanner.scan(file.getViewProvider().getContents()), file));
+    }
+
+    /**
+     * 扫描文本构建定义表
+     */
+    @NotNull
+    public static ZyFileDefinitions build(@NotNull CharSequence text) {
+        Map<String, int[]> functions = new HashMap<>();
+        Map<String, int[]> classes = new HashMap<>();
+        Map<String, int[]> variables = new HashMap<>();
+        String namespace = null;
+        Map<String, String> imports = new HashMap<>();
+        Matcher m = DEFINITION.matcher(text);
+        while (m.find()) {
+            if (m.start(1) >= 0) append(functions, m.group(1), m.start(1));
+            else if (m.start(2) >= 0) append(classes, m.group(2), m.start(2));
+            else if (m.start(3) >= 0) append(variables, m.group(3), m.start(3));
+            else if (m.start(4) >= 0) {
+                // 只取第一个 namespace 声明
+                if (namespace == null) namespace = m.group(4);
+            } else {
+                String fqn = m.group(5);
+                String alias = m.group(6);
+                // 有别名以别名为键，否则取全名最后一段
+                imports.put(alias != null && !alias.isEmpty() ? alias : fqn.substring(fqn.lastIndexOf('\\') + 1), fqn);
+            }
+        }
+        return new ZyFileDefinitions(functions, classes, variables, namespace, imports);
+    }
+
+    private static void append(Map<String, int[]> map, String name, int offset) {
+        int[] old = map.get(name);
+        if (old == null) {
+            map.put(name, new int[]{offset});
+            return;
+        }
+        int[] offsets = Arrays.copyOf(old, old.length + 1);
+        offsets[old.length] = offset;
+        map.put(name, offsets);
+    }
+
+    /**
+     * 某类定义的全部偏移（无则为空数组）
+     */
+    @NotNull
+    public int[] offsets(@NotNull Kind kind, @NotNull String name) {
+        int[] result;
+        switch (kind) {
+            case FUNCTION: result = functions.get(name); break;
+            case CLASS: result = classes.get(name); break;
+            default: result = variables.get(name); break;
+        }
+        return result != null ? result : NONE;
+    }
+
+    /**
+     * 首个定义偏移：函数优先，其次类，最后变量；未定义返回 -1
+     */
+    public int firstDefinition(@NotNull String name) {
+        for (Kind kind : Kind.values()) {
+            int[] offsets = offsets(kind, name);
+            if (offsets.length > 0) return offsets[0];
+        }
+        return -1;
+    }
+
+    /**
+     * 文件内定义过的全部名字（只读视图，按种类分开）
+     */
+    @NotNull
+    public Set<String> names(@NotNull Kind kind) {
+        switch (kind) {
+            case FUNCTION: return Collections.unmodifiableSet(functions.keySet());
+            case CLASS: return Collections.unmodifiableSet(classes.keySet());
+            default: return Collections.unmodifiableSet(variables.keySet());
+        }
+    }
+
+    /**
+     * 文件声明的命名空间（第一个 namespace 语句），未声明返回 null
+     */
+    @Nullable
+    public String namespace() {
+        return namespace;
+    }
+
+    /**
+     * use 导入表：短名或别名 -> 完全限定名（只读）
+     */
+    @NotNull
+    public Map<String, String> imports() {
+        return Collections.unmodifiableMap(imports);
+    }
+}
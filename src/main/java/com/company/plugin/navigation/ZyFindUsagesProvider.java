@@ -0,0 +1,68 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.highlighting.ZyTokenTypes;
+import com.company.plugin.language.ZyLanguage;
+import com.intellij.lang.cacheBuilder.WordsScanner;
+import com.intellij.lang.findUsages.FindUsagesProvider;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiUtilCore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * ZY 查找用法入口
+ * 目标为可产生引用的标识符叶子 Token；实际搜索由 {@link ZyReferencesSearcher} 基于出现索引完成，
+ * 因此不提供 WordsScanner，平台不会为 ZY 文件再建一份单词索引
+ */
+public class ZyFindUsagesProvider implements FindUsagesProvider {
+
+    /**
+     * 是否可作为查找用法的目标：ZY 文件中的标识符、函数名、常量或变量 Token
+     */
+    static boolean isUsageTarget(@Nullable PsiElement element) {
+        if (element == null || element.getLanguage() != ZyLanguage.INSTANCE) return false;
+        IElementType type = PsiUtilCore.getElementType(element);
+        return type != null && ZyReferenceContributor.REFERENCE_TOKENS.contains(type)
+                && element.getTextLength() > (type == ZyTokenTypes.PHP_VARIABLE ? 1 : 0);
+    }
+
+    @Nullable
+    @Override
+    public WordsScanner getWordsScanner() {
+        return null;
+    }
+
+    @Override
+    public boolean canFindUsagesFor(@NotNull PsiElement element) {
+        return isUsageTarget(element);
+    }
+
+    @Nullable
+    @Override
+    public String getHelpId(@NotNull PsiElement element) {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public String getType(@NotNull PsiElement element) {
+        IElementType type = PsiUtilCore.getElementType(element);
+        if (type == ZyTokenTypes.PHP_VARIABLE) return "variable";
+        if (type == ZyTokenTypes.PHP_FUNCTION) return "function";
+        if (type == ZyTokenTypes.PHP_CONSTANT) return "constant";
+        return "identifier";
+    }
+
+    @NotNull
+    @Override
+    public String getDescriptiveName(@NotNull PsiElement element) {
+        return element.getText();
+    }
+
+    @NotNull
+    @Override
+    public String getNodeText(@NotNull PsiElement element, boolean useFullName) {
+        return element.getText();
+    }
+}
@@ -1,5 +1,9 @@
 package com.company.plugin.navigation;
 
+import com.company.plugin.diagnostics.ZyMetrics;
+import com.company.plugin.diagnostics.ZyTracer;
+import com.company.plugin.index.ZySymbolIndexService;
+import com.company.plugin.index.ZyTextSearch;
 import com.intellij.codeInsight.navigation.actions.GotoDeclarationHandler;
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.editor.Editor;
@@ -27,6 +31,8 @@ import java.util.*;
 public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
 
     private static final Logger LOG = Logger.getInstance(ZyGotoDeclarationHandler.class);
+    // 文本兜底最多返回的定义处数
+    private static final int MAX_TEXT_FALLBACK_RESULTS = 50;
 
     /**
      * 获取下划线显示的目标元素
@@ -35,6 +41,18 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
     @Override
     @Nullable
     public PsiElement[] getGotoDeclarationTargets(PsiElement element, int offset, Editor editor) {
+        long started = ZyMetrics.start();
+        try (ZyTracer.Span span = ZyTracer.span(ZyMetrics.GOTO_TOTAL)) {
+            PsiElement[] targets = findTargets(element, offset, editor, span);
+            if (span.isRecording()) span.attr("targets", targets == null ? 0 : targets.length);
+            return targets;
+        } finally {
+            ZyMetrics.recordSince(ZyMetrics.GOTO_TOTAL, started);
+        }
+    }
+
+    @Nullable
+    private PsiElement[] findTargets(PsiElement element, int offset, Editor editor, ZyTracer.Span span) {
         Project project = editor.getProject();
         if (project == null) return null;
         
@@ -65,7 +83,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                     Math.max(offset, 0),
                     Math.min(offset + 1, editor.getDocument().getTextLength())
                 );
-                LOG.info("GTD: no word found at caret; use minimal range=" + wordRange);
             }
         }
         
@@ -75,10 +92,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
             return null;
         }
         
-        LOG.info("GTD: leaf=" + leafAtCaret.getClass().getSimpleName() + 
-                " text='" + leafAtCaret.getText() + "' range=" + leafAtCaret.getTextRange() + 
-                " wordRange=" + wordRange);
-
         // 引用命中策略：
         // 1) 优先检查叶子元素上的引用
         // 2) 若未命中，向上检查父级元素（最多 3 层），很多语言的调用/成员访问引用挂在父节点
@@ -96,109 +109,74 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
             }
         }
         
-        if (refHit) {
-            LOG.info("GTD: reference range hit; continue to local lookup");
-        } else {
-            LOG.info("GTD: no reference hit on leaf/parents; fallback to word-based local lookup");
-        }
-
         try {
             List<PsiElement> targets = new ArrayList<>();
             
             // 基于本地实现的定义查找
-            String word = wordRange.substring(leafAtCaret.getContainingFile().getText());
-            LOG.info("GTD: searching for word: '" + word + "' at range: " + wordRange);
+            CharSequence text = editor.getDocument().getCharsSequence();
+            String word = text.subSequence(wordRange.getStartOffset(), wordRange.getEndOffset()).toString();
+            if (span.isRecording()) {
+                span.attr("file", file.getName()).attr("offset", offset).attr("word", word).attr("refHit", String.valueOf(refHit));
+            }
 
             // 属性访问优先：当检测到 ->name 且后面不是 '(' 时，仅按属性解析，优先从命名空间 JSON 索引命中 property
             if (isPropertyAccessContext(editor, wordRange)) {
-                String ns = extractNamespace(leafAtCaret.getContainingFile().getText());
-                String cls = extractClassNameForPropertyChain(editor.getDocument().getCharsSequence(), wordRange.getStartOffset());
-                List<PsiElement> propTargets = findPropertyFromNamespaceIndex(project, ns, cls, word, leafAtCaret.getContainingFile().getVirtualFile(), wordRange.getStartOffset(), wordRange.getEndOffset());
+                long stage = ZyMetrics.start();
+                List<PsiElement> propTargets;
+                try (ZyTracer.Span stageSpan = ZyTracer.span(ZyMetrics.GOTO_PROPERTY)) {
+                    String ns = ZyFileDefinitions.of(leafAtCaret.getContainingFile()).namespace();
+                    String cls = extractClassNameForPropertyChain(text, wordRange.getStartOffset());
+                    propTargets = findPropertyFromNamespaceIndex(project, ns, cls, word, leafAtCaret.getContainingFile().getVirtualFile(), wordRange.getStartOffset(), wordRange.getEndOffset());
+                    if (stageSpan.isRecording()) stageSpan.attr("namespace", ns).attr("class", cls).attr("targets", propTargets.size());
+                }
+                ZyMetrics.recordSince(ZyMetrics.GOTO_PROPERTY, stage);
                 if (!propTargets.isEmpty()) {
                     return propTargets.toArray(new PsiElement[0]);
                 }
             }
             
             // 在当前文件中查找定义，传入需要跳过的当前位置范围，避免把自身加入候选
-            List<PsiElement> localTargets = findLocalDefinitions(leafAtCaret, word, wordRange.getStartOffset(), wordRange.getEndOffset());
-            targets.addAll(localTargets);
-            LOG.info("GTD: found " + localTargets.size() + " local definitions");
+            long localStage = ZyMetrics.start();
+            try (ZyTracer.Span stageSpan = ZyTracer.span(ZyMetrics.GOTO_LOCAL)) {
+                List<PsiElement> localTargets = findLocalDefinitions(leafAtCaret, word, wordRange.getStartOffset(), wordRange.getEndOffset());
+                targets.addAll(localTargets);
+                if (stageSpan.isRecording()) stageSpan.attr("targets", localTargets.size());
+            }
+            ZyMetrics.recordSince(ZyMetrics.GOTO_LOCAL, localStage);
             
             // 如果本地没有找到，尝试跨文件搜索
             if (targets.isEmpty()) {
                 // 分析上下文，检查是否是成员访问
-                String contextClassName = analyzeContextForMemberAccess(leafAtCaret, word);
-                LOG.info("GTD: searching for word '" + word + "', context class name is '" + contextClassName + "'");
+                String contextClassName = analyzeContextForMemberAccess(leafAtCaret, word, wordRange);
                 
                 // 如果有上下文类名，优先在该类中搜索
                 if (contextClassName != null && !contextClassName.isEmpty()) {
-                    boolean isMethodCall = isMethodCallContext(leafAtCaret, word);
-                    LOG.info("GTD: context analysis - class: '" + contextClassName + "', word: '" + word + "', isMethodCall: " + isMethodCall);
-                    List<PsiElement> contextTargets = findInSpecificClass(project, contextClassName, word, file, isMethodCall);
-                    targets.addAll(contextTargets);
-
-                    // 方法调用时，额外并入跨命名空间的同名方法候选，避免只显示一侧
-                    if (isMethodCall) {
-                        List<PsiElement> extra = findCrossFileDefinitions(project, word, file);
-                        java.util.Set<String> sig = new java.util.HashSet<>();
-                        for (PsiElement t : targets) {
-                            var vf0 = t.getContainingFile() != null ? t.getContainingFile().getVirtualFile() : null;
-                            if (vf0 != null) sig.add(vf0.getPath() + "@" + t.getTextOffset());
-                        }
-                        for (PsiElement t : extra) {
-                            var vf = t.getContainingFile() != null ? t.getContainingFile().getVirtualFile() : null;
-                            String key = vf != null ? vf.getPath() + "@" + t.getTextOffset() : null;
-                            if (key != null && !sig.contains(key)) {
-                                targets.add(t);
-                            }
-                        }
+                    long stage = ZyMetrics.start();
+                    try (ZyTracer.Span stageSpan = ZyTracer.span(ZyMetrics.GOTO_CONTEXT_CLASS)) {
+                        findInContextClass(project, leafAtCaret, contextClassName, word, text, wordRange, file, targets, stageSpan);
                     }
+                    ZyMetrics.recordSince(ZyMetrics.GOTO_CONTEXT_CLASS, stage);
                 }
                 
                 // 如果上下文搜索没有结果，尝试常规搜索
                 if (targets.isEmpty()) {
-                    // 解析 use 语句，获取真实的类名
-                    String realClassName = parseUseStatementsAndGetRealClassName(leafAtCaret.getContainingFile().getText(), word);
-                    LOG.info("GTD: searching for word '" + word + "', real class name is '" + realClassName + "'");
-                    
-                    // 首先尝试搜索原始单词
-                    List<PsiElement> crossFileTargets = findCrossFileDefinitions(project, word, file);
-                    LOG.info("GTD: found " + crossFileTargets.size() + " cross-file definitions for original word '" + word + "'");
-                    
-                    // 如果原始单词没找到，且真实类名不同，尝试搜索真实类名
-                    if (crossFileTargets.isEmpty() && !word.equals(realClassName)) {
-                        LOG.info("GTD: trying to find real class name '" + realClassName + "'");
-                        
-                        // 从完全限定名中提取类名和命名空间路径
-                        String[] parts = realClassName.split("\\\\");
-                        String actualClassName = parts.length > 0 ? parts[parts.length - 1] : realClassName;
-                        String namespacePath = parts.length > 1 ? String.join("/", java.util.Arrays.copyOf(parts, parts.length - 1)) : null;
-                        
-                        LOG.info("GTD: extracted actual class name '" + actualClassName + "' and namespace path '" + namespacePath + "' from FQN '" + realClassName + "'");
-                        
-                        crossFileTargets = findCrossFileDefinitions(project, actualClassName, namespacePath, file);
-                        LOG.info("GTD: found " + crossFileTargets.size() + " cross-file definitions for actual class name '" + actualClassName + "' with namespace path '" + namespacePath + "'");
+                    long stage = ZyMetrics.start();
+                    try (ZyTracer.Span stageSpan = ZyTracer.span(ZyMetrics.GOTO_CROSS_FILE)) {
+                        findCrossFileWithUseStatements(project, leafAtCaret, word, file, targets, stageSpan);
                     }
-                    
-                    targets.addAll(crossFileTargets);
+                    ZyMetrics.recordSince(ZyMetrics.GOTO_CROSS_FILE, stage);
                 }
             }
             
             // 如果还是没有找到，尝试查找引用（过滤自身范围）
             if (targets.isEmpty()) {
-                List<PsiElement> referenceTargets = findReferences(leafAtCaret, word, wordRange.getStartOffset(), wordRange.getEndOffset());
-                targets.addAll(referenceTargets);
-                LOG.info("GTD: found " + referenceTargets.size() + " references");
-            }
-            
-            LOG.info("GTD: total targets=" + targets.size());
-            
-            if (!targets.isEmpty()) {
-                for (int i = 0; i < targets.size(); i++) {
-                    PsiElement target = targets.get(i);
-                    LOG.info("GTD: target[" + i + "]=" + target.getClass().getSimpleName() + 
-                            " text='" + target.getText() + "' offset=" + target.getTextOffset());
+                long stage = ZyMetrics.start();
+                try (ZyTracer.Span stageSpan = ZyTracer.span(ZyMetrics.GOTO_REFERENCES)) {
+                    List<PsiElement> referenceTargets = findReferences(leafAtCaret, word, wordRange.getStartOffset(), wordRange.getEndOffset());
+                    targets.addAll(referenceTargets);
+                    if (stageSpan.isRecording()) stageSpan.attr("targets", referenceTargets.size());
                 }
+                ZyMetrics.recordSince(ZyMetrics.GOTO_REFERENCES, stage);
             }
             
             return targets.isEmpty() ? null : targets.toArray(new PsiElement[0]);
@@ -217,6 +195,68 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         return null;
     }
 
+    /**
+     * 在成员访问的上下文类中查找；方法调用时并入跨命名空间的同名方法候选，避免只显示一侧
+     */
+    private void findInContextClass(Project project, PsiElement leafAtCaret, String contextClassName, String word,
+                                    CharSequence text, TextRange wordRange, VirtualFile file,
+                                    List<PsiElement> targets, ZyTracer.Span span) {
+        boolean isMethodCall = isMethodCallContext(leafAtCaret, word, text, wordRange);
+        List<PsiElement> contextTargets = findInSpecificClass(project, contextClassName, word, file, isMethodCall);
+        targets.addAll(contextTargets);
+
+        if (isMethodCall) {
+            List<PsiElement> extra = findCrossFileDefinitions(project, word, file);
+            java.util.Set<String> sig = new java.util.HashSet<>();
+            for (PsiElement t : targets) {
+                String key0 = targetKey(t);
+                if (key0 != null) sig.add(key0);
+            }
+            for (PsiElement t : extra) {
+                String key = targetKey(t);
+                if (key != null && !sig.contains(key)) {
+                    targets.add(t);
+                }
+            }
+        }
+        if (span.isRecording()) {
+            span.attr("class", contextClassName).attr("methodCall", String.valueOf(isMethodCall)).attr("targets", targets.size());
+        }
+    }
+
+    // 导航目标的去重键；轻量目标不解析 PSI
+    @Nullable
+    private static String targetKey(PsiElement t) {
+        if (t instanceof PresentedNavigationItem) return ((PresentedNavigationItem) t).key();
+        var vf = t.getContainingFile() != null ? t.getContainingFile().getVirtualFile() : null;
+        return vf != null ? vf.getPath() + "@" + t.getTextOffset() : null;
+    }
+
+    /**
+     * 跨文件查找：先按原始单词，未命中时按 use 语句解析出的真实类名与命名空间路径
+     */
+    private void findCrossFileWithUseStatements(Project project, PsiElement leafAtCaret, String word, VirtualFile file,
+                                                List<PsiElement> targets, ZyTracer.Span span) {
+        // 解析 use 语句，获取真实的类名
+        String realClassName = parseUseStatementsAndGetRealClassName(leafAtCaret.getContainingFile(), word);
+        
+        // 首先尝试搜索原始单词
+        List<PsiElement> crossFileTargets = findCrossFileDefinitions(project, word, file);
+        
+        // 如果原始单词没找到，且真实类名不同，尝试搜索真实类名
+        if (crossFileTargets.isEmpty() && !word.equals(realClassName)) {
+            // 从完全限定名中提取类名和命名空间路径
+            String[] parts = realClassName.split("\\\\");
+            String actualClassName = parts.length > 0 ? parts[parts.length - 1] : realClassName;
+            String namespacePath = parts.length > 1 ? String.join("/", java.util.Arrays.copyOf(parts, parts.length - 1)) : null;
+            crossFileTargets = findCrossFileDefinitions(project, actualClassName, namespacePath, file);
+            if (span.isRecording()) span.attr("useClass", realClassName).attr("namespacePath", namespacePath);
+        }
+        
+        targets.addAll(crossFileTargets);
+        if (span.isRecording()) span.attr("targets", crossFileTargets.size());
+    }
+
     /**
      * 检查引用命中
      */
@@ -258,8 +298,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
 
         if (start >= end) return null;
         TextRange range = new TextRange(start, end);
-        LOG.debug("computeWordRange: caret=" + caretOffset + " -> " + range + 
-                 ", text='" + chars.subSequence(start, end) + "'");
         return range;
     }
 
@@ -270,8 +308,7 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         List<PsiElement> targets = new ArrayList<>();
         
         try {
-            // 遍历文件中的所有元素，查找可能的定义
-            PsiElement file = context.getContainingFile();
+            com.intellij.psi.PsiFile file = context.getContainingFile();
             if (file != null) {
                 // 优先使用索引：限定当前文件路径的命中，快速定位偏移
                 try {
@@ -280,20 +317,14 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                     index.ensureUpToDate();
                     java.util.List<com.company.plugin.index.ZySymbolIndexService.LocationState> locations = index.findDefinitions(word, null);
                     if (!locations.isEmpty()) {
-                        String currentPath = file.getContainingFile().getVirtualFile().getPath();
+                        String currentPath = file.getVirtualFile().getPath();
                         for (com.company.plugin.index.ZySymbolIndexService.LocationState ls : locations) {
                             if (currentPath.equals(ls.filePath)) {
                                 // 跳过自身：若命中的偏移位于当前点击单词范围内，则忽略
                                 if (ls.offset >= skipStart && ls.offset < skipEnd) {
                                     continue;
                                 }
-                                PsiElement targetElement = file.findElementAt(ls.offset);
-                                if (targetElement != null) {
-                                    targets.add(createNavigationElement(targetElement,
-                                            file.getContainingFile().getVirtualFile(),
-                                            ls.offset,
-                                            new TextRange(ls.offset, ls.offset + Math.max(1, word.length()))));
-                                }
+                                targets.add(createNavigationElement(file, ls.offset, word));
                             }
                         }
                         if (!targets.isEmpty()) {
@@ -302,7 +333,7 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                     }
                 } catch (Throwable ignore) {}
 
-                findDefinitionsInElementSkipping(file, word, targets, skipStart, skipEnd);
+                findDefinitionOccurrences(file, word, targets, skipStart, skipEnd);
                 
                 // 如果没有找到定义，尝试查找函数调用
                 if (targets.isEmpty()) {
@@ -322,42 +353,35 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
     }
 
     /**
-     * 在元素中递归查找定义
+     * 按文件的标识符出现表查找定义
+     * ZY 的 PSI 是扁平的（所有叶子 Token 的父节点都是文件），文件中含 word 的定义写法时，所有同名 Token 都是候选
      */
-    private void findDefinitionsInElementSkipping(PsiElement element, String word, List<PsiElement> targets, int skipStart, int skipEnd) {
-        if (element == null) return;
-        
-        // 检查当前元素是否匹配
-        String text = element.getText();
-        if (text != null && text.equals(word)) {
-            // 检查是否是定义（函数、变量、类等）
-            if (isDefinition(element)) {
-                int defOffset = element.getTextOffset();
-                // 跳过当前位置自身
-                if (defOffset < skipStart || defOffset >= skipEnd) {
-                    targets.add(createNavigationElement(element, element.getContainingFile().getVirtualFile(), 
-                                                      defOffset, element.getTextRange()));
-                }
-            }
-        }
-        
-        // 递归检查子元素
-        for (PsiElement child : element.getChildren()) {
-            findDefinitionsInElementSkipping(child, word, targets, skipStart, skipEnd);
+    private void findDefinitionOccurrences(com.intellij.psi.PsiFile file, String word, List<PsiElement> targets, int skipStart, int skipEnd) {
+        int[] offsets = ZyIdentifierOccurrences.of(file).offsets(word);
+        if (offsets.length == 0 || !isDefinition(file, word)) return;
+        for (int off : offsets) {
+            // 跳过当前位置自身
+            if (off >= skipStart && off < skipEnd) continue;
+            targets.add(createNavigationElement(file, off, word));
         }
     }
 
     /**
-     * 查找引用
+     * 查找引用：文件中文本等于 word 的全部 Token（跳过当前位置）
      */
     private List<PsiElement> findReferences(PsiElement context, String word, int skipStart, int skipEnd) {
         List<PsiElement> targets = new ArrayList<>();
         
         try {
-            PsiElement file = context.getContainingFile();
+            com.intellij.psi.PsiFile file = context.getContainingFile();
             if (file != null) {
-                findReferencesInElementSkipping(file, word, targets, skipStart, skipEnd);
+                for (int off : ZyIdentifierOccurrences.of(file).offsets(word)) {
+                    if (off >= skipStart && off < skipEnd) continue;
+                    targets.add(createNavigationElement(file, off, word));
+                }
             }
+        } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
+            throw e;
         } catch (Exception e) {
             LOG.debug("Error finding references", e);
         }
@@ -365,131 +389,55 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         return targets;
     }
 
-    /**
-     * 在元素中递归查找引用
-     */
-    private void findReferencesInElementSkipping(PsiElement element, String word, List<PsiElement> targets, int skipStart, int skipEnd) {
-        if (element == null) return;
-        
-        // 检查当前元素是否匹配
-        String text = element.getText();
-        if (text != null && text.equals(word)) {
-            int off = element.getTextOffset();
-            if (off < skipStart || off >= skipEnd) {
-                targets.add(createNavigationElement(element, element.getContainingFile().getVirtualFile(), 
-                                                  off, element.getTextRange()));
-            }
-        }
-        
-        // 递归检查子元素
-        for (PsiElement child : element.getChildren()) {
-            findReferencesInElementSkipping(child, word, targets, skipStart, skipEnd);
-        }
-    }
-
     /**
      * 查找函数调用
      */
     private void findFunctionCalls(PsiElement file, String word, List<PsiElement> targets) {
-        String fileText = file.getText();
-        if (fileText == null) return;
-        
-        // 查找函数定义模式：function functionName(...)
-        String pattern = "function\\s+(" + java.util.regex.Pattern.quote(word) + ")\\s*\\(";
-        java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher matcher = regex.matcher(fileText);
-        
-        while (matcher.find()) {
-            int start = matcher.start(1);
-            int end = matcher.end(1);
-            
-            LOG.info("GTD: Found function definition at " + start + "-" + end + ": " + fileText.substring(start, end));
-            
-            // 创建导航元素
-            PsiElement targetElement = file.findElementAt(start);
-            if (targetElement != null) {
-                targets.add(createNavigationElement(targetElement, 
-                    file.getContainingFile().getVirtualFile(), 
-                    start, 
-                    new TextRange(start, end)));
-            }
-        }
+        // 查找函数定义：function functionName(...)，直接取文件定义表
+        addDefinitionTargets(file, ZyFileDefinitions.Kind.FUNCTION, word, targets);
     }
     
     /**
      * 查找类定义
      */
     private void findClassDefinitions(PsiElement file, String word, List<PsiElement> targets) {
-        String fileText = file.getText();
-        if (fileText == null) return;
-        
-        // 查找类定义模式：class ClassName
-        String pattern = "class\\s+(" + java.util.regex.Pattern.quote(word) + ")\\s*[\\{]";
-        java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher matcher = regex.matcher(fileText);
-        
-        while (matcher.find()) {
-            int start = matcher.start(1);
-            int end = matcher.end(1);
-            
+        // 查找类定义：class ClassName {
+        addDefinitionTargets(file, ZyFileDefinitions.Kind.CLASS, word, targets);
+    }
+
+    private void addDefinitionTargets(PsiElement file, ZyFileDefinitions.Kind kind, String word, List<PsiElement> targets) {
+        com.intellij.psi.PsiFile psiFile = file.getContainingFile();
+        if (psiFile == null) return;
+        for (int start : ZyFileDefinitions.of(psiFile).offsets(kind, word)) {
             // 创建导航元素
-            PsiElement targetElement = file.findElementAt(start);
-            if (targetElement != null) {
-                targets.add(createNavigationElement(targetElement, 
-                    file.getContainingFile().getVirtualFile(), 
-                    start, 
-                    new TextRange(start, end)));
-            }
+            targets.add(createNavigationElement(psiFile, start, word));
         }
     }
     
     /**
-     * 检查元素是否是定义
+     * 文件中是否含有 word 的定义（function / class / var|let|const），直接查文件定义表
      */
-    private boolean isDefinition(PsiElement element) {
-        // 简单的定义检查逻辑
-        // 在实际实现中，这里应该根据 ZY 语言的语法规则来判断
-        PsiElement parent = element.getParent();
-        if (parent == null) return false;
-        
-        String parentText = parent.getText();
-        if (parentText == null) return false;
-        
-        String elementText = element.getText();
-        if (elementText == null) return false;
-        
-        // 检查是否是函数定义的一部分: function functionName(...)
-        if (parentText.startsWith("function " + elementText + "(") || 
-            parentText.contains("function " + elementText + "(")) {
-            return true;
-        }
-        
-        // 检查是否是类定义的一部分: class ClassName
-        if (parentText.startsWith("class " + elementText) || 
-            parentText.contains("class " + elementText)) {
-            return true;
-        }
-        
-        // 检查是否是变量定义的一部分: var/let/const variableName
-        if (parentText.startsWith("var " + elementText) || 
-            parentText.contains("var " + elementText) ||
-            parentText.startsWith("let " + elementText) || 
-            parentText.contains("let " + elementText) ||
-            parentText.startsWith("const " + elementText) || 
-            parentText.contains("const " + elementText)) {
-            return true;
-        }
-        
-        return false;
+    private boolean isDefinition(com.intellij.psi.PsiFile file, String word) {
+        return ZyFileDefinitions.of(file).firstDefinition(word) >= 0;
+    }
+
+    /**
+     * 元素文本是否等于 word；长度不同时不取文本
+     */
+    private static boolean textEquals(PsiElement element, String word) {
+        if (element.getTextLength() != word.length()) return false;
+        String text = element.getText();
+        return text != null && text.equals(word);
     }
 
     /**
      * 创建导航元素（本地文件）
      */
-    private PsiElement createNavigationElement(PsiElement element, VirtualFile file, int offset, TextRange range) {
-        int safeOffset = Math.max(0, Math.min(offset, element.getContainingFile().getTextLength() - 1));
-        String display = buildDisplayLabel(element.getProject(), element.getContainingFile(), safeOffset, element.getText());
-        return new PresentedNavigationItem(element.getProject(), file, element.getContainingFile(), safeOffset, range, display);
+    private PsiElement createNavigationElement(com.intellij.psi.PsiFile psiFile, int offset, String word) {
+        int safeOffset = Math.max(0, Math.min(offset, psiFile.getTextLength() - 1));
+        String display = buildLocalLabel(psiFile, safeOffset, word);
+        return new PresentedNavigationItem(psiFile.getProject(), psiFile.getVirtualFile(), psiFile, safeOffset,
+                Math.max(1, word.length()), display, 0);
     }
 
     /**
@@ -514,7 +462,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                 com.company.plugin.index.ZySymbolIndexService.getInstance(project).findDefinitions(word, namespacePath);
             
             if (!locations.isEmpty()) {
-                LOG.info("GTD: found " + locations.size() + " definitions in memory index for '" + word + "'");
                 for (com.company.plugin.index.ZySymbolIndexService.LocationState location : locations) {
                     try {
                         // 检查是否被取消
@@ -522,10 +469,10 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                         
                         VirtualFile targetFile = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(location.filePath);
                         if (targetFile != null && !targetFile.equals(currentFile)) {
-                            PsiElement target = createCrossFileNavigationElement(project, targetFile, location.offset, word);
+                            PsiElement target = createCrossFileNavigationElement(project, targetFile, location.offset, word,
+                                    location.fqn, location.line);
                             if (target != null) {
                                 targets.add(target);
-                                LOG.info("GTD: added cross-file target: " + targetFile.getName() + ":" + location.offset);
                             }
                         }
                     } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
@@ -535,9 +482,19 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                     }
                 }
             }
-            
-            // 仅使用索引结果，不回退到全项目扫描
-            
+
+            // 符号索引未命中（如 interface/trait/const 等未登记的定义）：由三元组索引收窄候选文件后按文本查找定义处
+            if (targets.isEmpty() && namespacePath == null) {
+                for (ZyTextSearch.Match match : ZyTextSearch.find(project, word, textDefinitionPattern(word), MAX_TEXT_FALLBACK_RESULTS)) {
+                    com.intellij.openapi.progress.ProgressManager.checkCanceled();
+                    VirtualFile targetFile = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(match.filePath);
+                    if (targetFile == null || targetFile.equals(currentFile)) continue;
+                    int nameOffset = match.offset + match.length - word.length();
+                    PsiElement target = createCrossFileNavigationElement(project, targetFile, nameOffset, word, null, match.line);
+                    if (target != null) targets.add(target);
+                }
+            }
+
         } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
             // 搜索被取消，返回已找到的结果
             LOG.debug("Cross-file search cancelled, returning " + targets.size() + " results found so far");
@@ -549,49 +506,41 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         return targets;
     }
     
-    // 索引专用：移除全项目扫描回退
-    
+    // 文本兜底：定义关键字后紧跟完整单词
+    private static java.util.regex.Pattern textDefinitionPattern(String word) {
+        return java.util.regex.Pattern.compile("\\b(?:function|class|interface|trait|enum|const|var|let)\\s+"
+                + java.util.regex.Pattern.quote(word) + "(?![\\p{L}\\p{N}_])");
+    }
+
     /**
      * 创建跨文件导航元素
+     * 只记录文件、偏移与索引给出的全名和行号，不加载目标文件；PSI 在选中跳转或取所在文件时才解析
+     * @param fqn 展示用全名，未知时展示 text
+     * @param line 行号（从 1 开始），未知为 0，首次展示时再计算
      */
-    private PsiElement createCrossFileNavigationElement(Project project, VirtualFile file, int offset, String text) {
-        try {
-            com.intellij.psi.PsiFile psiFile = com.intellij.psi.PsiManager.getInstance(project).findFile(file);
-            if (psiFile == null) {
-                return null;
-            }
-            // 确保偏移量在有效范围内
-            int safeOffset = Math.max(0, Math.min(offset, psiFile.getTextLength() - 1));
-            com.intellij.openapi.util.TextRange range;
-            PsiElement targetElement = psiFile.findElementAt(safeOffset);
-            if (targetElement != null && targetElement.getTextRange() != null) {
-                range = targetElement.getTextRange();
-            } else {
-                int len = Math.max(1, text != null ? text.length() : 1);
-                range = new com.intellij.openapi.util.TextRange(safeOffset, Math.min(psiFile.getTextLength(), safeOffset + len));
-            }
-            String display = buildDisplayLabel(project, psiFile, safeOffset, text);
-            return new PresentedNavigationItem(project, file, psiFile, safeOffset, range, display);
-        } catch (Exception e) {
-            LOG.debug("createCrossFileNavigationElement failed", e);
+    private PsiElement createCrossFileNavigationElement(Project project, VirtualFile file, int offset, String text,
+                                                        @Nullable String fqn, int line) {
+        if (file == null || !file.isValid()) {
             return null;
         }
+        String display = fqn != null && !fqn.isEmpty() ? fqn : text;
+        // 属性名以 $ 展示，偏移指向 $ 之后的名字
+        int length = Math.max(1, text == null ? 1 : text.startsWith("$") ? text.length() - 1 : text.length());
+        return new PresentedNavigationItem(project, file, null, Math.max(0, offset), length, display, line);
     }
 
-    // 组装展示文本：优先 FQN（来自命名空间索引），否则 namespace\\word
-    private String buildDisplayLabel(Project project, com.intellij.psi.PsiFile psiFile, int offset, String preferred) {
-        String fqn = resolveFqnFromNamespaceIndex(project, psiFile, offset, preferred);
-        if (fqn != null && !fqn.isEmpty()) return fqn;
+    // 当前文件内目标的展示文本：位于类体内为 Class::word，否则 namespace\word（均取按 PSI 缓存的文件结构）
+    private static String buildLocalLabel(com.intellij.psi.PsiFile psiFile, int offset, String word) {
         try {
-            String ns = extractNamespace(psiFile.getText());
-            String word = preferred != null && !preferred.isEmpty()
-                ? preferred
-                : psiFile.getText().substring(Math.max(0, offset), Math.min(psiFile.getTextLength(), offset + 32)).split("[^A-Za-z0-9_\\$]")[0];
+            for (ZySymbolIndexService.ClassState cs : ZyFileDefinitions.classesOf(psiFile)) {
+                if (offset > cs.bodyStart && (cs.bodyEnd <= 0 || offset < cs.bodyEnd)) return cs.fqn + "::" + word;
+            }
+            String ns = ZyFileDefinitions.of(psiFile).namespace();
             if (ns != null && !ns.isEmpty()) return ns + "\\" + word;
-            return word;
-        } catch (Throwable t) {
-            return preferred != null ? preferred : "";
-        }
+        } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
+            throw e;
+        } catch (Throwable ignored) {}
+        return word;
     }
 
     // 相对路径
@@ -605,57 +554,48 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         } catch (Throwable t) { return vf.getPath(); }
     }
 
-    // 计算行号
-    private static int computeLineNumber(com.intellij.psi.PsiFile psiFile, int offset) {
-        try {
-            com.intellij.openapi.editor.Document doc = com.intellij.psi.PsiDocumentManager.getInstance(psiFile.getProject()).getDocument(psiFile);
-            if (doc != null) return doc.getLineNumber(Math.max(0, Math.min(offset, doc.getTextLength())) ) + 1;
-        } catch (Throwable ignored) {}
-        return 1;
-    }
-
-    // 命名空间索引解析当前偏移的符号 FQN（用于展示）
-    private String resolveFqnFromNamespaceIndex(Project project, com.intellij.psi.PsiFile psiFile, int offset, String word) {
-        try {
-            String ns = extractNamespace(psiFile.getText());
-            if (ns == null || ns.isEmpty()) return null;
-            com.company.plugin.index.ZyJsonIndexStore.DirIndex idx = com.company.plugin.index.ZyJsonIndexStore.readNamespaceIndex(project, ns);
-            if (idx == null || idx.files == null) return null;
-            String rel = getRelativePath(project, psiFile.getVirtualFile());
-            for (com.company.plugin.index.ZyJsonIndexStore.FileEntry f : idx.files) {
-                if (!rel.equals(f.path) || f.symbols == null) continue;
-                com.company.plugin.index.ZyJsonIndexStore.SymbolEntry best = null; int bestDist = Integer.MAX_VALUE;
-                for (com.company.plugin.index.ZyJsonIndexStore.SymbolEntry s : f.symbols) {
-                    int dist = Math.abs(s.offset - offset);
-                    if (dist < bestDist) { bestDist = dist; best = s; }
-                }
-                if (best != null && best.fqn != null && !best.fqn.isEmpty()) return best.fqn;
-            }
-        } catch (Throwable ignored) {}
-        return null;
-    }
 
-    // 包装的可展示导航元素
+    // 包装的可展示导航元素：不持有 PSI 时按需解析，候选列表的展示不加载目标文件
+    // isValid / getParent / 展示文本与行号只看 VirtualFile 与 Document；仅 getNavigationElement 与显式取 getContainingFile 时解析 PSI
     private static class PresentedNavigationItem extends com.intellij.psi.impl.FakePsiElement implements com.intellij.navigation.NavigationItem {
         private final Project project;
         private final VirtualFile file;
-        private final com.intellij.psi.PsiFile psiFile;
         private final int offset;
-        private final TextRange range;
+        private final int length;
         private final String display;
+        private com.intellij.psi.PsiFile psiFile;
+        private int line;
 
-        PresentedNavigationItem(Project project, VirtualFile file, com.intellij.psi.PsiFile psiFile, int offset, TextRange range, String display) {
+        PresentedNavigationItem(Project project, VirtualFile file, @Nullable com.intellij.psi.PsiFile psiFile, int offset, int length,
+                                String display, int line) {
             this.project = project;
             this.file = file;
             this.psiFile = psiFile;
             this.offset = offset;
-            this.range = range;
+            this.length = length;
             this.display = display;
+            this.line = line;
         }
 
+        @Override public Project getProject() { return project; }
+        @Override public com.intellij.psi.PsiManager getManager() { return com.intellij.psi.PsiManager.getInstance(project); }
+        // 已解析过时返回所在文件，否则为 null，不为取父节点加载目标文件
         @Override public PsiElement getParent() { return psiFile; }
-        @Override public com.intellij.psi.PsiFile getContainingFile() { return psiFile; }
-        @Override public TextRange getTextRange() { return range; }
+        @Override public boolean isValid() { return file.isValid() && (psiFile == null || psiFile.isValid()); }
+        @Override public com.intellij.psi.PsiFile getContainingFile() {
+            if (psiFile == null && file.isValid()) {
+                psiFile = com.intellij.psi.PsiManager.getInstance(project).findFile(file);
+            }
+            return psiFile;
+        }
+        // 选中后才解析：返回目标位置的叶子节点，解析失败时仍由自身导航
+        @Override public PsiElement getNavigationElement() {
+            com.intellij.psi.PsiFile f = getContainingFile();
+            PsiElement leaf = f != null ? f.findElementAt(offset) : null;
+            return leaf != null ? leaf : this;
+        }
+        @Override public TextRange getTextRange() { return new TextRange(offset, offset + length); }
+        @Override public int getTextOffset() { return offset; }
         @Override public void navigate(boolean requestFocus) {
             try {
                 OpenFileDescriptor descriptor = new OpenFileDescriptor(project, file, offset);
@@ -665,58 +605,54 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         @Override public boolean canNavigate() { return true; }
         @Override public boolean canNavigateToSource() { return true; }
         @Override public String getName() { return display; }
-        @Override public String toString() { return display + " — " + getRelativePath(project, file) + ":" + computeLineNumber(psiFile, offset); }
+        @Override public String toString() { return display + " — " + getRelativePath(project, file) + ":" + line(); }
         @Override public com.intellij.navigation.ItemPresentation getPresentation() {
-            String location = getRelativePath(project, file) + ":" + Math.max(1, computeLineNumber(psiFile, offset));
+            String location = getRelativePath(project, file) + ":" + line();
             return new com.intellij.navigation.ItemPresentation() {
                 @Override public String getPresentableText() { return display; }
                 @Override public String getLocationString() { return location; }
                 @Override public javax.swing.Icon getIcon(boolean unused) { return null; }
             };
         }
+
+        // 去重键：文件路径@偏移
+        String key() { return file.getPath() + "@" + offset; }
+
+        // 索引未提供行号时才按 Document 计算（不经过 PSI）
+        private int line() {
+            if (line <= 0) {
+                com.intellij.openapi.editor.Document doc = file.isValid()
+                        ? com.intellij.openapi.fileEditor.FileDocumentManager.getInstance().getDocument(file) : null;
+                line = doc != null ? doc.getLineNumber(Math.max(0, Math.min(offset, doc.getTextLength()))) + 1 : 1;
+            }
+            return line;
+        }
     }
     
     /**
      * 分析上下文，检查是否是成员访问
      * 按照语法分析逻辑：先分析对象类型，再分析成员访问
+     * 接收者类型由按文件缓存的类型推断给出（new、带类型参数、$this、属性类型与方法返回类型，支持 $a->b()->c 链）
      */
-    private String analyzeContextForMemberAccess(PsiElement element, String word) {
+    private String analyzeContextForMemberAccess(PsiElement element, String word, TextRange wordRange) {
         try {
             // 获取当前元素的文本
-            String elementText = element.getText();
-            if (elementText == null || !elementText.equals(word)) {
+            if (!textEquals(element, word)) {
                 return null;
             }
             
-            // 向上查找父元素，寻找成员访问模式
-            PsiElement parent = element.getParent();
-            int depth = 0;
-            while (parent != null && depth < 5) {
-                String parentText = parent.getText();
-                if (parentText != null) {
-                    // 检查是否是 new ClassName()->member 模式
-                    java.util.regex.Pattern newPattern = java.util.regex.Pattern.compile("new\\s+(\\w+)\\s*\\(\\)\\s*->\\s*" + java.util.regex.Pattern.quote(word) + "\\b");
-                    java.util.regex.Matcher matcher = newPattern.matcher(parentText);
-                    if (matcher.find()) {
-                        String className = matcher.group(1);
-                        LOG.info("GTD: found new object pattern: new " + className + "()->" + word);
-                        return className;
-                    }
-                    
-                    // 检查是否是 variable->member 模式
-                    java.util.regex.Pattern varPattern = java.util.regex.Pattern.compile("(\\w+)\\s*->\\s*" + java.util.regex.Pattern.quote(word) + "\\b");
-                    matcher = varPattern.matcher(parentText);
-                    if (matcher.find()) {
-                        String varName = matcher.group(1);
-                        LOG.info("GTD: found variable pattern: " + varName + "->" + word);
-                        // 分析变量类型，返回实际的类名
-                        return analyzeVariableType(varName, element.getContainingFile().getText());
-                    }
-                }
-                
-                parent = parent.getParent();
-                depth++;
-            }
+            com.intellij.psi.PsiFile psiFile = element.getContainingFile();
+            // 类型推断只读当前索引状态，跳转前先刷新一次
+            ZySymbolIndexService.getInstance(psiFile.getProject()).ensureUpToDate();
+            ZyTypeInference inference = ZyTypeInference.of(psiFile);
+            String type = inference.receiverType(psiFile.getProject(), wordRange.getStartOffset());
+            if (type != null) {
+                return type;
+            }
+            // variable->member 且无法确定类型时，返回变量名本身
+            return inference.receiverVariable(wordRange.getStartOffset());
+        } catch (com.intellij.openapi.progress.ProcessCanceledException e) {
+            throw e;
         } catch (Exception e) {
             LOG.debug("Error analyzing context for member access", e);
         }
@@ -724,85 +660,38 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         return null;
     }
     
-    /**
-     * 分析变量类型，返回实际的类名
-     */
-    private String analyzeVariableType(String varName, String fileText) {
-        try {
-            // 查找变量赋值语句：$varName = new ClassName()
-            java.util.regex.Pattern assignmentPattern = java.util.regex.Pattern.compile("\\$" + java.util.regex.Pattern.quote(varName) + "\\s*=\\s*new\\s+(\\w+)\\s*\\(\\)");
-            java.util.regex.Matcher matcher = assignmentPattern.matcher(fileText);
-            if (matcher.find()) {
-                String className = matcher.group(1);
-                LOG.info("GTD: found variable assignment: $" + varName + " = new " + className + "()");
-                return className;
-            }
-            
-            LOG.info("GTD: could not determine type for variable: $" + varName);
-            return varName; // 如果无法确定类型，返回变量名本身
-        } catch (Exception e) {
-            LOG.debug("Error analyzing variable type", e);
-            return varName;
-        }
-    }
-    
     /**
      * 检查是否是方法调用上下文
      * 基于语法分析：检查是否有括号 () 表示方法调用
+     * 模式：object->member(...) 或 new Class()->member(...)
      */
-    private boolean isMethodCallContext(PsiElement element, String word) {
+    private boolean isMethodCallContext(PsiElement element, String word, CharSequence text, TextRange wordRange) {
         try {
             // 获取当前元素的文本
-            String elementText = element.getText();
-            if (elementText == null || !elementText.equals(word)) {
+            if (!textEquals(element, word)) {
                 return false;
             }
             
-            LOG.info("GTD: checking method call context for word: '" + word + "'");
-            System.out.println("DEBUG: checking method call context for word: '" + word + "'");
-            
-            // 向上查找父元素，寻找方法调用模式
-            PsiElement parent = element.getParent();
-            int depth = 0;
-            while (parent != null && depth < 5) {
-                String parentText = parent.getText();
-                if (parentText != null) {
-                    LOG.info("GTD: checking parent text: '" + parentText + "'");
-                    System.out.println("DEBUG: checking parent text: '" + parentText + "'");
-                    
-                    // 检查是否包含括号，表示方法调用
-                    // 模式：object->member(...) 或 new Class()->member(...)
-                    java.util.regex.Pattern methodPattern = java.util.regex.Pattern.compile("\\w+\\s*->\\s*" + java.util.regex.Pattern.quote(word) + "\\s*\\(");
-                    java.util.regex.Matcher matcher = methodPattern.matcher(parentText);
-                    if (matcher.find()) {
-                        LOG.info("GTD: detected method call context: " + parentText.substring(0, Math.min(50, parentText.length())));
-                        System.out.println("DEBUG: detected method call context: " + parentText.substring(0, Math.min(50, parentText.length())));
-                        return true;
-                    }
-                    
-                    // 检查是否是 new Class()->member(...) 模式
-                    java.util.regex.Pattern newMethodPattern = java.util.regex.Pattern.compile("new\\s+\\w+\\s*\\(\\)\\s*->\\s*" + java.util.regex.Pattern.quote(word) + "\\s*\\(");
-                    matcher = newMethodPattern.matcher(parentText);
-                    if (matcher.find()) {
-                        LOG.info("GTD: detected new object method call context: " + parentText.substring(0, Math.min(50, parentText.length())));
-                        System.out.println("DEBUG: detected new object method call context: " + parentText.substring(0, Math.min(50, parentText.length())));
-                        return true;
-                    }
-                }
-                
-                parent = parent.getParent();
-                depth++;
+            int before = skipWhitespaceBackward(text, wordRange.getStartOffset() - 1);
+            if (before < 1 || text.charAt(before) != '>' || text.charAt(before - 1) != '-') {
+                return false;
             }
-            
-            LOG.info("GTD: no method call context detected for word: '" + word + "'");
-            System.out.println("DEBUG: no method call context detected for word: '" + word + "'");
+            int after = wordRange.getEndOffset();
+            while (after < text.length() && Character.isWhitespace(text.charAt(after))) after++;
+            return after < text.length() && text.charAt(after) == '(';
         } catch (Exception e) {
             LOG.debug("Error checking method call context", e);
         }
         
         return false;
     }
-    
+
+    // 从 i 向左跳过空白，返回第一个非空白字符位置（可能为 -1）
+    private static int skipWhitespaceBackward(CharSequence text, int i) {
+        while (i >= 0 && Character.isWhitespace(text.charAt(i))) i--;
+        return i;
+    }
+
     /**
      * 在特定类中查找成员定义
      */
@@ -812,68 +701,54 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
     
     /**
      * 在特定类中查找成员定义（带方法调用标识）
+     * - 当前文件定义了该类：取按 PSI 缓存的类结构（未保存的修改同样生效）
+     * - 否则查类成员索引：短名 -> 类 FQN -> 成员，均为哈希查询，不加载候选文件
+     * - 类本身未声明该成员时，经继承索引沿父类型链查找（$user->save() 命中父类的 save）
      */
     private List<PsiElement> findInSpecificClass(Project project, String className, String memberName, VirtualFile currentFile, boolean isMethodCall) {
         List<PsiElement> targets = new ArrayList<>();
+        String kind = isMethodCall ? ZySymbolIndexService.MemberState.METHOD : ZySymbolIndexService.MemberState.PROPERTY;
+        String display = isMethodCall ? memberName : "$" + memberName;
+        // 类型推断可能给出 FQN，当前文件中的类按短名比较
+        String classShortName = ZyTypeInference.shortName(className);
         
         try {
             // 首先在当前文件中查找类定义
-            PsiElement currentFileElement = com.intellij.psi.PsiManager.getInstance(project).findFile(currentFile);
-            if (currentFileElement != null) {
-                String fileText = currentFileElement.getText();
-                if (fileText != null) {
-                    // 查找类定义
-                    String classPattern = "class\\s+(" + java.util.regex.Pattern.quote(className) + ")\\s*\\{";
-                    java.util.regex.Pattern regex = java.util.regex.Pattern.compile(classPattern);
-                    java.util.regex.Matcher matcher = regex.matcher(fileText);
-                    
-                    if (matcher.find()) {
-                        int classStart = matcher.start(1);
-                        LOG.info("GTD: found class '" + className + "' in current file at " + classStart);
-                        
-                        // 在类定义中查找成员
-                        List<PsiElement> classMembers = findMembersInClass(fileText, classStart, memberName, currentFile, project, isMethodCall);
-                        targets.addAll(classMembers);
+            com.intellij.psi.PsiFile currentPsiFile = com.intellij.psi.PsiManager.getInstance(project).findFile(currentFile);
+            ZySymbolIndexService.ClassState localClass = null;
+            if (currentPsiFile != null) {
+                for (ZySymbolIndexService.ClassState cs : ZyFileDefinitions.classesOf(currentPsiFile)) {
+                    if (!classShortName.equals(cs.name)) continue;
+                    localClass = cs;
+                    for (ZySymbolIndexService.MemberState m : cs.members) {
+                        if (!kind.equals(m.kind) || !memberName.equals(m.name)) continue;
+                        PsiElement member = createCrossFileNavigationElement(project, currentFile, m.offset, display,
+                                cs.fqn + "::" + display, m.line);
+                        if (member != null) {
+                            targets.add(member);
+                        }
                     }
+                    // 只处理第一个同名类定义
+                    break;
                 }
             }
             
-            // 如果当前文件中没有找到，搜索其他文件
+            // 如果当前文件中没有找到，查类成员索引（含继承链）
             if (targets.isEmpty()) {
-                // 使用索引服务查找类定义
-                com.company.plugin.index.ZySymbolIndexService.getInstance(project).ensureUpToDate();
-                List<com.company.plugin.index.ZySymbolIndexService.LocationState> classLocations = 
-                    com.company.plugin.index.ZySymbolIndexService.getInstance(project).findDefinitions(className, null);
-                
-                for (com.company.plugin.index.ZySymbolIndexService.LocationState location : classLocations) {
-                    try {
-                        VirtualFile classFile = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(location.filePath);
-                        if (classFile != null && !classFile.equals(currentFile)) {
-                            PsiElement classPsiFile = com.intellij.psi.PsiManager.getInstance(project).findFile(classFile);
-                            if (classPsiFile != null) {
-                                String classFileText = classPsiFile.getText();
-                                if (classFileText != null) {
-                                    // 查找类定义
-                                    String classPattern = "class\\s+(" + java.util.regex.Pattern.quote(className) + ")\\s*\\{";
-                                    java.util.regex.Pattern regex = java.util.regex.Pattern.compile(classPattern);
-                                    java.util.regex.Matcher matcher = regex.matcher(classFileText);
-                                    
-                                    if (matcher.find()) {
-                                        int classStart = matcher.start(1);
-                                        LOG.info("GTD: found class '" + className + "' in " + classFile.getName() + " at " + classStart);
-                                        
-                                        // 在类定义中查找成员
-                                        List<PsiElement> classMembers = findMembersInClass(classFileText, classStart, memberName, classFile, project, isMethodCall);
-                                        targets.addAll(classMembers);
-                                        
-                                        // 只处理第一个找到的类定义
-                                        break;
-                                    }
-                                }
-                            }
+                ZySymbolIndexService index = ZySymbolIndexService.getInstance(project);
+                index.ensureUpToDate();
+                // 当前文件中的类从其父类型开始查找，其余按短名解析出的 FQN 查找
+                List<String> start = localClass != null ? localClass.supertypes : ZyTypeInference.resolveClassFqns(index, currentPsiFile, className);
+                for (String fqn : start) {
+                    for (ZySymbolIndexService.MemberLocation location : index.findMembersInHierarchy(fqn, memberName, kind)) {
+                        VirtualFile classFile = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(location.getFilePath());
+                        // 当前文件中的同名类已按 PSI 查过
+                        if (classFile == null || (classFile.equals(currentFile) && classShortName.equals(location.owner.name))) continue;
+                        PsiElement member = createCrossFileNavigationElement(project, classFile, location.member.offset, display,
+                                location.owner.fqn + "::" + display, location.member.line);
+                        if (member != null) {
+                            targets.add(member);
                         }
-                    } catch (Exception e) {
-                        LOG.debug("Error processing class file: " + location.filePath, e);
                     }
                 }
             }
@@ -887,85 +762,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         
         return targets;
     }
-    
-    /**
-     * 在类定义中查找成员
-     */
-    private List<PsiElement> findMembersInClass(String fileText, int classStart, String memberName, VirtualFile file, Project project) {
-        return findMembersInClass(fileText, classStart, memberName, file, project, false);
-    }
-    
-    /**
-     * 在类定义中查找成员（带方法调用标识）
-     */
-    private List<PsiElement> findMembersInClass(String fileText, int classStart, String memberName, VirtualFile file, Project project, boolean isMethodCall) {
-        List<PsiElement> members = new ArrayList<>();
-        
-        try {
-            // 找到类的开始位置（{ 之后）
-            int classBodyStart = fileText.indexOf('{', classStart);
-            if (classBodyStart == -1) {
-                return members;
-            }
-            
-            // 找到类的结束位置（匹配的 }）
-            int braceCount = 1;
-            int classBodyEnd = classBodyStart + 1;
-            while (classBodyEnd < fileText.length() && braceCount > 0) {
-                char c = fileText.charAt(classBodyEnd);
-                if (c == '{') {
-                    braceCount++;
-                } else if (c == '}') {
-                    braceCount--;
-                }
-                classBodyEnd++;
-            }
-            
-            if (classBodyEnd > classBodyStart) {
-                String classBody = fileText.substring(classBodyStart + 1, classBodyEnd - 1);
-                LOG.info("GTD: searching for member '" + memberName + "' in class body (method call: " + isMethodCall + "): " + classBody.substring(0, Math.min(100, classBody.length())));
-                
-                if (isMethodCall) {
-                    // 如果是方法调用，只查找方法定义
-                    String methodPattern = "function\\s+(" + java.util.regex.Pattern.quote(memberName) + ")\\s*\\(";
-                    java.util.regex.Pattern regex = java.util.regex.Pattern.compile(methodPattern);
-                    java.util.regex.Matcher matcher = regex.matcher(classBody);
-                    
-                    while (matcher.find()) {
-                        int relativeStart = matcher.start(1);
-                        int absoluteStart = classBodyStart + 1 + relativeStart;
-                        
-                        LOG.info("GTD: found method " + memberName + "() at " + absoluteStart);
-                        PsiElement member = createCrossFileNavigationElement(project, file, absoluteStart, memberName);
-                        if (member != null) {
-                            members.add(member);
-                        }
-                    }
-                } else {
-                    // 如果不是方法调用，只查找属性定义
-                    String propertyPattern = "\\$(" + java.util.regex.Pattern.quote(memberName) + ")\\b";
-                    java.util.regex.Pattern regex = java.util.regex.Pattern.compile(propertyPattern);
-                    java.util.regex.Matcher matcher = regex.matcher(classBody);
-                    
-                    while (matcher.find()) {
-                        int relativeStart = matcher.start(1);
-                        int absoluteStart = classBodyStart + 1 + relativeStart;
-                        
-                        LOG.info("GTD: found property $" + memberName + " at " + absoluteStart);
-                        PsiElement member = createCrossFileNavigationElement(project, file, absoluteStart, "$" + memberName);
-                        if (member != null) {
-                            members.add(member);
-                        }
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            LOG.debug("Error finding members in class", e);
-        }
-        
-        return members;
-    }
 
     /**
      * 判断是否为属性访问上下文：前面是 '->' 且后面不是 '('。
@@ -986,18 +782,6 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         }
     }
 
-    /**
-     * 简单提取当前文件 namespace，用于命名空间索引优先匹配属性。
-     */
-    private String extractNamespace(String fileText) {
-        try {
-            java.util.regex.Pattern NS = java.util.regex.Pattern.compile("(?m)^\\s*namespace\\s+([A-Za-z_\\\\][A-Za-z0-9_\\\\]*)");
-            java.util.regex.Matcher m = NS.matcher(fileText);
-            if (m.find()) return m.group(1);
-        } catch (Exception ignored) {}
-        return null;
-    }
-
     /**
      * 从命名空间 JSON 索引中查找属性定义，优先返回 kind=property 的命中。
      */
@@ -1024,7 +808,7 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
                     VirtualFile vf = com.intellij.openapi.vfs.LocalFileSystem.getInstance().findFileByPath(path);
                     if (vf == null) continue;
                     if (vf.equals(currentFile) && s.offset >= skipStart && s.offset < skipEnd) continue;
-                    PsiElement target = createCrossFileNavigationElement(project, vf, s.offset, propName);
+                    PsiElement target = createCrossFileNavigationElement(project, vf, s.offset, propName, s.fqn, 0);
                     if (target != null) targets.add(target);
                 }
             }
@@ -1065,11 +849,10 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
     /**
      * 解析 use 语句，获取真实的类名
      */
-    private String parseUseStatementsAndGetRealClassName(String fileText, String word) {
+    private String parseUseStatementsAndGetRealClassName(com.intellij.psi.PsiFile psiFile, String word) {
         try {
-            // 解析 use 语句，返回短名->命名空间全名映射
-            java.util.Map<String, String> useMap = parseUseStatements(fileText);
-            String fqn = useMap.get(word);
+            // use 语句的短名->命名空间全名映射随文件定义表一起缓存
+            String fqn = ZyFileDefinitions.of(psiFile).imports().get(word);
             if (fqn != null && !fqn.isEmpty()) {
                 // 如果有别名映射，返回完全限定名
                 return fqn;
@@ -1081,42 +864,4 @@ public class ZyGotoDeclarationHandler implements GotoDeclarationHandler {
         // 如果没有找到映射，返回原始单词
         return word;
     }
-    
-    /**
-     * 解析 use 语句，返回短名->命名空间全名映射
-     */
-    private static java.util.Map<String, String> parseUseStatements(String fileText) {
-        java.util.Map<String, String> map = new java.util.HashMap<>();
-        try {
-            // 改进的正则表达式，支持多行和更灵活的格式
-            // 匹配: use Namespace\Class; 或 use Namespace\Class as Alias;
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("(?m)^\\s*use\\s+([\\\\\\w\\\\]+)(?:\\s+as\\s+(\\w+))?\\s*;");
-            java.util.regex.Matcher matcher = pattern.matcher(fileText);
-            while (matcher.find()) {
-                String fqn = matcher.group(1);
-                String alias = matcher.group(2);
-                
-                LOG.debug("GTD: parsed use statement - FQN: '" + fqn + "', alias: '" + alias + "'");
-                
-                // 如果有别名，使用别名作为键
-                if (alias != null && !alias.isEmpty()) {
-                    map.put(alias, fqn);
-                    LOG.debug("GTD: mapped alias '" + alias + "' to FQN '" + fqn + "'");
-                } else {
-                    // 否则使用完全限定名的最后一部分作为键
-                    String[] parts = fqn.split("\\\\");
-                    if (parts.length > 0) {
-                        String shortName = parts[parts.length - 1];
-                        map.put(shortName, fqn);
-                        LOG.debug("GTD: mapped short name '" + shortName + "' to FQN '" + fqn + "'");
-                    }
-                }
-            }
-            
-            LOG.debug("GTD: parsed " + map.size() + " use statements: " + map);
-        } catch (Exception e) {
-            LOG.debug("Error parsing use statements", e);
-        }
-        return map;
-    }
 }
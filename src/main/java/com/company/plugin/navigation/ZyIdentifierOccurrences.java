@@ -0,0 +1,74 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.index.ZyOccurrenceIndex;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单文件标识符出现表：Token 文本 -> 起始偏移（升序）
+ * - 用与 PSI 相同的 ZyLexer 切分（与项目级 {@link ZyOccurrenceIndex} 共用同一切分规则），表中每一项都对应一个叶子 Token（注释、字符串中的文字不计入）
+ * - 只登记以字母、数字或下划线开头的 Token，即可能与光标单词相等的那些
+ * - 通过 CachedValuesManager 缓存在 PsiFile 上，随文件 PSI 修改自动失效
+ * 本地定义与引用的兜底查找只需一次哈希查询，不再递归遍历 PSI 并逐节点取文本
+ */
+public final class ZyIdentifierOccurrences {
+
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, int[]> occurrences;
+
+    private ZyIdentifierOccurrences(Map<String, int[]> occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * 获取文件的出现表（按 PSI 修改缓存）
+     */
+    @NotNull
+    public static ZyIdentifierOccurrences of(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () ->
+                CachedValueProvider.Result.create(build(file.getViewProvider().getContents()), file));
+    }
+
+    /**
+     * 切分文本构建出现表
+     */
+    @NotNull
+    public static ZyIdentifierOccurrences build(@NotNull CharSequence text) {
+        Map<String, int[]> map = new HashMap<>();
+        // 每个名字的已用长度，数组按倍增扩容，最后统一裁剪
+        Map<String, int[]> sizes = new HashMap<>();
+        ZyOccurrenceIndex.forEachIdentifier(text, (start, end) -> {
+            String name = text.subSequence(start, end).toString();
+            int[] size = sizes.computeIfAbsent(name, k -> new int[1]);
+            int[] offsets = map.get(name);
+            if (offsets == null) {
+                offsets = new int[2];
+            } else if (size[0] == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[size[0]++] = start;
+            map.put(name, offsets);
+        });
+        for (Map.Entry<String, int[]> e : map.entrySet()) {
+            int n = sizes.get(e.getKey())[0];
+            if (n != e.getValue().length) e.setValue(Arrays.copyOf(e.getValue(), n));
+        }
+        return new ZyIdentifierOccurrences(map);
+    }
+
+    /**
+     * 文本等于 word 的全部 Token 的起始偏移（升序，无则为空数组）
+     */
+    @NotNull
+    public int[] offsets(@NotNull String word) {
+        int[] result = occurrences.get(word);
+        return result != null ? result : NONE;
+    }
+}
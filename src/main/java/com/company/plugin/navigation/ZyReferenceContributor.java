@@ -1,65 +1,49 @@
 package com.company.plugin.navigation;
 
+import com.company.plugin.diagnostics.ZyTracer;
+import com.company.plugin.highlighting.ZyTokenTypes;
+import com.company.plugin.language.ZyLanguage;
 import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.*;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.psi.util.PsiUtilCore;
 import com.intellij.util.ProcessingContext;
 import com.intellij.openapi.util.TextRange;
-import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * ZY 引用贡献器
- * 基于纯文本 PSI，为 .zy 文件中的标识符（[A-Za-z0-9_]+）提供精确的引用范围
+ * 仅为 ZY 语言中的标识符叶子 Token 提供引用，每个 Token 至多一个，范围即 Token 本身
  * 目的：让 Alt 悬停下划线仅覆盖标识符范围，而不是整文件
+ * - 按 Token 类型判定（关键字、字符串、注释、运算符不产生引用），不做文本切分
+ * - 变量 Token（$name）的引用范围不含 '$'
  */
 public class ZyReferenceContributor extends PsiReferenceContributor {
 
+    // 可产生引用的叶子 Token 类型（查找用法的目标判定共用）
+    static final TokenSet REFERENCE_TOKENS = TokenSet.create(
+            ZyTokenTypes.IDENTIFIER,
+            ZyTokenTypes.PHP_VARIABLE,
+            ZyTokenTypes.PHP_FUNCTION,
+            ZyTokenTypes.PHP_CONSTANT);
+
     @Override
     public void registerReferenceProviders(@NotNull PsiReferenceRegistrar registrar) {
-        // 在 ZY 语言文件的纯文本元素上提供引用
         registrar.registerReferenceProvider(
-            PlatformPatterns.psiElement(PsiElement.class).inFile(PlatformPatterns.psiFile()),
+            PlatformPatterns.psiElement().withLanguage(ZyLanguage.INSTANCE).withElementType(REFERENCE_TOKENS),
             new PsiReferenceProvider() {
                 @Override
                 public PsiReference @NotNull [] getReferencesByElement(@NotNull PsiElement element, @NotNull ProcessingContext context) {
-                    VirtualFile file = element.getContainingFile() != null ? element.getContainingFile().getVirtualFile() : null;
-                    if (file == null || !file.getName().endsWith(".zy")) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
-
-                    String text = element.getText();
-                    if (text == null || text.trim().isEmpty()) {
+                    int start = PsiUtilCore.getElementType(element) == ZyTokenTypes.PHP_VARIABLE ? 1 : 0;
+                    int length = element.getTextLength();
+                    if (length <= start) {
                         return PsiReference.EMPTY_ARRAY;
                     }
-
-                    // 按行切分，避免跨行引用导致整段文本被处理
-                    java.util.List<PsiReference> references = new java.util.ArrayList<>();
-                    int base = 0;
-                    String[] lines = text.split("\n");
-                    for (String line : lines) {
-                        int i = 0;
-                        while (i < line.length()) {
-                            while (i < line.length() && !isWordChar(line.charAt(i))) i++;
-                            int start = i;
-                            while (i < line.length() && isWordChar(line.charAt(i))) i++;
-                            int end = i;
-                            if (end > start) {
-                                TextRange range = new TextRange(base + start, base + end);
-                                references.add(new ZyWordReference(element, range));
-                            }
-                        }
-                        base += line.length() + 1;
-                    }
-
-                    return references.toArray(new PsiReference[0]);
+                    return new PsiReference[]{new ZyWordReference(element, new TextRange(start, length))};
                 }
             }
         );
     }
-
-    private boolean isWordChar(char c) {
-        return Character.isLetterOrDigit(c) || c == '_';
-    }
 }
 
 /**
@@ -77,23 +61,18 @@ class ZyWordReference extends PsiReferenceBase<PsiElement> {
 
     @Override
     public PsiElement resolve() {
-        // 尝试解析引用
-        String word = getElement().getText().substring(rangeInElement.getStartOffset(), rangeInElement.getEndOffset());
-        com.intellij.openapi.diagnostic.Logger.getInstance("ZyReferenceContributor").info("Resolving reference for word: '" + word + "'");
-        
-        // 在当前文件中查找定义
-        PsiElement file = getElement().getContainingFile();
-        if (file != null) {
-            PsiElement target = findDefinitionInFile(file, word);
-            if (target != null) {
-                com.intellij.openapi.diagnostic.Logger.getInstance("ZyReferenceContributor").info("Found target: " + target.getClass().getSimpleName() + " at offset " + target.getTextOffset());
-                return target;
-            } else {
-                com.intellij.openapi.diagnostic.Logger.getInstance("ZyReferenceContributor").info("No target found for word: '" + word + "'");
+        try (ZyTracer.Span span = ZyTracer.span("reference.resolve")) {
+            // 尝试解析引用
+            String word = rangeInElement.substring(getElement().getText());
+            
+            // 在当前文件中查找定义
+            PsiFile file = getElement().getContainingFile();
+            PsiElement target = file != null ? findDefinitionInFile(file, word) : null;
+            if (span.isRecording()) {
+                span.attr("word", word).attr("resolved", target != null ? target.getTextOffset() : -1);
             }
+            return target;
         }
-        
-        return null;
     }
 
     @Override
@@ -108,42 +87,10 @@ class ZyWordReference extends PsiReferenceBase<PsiElement> {
     }
     
     /**
-     * 在文件中查找定义
+     * 在文件中查找定义：查询按 PSI 修改缓存的单文件定义表（函数优先，其次类、变量）
      */
-    private PsiElement findDefinitionInFile(PsiElement file, String word) {
-        String fileText = file.getText();
-        if (fileText == null) return null;
-        
-        // 查找函数定义
-        String functionPattern = "function\\s+(" + java.util.regex.Pattern.quote(word) + ")\\s*\\(";
-        java.util.regex.Pattern functionRegex = java.util.regex.Pattern.compile(functionPattern);
-        java.util.regex.Matcher functionMatcher = functionRegex.matcher(fileText);
-        
-        if (functionMatcher.find()) {
-            int start = functionMatcher.start(1);
-            return file.findElementAt(start);
-        }
-        
-        // 查找类定义
-        String classPattern = "class\\s+(" + java.util.regex.Pattern.quote(word) + ")\\s*[\\{]";
-        java.util.regex.Pattern classRegex = java.util.regex.Pattern.compile(classPattern);
-        java.util.regex.Matcher classMatcher = classRegex.matcher(fileText);
-        
-        if (classMatcher.find()) {
-            int start = classMatcher.start(1);
-            return file.findElementAt(start);
-        }
-        
-        // 查找变量定义
-        String varPattern = "(var|let|const)\\s+(" + java.util.regex.Pattern.quote(word) + ")\\s*[=;]";
-        java.util.regex.Pattern varRegex = java.util.regex.Pattern.compile(varPattern);
-        java.util.regex.Matcher varMatcher = varRegex.matcher(fileText);
-        
-        if (varMatcher.find()) {
-            int start = varMatcher.start(2);
-            return file.findElementAt(start);
-        }
-        
-        return null;
+    private PsiElement findDefinitionInFile(PsiFile file, String word) {
+        int offset = ZyFileDefinitions.of(file).firstDefinition(word);
+        return offset >= 0 ? file.findElementAt(offset) : null;
     }
 }
@@ -0,0 +1,186 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.diagnostics.ZyMetrics;
+import com.company.plugin.diagnostics.ZyTracer;
+import com.company.plugin.highlighting.ZyLexer;
+import com.company.plugin.highlighting.ZyTokenTypes;
+import com.company.plugin.index.ZyOccurrenceIndex;
+import com.company.plugin.index.ZySymbolIndexService;
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ZY 引用搜索（Find Usages 的数据来源）
+ * - 候选文件来自项目级出现索引（{@link ZySymbolIndexService#findFilesContaining}），再并入有未保存修改的 .zy 文档
+ * - 候选文件的读取与切分并行进行，只在创建引用时进入读操作定位叶子 Token
+ * - 变量（$name）只在所在文件内搜索，不查项目索引
+ * 结果与 Alt 悬停使用同一种 {@link ZyWordReference}，范围即标识符本身
+ */
+public class ZyReferencesSearcher extends QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters> {
+
+    private static final Logger LOG = Logger.getInstance(ZyReferencesSearcher.class);
+
+    public ZyReferencesSearcher() {
+        // 读取与切分在读操作之外并行执行，需要 PSI 的部分自行包裹读操作
+        super(false);
+    }
+
+    @Override
+    public void processQuery(@NotNull ReferencesSearch.SearchParameters params, @NotNull Processor<? super PsiReference> consumer) {
+        Target target = ReadAction.compute(() -> Target.of(params.getElementToSearch()));
+        if (target == null) return;
+        long started = ZyMetrics.start();
+        try (ZyTracer.Span span = ZyTracer.span(ZyMetrics.USAGES_SEARCH)) {
+            Map<VirtualFile, CharSequence> candidates = collectCandidates(params.getProject(), target, params.getEffectiveSearchScope());
+            // 并行切分：每个候选文件独立求出现偏移
+            Map<VirtualFile, int[]> hits = new ConcurrentHashMap<>();
+            candidates.entrySet().parallelStream().forEach(e -> {
+                int[] offsets = target.variable ? variableOccurrences(e.getValue(), target.token)
+                        : ZyOccurrenceIndex.findOccurrences(e.getValue(), target.token);
+                if (offsets.length > 0) hits.put(e.getKey(), offsets);
+            });
+            if (span.isRecording()) {
+                span.attr("word", target.token).attr("candidates", candidates.size()).attr("files", hits.size());
+            }
+            for (Map.Entry<VirtualFile, int[]> e : hits.entrySet()) {
+                List<PsiReference> refs = ReadAction.compute(() -> createReferences(params.getProject(), e.getKey(), e.getValue(), target));
+                for (PsiReference ref : refs) {
+                    if (!consumer.process(ref)) return;
+                }
+            }
+        } finally {
+            ZyMetrics.recordSince(ZyMetrics.USAGES_SEARCH, started);
+        }
+    }
+
+    /**
+     * 候选文件及其文本：未保存的文档取编辑器文本，其余按出现索引从磁盘读取
+     */
+    private static Map<VirtualFile, CharSequence> collectCandidates(Project project, Target target, SearchScope scope) {
+        Map<VirtualFile, CharSequence> candidates = new LinkedHashMap<>();
+        ReadAction.run(() -> {
+            FileDocumentManager fdm = FileDocumentManager.getInstance();
+            for (Document doc : fdm.getUnsavedDocuments()) {
+                VirtualFile vf = fdm.getFile(doc);
+                if (vf == null || !vf.getName().endsWith(".zy") || !inScope(scope, vf)) continue;
+                if (target.variable && !vf.equals(target.file)) continue;
+                candidates.put(vf, doc.getImmutableCharSequence());
+            }
+        });
+        List<VirtualFile> onDisk = new ArrayList<>();
+        if (target.variable) {
+            if (!candidates.containsKey(target.file) && inScope(scope, target.file)) onDisk.add(target.file);
+        } else {
+            LocalFileSystem lfs = LocalFileSystem.getInstance();
+            for (String path : ZySymbolIndexService.getInstance(project).findFilesContaining(target.token)) {
+                VirtualFile vf = lfs.findFileByPath(path);
+                if (vf != null && !candidates.containsKey(vf) && inScope(scope, vf)) onDisk.add(vf);
+            }
+        }
+        Map<VirtualFile, CharSequence> loaded = new ConcurrentHashMap<>();
+        onDisk.parallelStream().forEach(vf -> {
+            try {
+                loaded.put(vf, new String(vf.contentsToByteArray(), vf.getCharset()));
+            } catch (Exception e) {
+                LOG.debug("ZyReferencesSearcher: read file error " + vf.getPath(), e);
+            }
+        });
+        candidates.putAll(loaded);
+        return candidates;
+    }
+
+    private static boolean inScope(@Nullable SearchScope scope, VirtualFile vf) {
+        if (scope instanceof GlobalSearchScope) return ((GlobalSearchScope) scope).contains(vf);
+        if (scope instanceof LocalSearchScope) return ((LocalSearchScope) scope).isInScope(vf);
+        return true;
+    }
+
+    /**
+     * 在文本中查找变量 Token（含 '$'）的起始偏移
+     */
+    private static int[] variableOccurrences(CharSequence text, String token) {
+        int[] found = new int[8];
+        int n = 0;
+        ZyLexer lexer = new ZyLexer();
+        lexer.start(text, 0, text.length(), 0);
+        while (lexer.getTokenType() != null) {
+            int start = lexer.getTokenStart();
+            if (lexer.getTokenType() == ZyTokenTypes.PHP_VARIABLE && lexer.getTokenEnd() - start == token.length()
+                    && text.subSequence(start, lexer.getTokenEnd()).toString().equals(token)) {
+                if (n == found.length) found = java.util.Arrays.copyOf(found, n * 2);
+                found[n++] = start;
+            }
+            lexer.advance();
+        }
+        return java.util.Arrays.copyOf(found, n);
+    }
+
+    /**
+     * 在读操作中把偏移定位到叶子 Token 并创建引用；目标自身不计为用法
+     */
+    private static List<PsiReference> createReferences(Project project, VirtualFile vf, int[] offsets, Target target) {
+        List<PsiReference> refs = new ArrayList<>(offsets.length);
+        PsiFile psiFile = vf.isValid() ? PsiManager.getInstance(project).findFile(vf) : null;
+        if (psiFile == null) return refs;
+        int start = target.variable ? 1 : 0;
+        for (int offset : offsets) {
+            if (vf.equals(target.file) && offset == target.offset) continue;
+            PsiElement leaf = psiFile.findElementAt(offset);
+            if (leaf == null || leaf.getTextLength() != target.token.length()) continue;
+            refs.add(new ZyWordReference(leaf, new TextRange(start, leaf.getTextLength())));
+        }
+        return refs;
+    }
+
+    /**
+     * 搜索目标：Token 文本（变量含 '$'）、所在文件与偏移
+     */
+    private static final class Target {
+        final String token;
+        final boolean variable;
+        final VirtualFile file;
+        final int offset;
+
+        private Target(String token, boolean variable, VirtualFile file, int offset) {
+            this.token = token;
+            this.variable = variable;
+            this.file = file;
+            this.offset = offset;
+        }
+
+        @Nullable
+        static Target of(@Nullable PsiElement element) {
+            if (!ZyFindUsagesProvider.isUsageTarget(element)) return null;
+            PsiFile file = element.getContainingFile();
+            VirtualFile vf = file != null ? file.getVirtualFile() : null;
+            if (vf == null) return null;
+            boolean variable = PsiUtilCore.getElementType(element) == ZyTokenTypes.PHP_VARIABLE;
+            return new Target(element.getText(), variable, vf, element.getTextRange().getStartOffset());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.index.ZyTextSearch;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.SimpleListCellRenderer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * 在 ZY 源码中搜索文本
+ * 候选文件由三元组索引收窄后并行核对原文，结果以列表弹出，选中即跳转
+ */
+public class ZySearchInSourcesAction extends AnAction {
+
+    // 弹出列表最多展示的匹配数
+    private static final int MAX_RESULTS = 500;
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        String selected = editor != null ? editor.getSelectionModel().getSelectedText() : null;
+        String query = Messages.showInputDialog(project, "要搜索的文本（区分大小写）", "在 ZY 源码中搜索",
+                Messages.getQuestionIcon(), selected != null ? selected.trim() : "", null);
+        if (query == null || query.isEmpty()) return;
+
+        List<ZyTextSearch.Match> matches = ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                () -> ZyTextSearch.find(project, query, MAX_RESULTS), "在 ZY 源码中搜索", true, project);
+        if (matches == null || matches.isEmpty()) {
+            Messages.showInfoMessage(project, "未找到 \"" + query + "\"", "在 ZY 源码中搜索");
+            return;
+        }
+        String base = project.getBasePath();
+        JBPopupFactory.getInstance()
+                .createPopupChooserBuilder(matches)
+                .setTitle("\"" + query + "\"：" + matches.size() + (matches.size() >= MAX_RESULTS ? "+" : "") + " 处")
+                .setRenderer(SimpleListCellRenderer.<ZyTextSearch.Match>create("", m -> label(base, m)))
+                .setNamerForFiltering(m -> label(base, m))
+                .setItemChosenCallback(m -> {
+                    VirtualFile file = LocalFileSystem.getInstance().findFileByPath(m.filePath);
+                    if (file != null) new OpenFileDescriptor(project, file, m.offset).navigate(true);
+                })
+                .createPopup()
+                .showCenteredInCurrentWindow(project);
+    }
+
+    // 列表项文本：相对路径:行号  行内容
+    private static String label(String base, ZyTextSearch.Match m) {
+        String path = base != null && m.filePath.startsWith(base + "/") ? m.filePath.substring(base.length() + 1) : m.filePath;
+        return path + ":" + m.line + "  " + m.lineText;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
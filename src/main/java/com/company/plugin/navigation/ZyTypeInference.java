@@ -0,0 +1,559 @@
+package com.company.plugin.navigation;
+
+import com.company.plugin.index.ZyClassScanner;
+import com.company.plugin.index.ZySymbolIndexService;
+import com.company.plugin.language.ZyTokenScanner;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成员访问链的类型推断
+ * - 一次扫描把文件切成 token 数组（跳过空白与注释，与词法分析器、ZyClassScanner 共用 {@link ZyTokenScanner}），并登记每个函数的参数与函数体范围
+ * - 变量类型来源：$v = new X()、带类型的参数（Foo $p）、catch (E $e)、$this（所在类）、$v = 另一条成员访问链
+ * - 链 $a->b()->c 从右向左求值：接收者类型 + 方法返回类型 / 属性类型，后两者先查当前文件的类结构，再查类成员索引（含继承）
+ * - token 表按 PsiFile 缓存，随文件修改失效；每个函数体的变量表首次查询时才建立并记忆化，类索引变化后丢弃
+ *   （变量表挂在文件级的 token 表上，按函数的 token 范围区分；任一处修改都会重建整个文件的 token 表，因此不跨修改保留单个函数的变量表）
+ */
+public final class ZyTypeInference {
+
+    private static final byte IDENT = 0;
+    private static final byte VARIABLE = 1;
+    private static final byte PUNCT = 2;
+    private static final byte LITERAL = 3;
+
+    // 链求值的最大递归深度（变量互相赋值形成环时兜底）
+    private static final int MAX_DEPTH = 16;
+
+    private final PsiFile file;
+    private final CharSequence text;
+    private int count;
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private byte[] kinds = new byte[256];
+    // token 之前是否有换行（无分号写法按换行结束语句）
+    private final BitSet newlineBefore = new BitSet();
+    // 函数按 function 关键字的 token 下标登记
+    private final List<Function> functions = new ArrayList<>();
+    private final Map<Integer, Function> functionsByKeyword = new HashMap<>();
+
+    // 函数体（null 键为顶层代码）-> 变量表；依赖类索引，索引修改计数变化时整体丢弃
+    private final Map<Function, Map<String, List<Binding>>> scopes = new HashMap<>();
+    private long indexStamp = -1;
+
+    private ZyTypeInference(@NotNull PsiFile file, @NotNull CharSequence text) {
+        this.file = file;
+        this.text = text;
+        tokenize();
+        collectFunctions();
+    }
+
+    /**
+     * 获取文件的类型推断器（按 PSI 修改缓存）
+     */
+    @NotNull
+    public static ZyTypeInference of(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () ->
+                CachedValueProvider.Result.create(new ZyTypeInference(file, file.getViewProvider().getContents()), file));
+    }
+
+    /**
+     * 推断 "接收者->member" 中接收者的类名
+     * @param memberStart 成员名在文件中的起始偏移
+     * @return 类名（当前文件中的写法或索引中的 FQN）；不是成员访问或无法推断时返回 null
+     */
+    @Nullable
+    public synchronized String receiverType(@Nullable Project project, int memberStart) {
+        int k = tokenAt(memberStart);
+        if (k < 3 || !isArrow(k - 2)) return null;
+        return receiverTypeBeforeArrow(project, k - 2);
+    }
+
+    /**
+     * 推断光标处成员补全（"接收者->" 或 "接收者->前缀"）中接收者的类名
+     * @param offset 光标偏移
+     * @return 类名；光标不在成员访问位置或无法推断时返回 null
+     */
+    @Nullable
+    public synchronized String completionReceiverType(@Nullable Project project, int offset) {
+        // 光标前最后一个 token
+        int k = Arrays.binarySearch(starts, 0, count, offset);
+        int last = (k >= 0 ? k : -k - 1) - 1;
+        if (last >= 0 && kinds[last] == IDENT && ends[last] == offset) last--;
+        if (last < 2 || !isArrow(last - 1)) return null;
+        return receiverTypeBeforeArrow(project, last - 1);
+    }
+
+    // arrow 为 "->" 中 '-' 的 token 下标
+    private String receiverTypeBeforeArrow(@Nullable Project project, int arrow) {
+        ZySymbolIndexService index = project != null ? ZySymbolIndexService.getInstance(project) : null;
+        if (index != null) {
+            long stamp = index.getClassGeneration();
+            if (stamp != indexStamp) {
+                scopes.clear();
+                indexStamp = stamp;
+            }
+        }
+        return exprType(index, arrow - 1, 0);
+    }
+
+    /**
+     * 接收者是否为普通变量（$v->member）；类型未能推断时调用方据此退回按变量名处理
+     */
+    @Nullable
+    public String receiverVariable(int memberStart) {
+        int k = tokenAt(memberStart);
+        if (k < 3 || !isArrow(k - 2) || kinds[k - 3] != VARIABLE) return null;
+        return text.subSequence(starts[k - 3] + 1, ends[k - 3]).toString();
+    }
+
+    /**
+     * 类短名解析为候选 FQN：已是限定名直接返回；use 导入优先，其次当前命名空间，无法确定时返回全部同名类
+     * 只读当前索引状态，不触发刷新（需要最新索引的调用方先自行 ensureUpToDate）
+     */
+    @NotNull
+    public static List<String> resolveClassFqns(@NotNull ZySymbolIndexService index, @Nullable PsiFile file, @NotNull String className) {
+        if (className.indexOf('\\') >= 0) {
+            return Collections.singletonList(className.startsWith("\\") ? className.substring(1) : className);
+        }
+        List<String> all = index.peekClassFqns(className);
+        if (all.size() <= 1 || file == null) return all;
+        ZyFileDefinitions definitions = ZyFileDefinitions.of(file);
+        String imported = definitions.imports().get(className);
+        if (imported != null) {
+            String fqn = imported.startsWith("\\") ? imported.substring(1) : imported;
+            if (all.contains(fqn)) return Collections.singletonList(fqn);
+        }
+        String ns = definitions.namespace();
+        if (ns != null && all.contains(ns + "\\" + className)) {
+            return Collections.singletonList(ns + "\\" + className);
+        }
+        return all;
+    }
+
+    /**
+     * 类名的最后一段（去掉命名空间）
+     */
+    @NotNull
+    public static String shortName(@NotNull String className) {
+        return className.substring(className.lastIndexOf('\\') + 1);
+    }
+
+    // ---- 链求值 ----
+
+    /**
+     * 以下标 j 结尾的表达式的类型
+     */
+    @Nullable
+    private String exprType(@Nullable ZySymbolIndexService index, int j, int depth) {
+        if (j < 0 || depth > MAX_DEPTH) return null;
+        switch (kinds[j]) {
+            case VARIABLE: {
+                if (textIs(j, "$this")) return enclosingClass(starts[j]);
+                return variableType(index, j, depth);
+            }
+            case IDENT: {
+                int q = qualifiedNameStart(j);
+                if (q > 0 && textIs(q - 1, "new")) return typeText(q, j);
+                // 属性访问 ->name
+                if (isArrow(j - 2)) {
+                    return memberType(index, exprType(index, j - 3, depth + 1), tokenText(j, j), ZySymbolIndexService.MemberState.PROPERTY);
+                }
+                return null;
+            }
+            case PUNCT: {
+                if (!isPunct(j, ')')) return null;
+                int p = matchOpenParen(j);
+                if (p <= 0) return null;
+                int nameEnd = p - 1;
+                if (kinds[nameEnd] != IDENT) {
+                    // 括号表达式：(new X())->m
+                    return exprType(index, j - 1, depth + 1);
+                }
+                int nameStart = qualifiedNameStart(nameEnd);
+                int q = nameStart - 1;
+                String name = typeText(nameStart, nameEnd);
+                if (q >= 0 && textIs(q, "new")) return name;
+                if (isArrow(q - 1)) {
+                    return memberType(index, exprType(index, q - 2, depth + 1), name, ZySymbolIndexService.MemberState.METHOD);
+                }
+                if (q >= 2 && isPunct(q, ':') && isPunct(q - 1, ':') && kinds[q - 2] == IDENT) {
+                    // 静态调用 X::create()
+                    return memberType(index, staticClass(q - 2), name, ZySymbolIndexService.MemberState.METHOD);
+                }
+                return null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 下标 j 处变量在该位置可见的类型：取所在函数体中位于 j 之前的最后一次赋值（或参数声明）
+     */
+    @Nullable
+    private String variableType(@Nullable ZySymbolIndexService index, int j, int depth) {
+        Function fn = functionAt(j);
+        List<Binding> bindings = scope(fn).get(tokenText(j, j));
+        if (bindings == null) return null;
+        for (int b = bindings.size() - 1; b >= 0; b--) {
+            Binding binding = bindings.get(b);
+            // 跳过之后的赋值，以及 j 所在的赋值语句本身（$a = $a->next()）
+            if (binding.at >= j || (j >= binding.from && j <= binding.to)) continue;
+            if (binding.resolved) return binding.type;
+            if (binding.resolving) return null;
+            binding.resolving = true;
+            try {
+                binding.type = binding.declared != null ? binding.declared : exprType(index, binding.to, depth + 1);
+                if (binding.type != null && ZyClassScanner.isBuiltinType(binding.type)) binding.type = null;
+                binding.resolved = true;
+            } finally {
+                binding.resolving = false;
+            }
+            return binding.type;
+        }
+        return null;
+    }
+
+    /**
+     * 类 owner 的成员 name 的声明类型（方法返回类型或属性类型），内置类型视为无法推断
+     */
+    @Nullable
+    private String memberType(@Nullable ZySymbolIndexService index, @Nullable String owner, String name, String kind) {
+        if (owner == null) return null;
+        String type = null;
+        boolean found = false;
+        List<String> start = null;
+        ZySymbolIndexService.ClassState local = localClass(owner);
+        if (local != null) {
+            for (ZySymbolIndexService.MemberState m : local.members) {
+                if (kind.equals(m.kind) && name.equals(m.name)) {
+                    type = m.type;
+                    found = true;
+                    break;
+                }
+            }
+            start = local.supertypes;
+        }
+        if (!found && index != null) {
+            if (start == null) start = resolveClassFqns(index, file, owner);
+            for (String fqn : start) {
+                for (ZySymbolIndexService.MemberLocation location : index.peekMembersInHierarchy(fqn, name, kind)) {
+                    if (location.member.type != null) {
+                        type = location.member.type;
+                        break;
+                    }
+                }
+                if (type != null) break;
+            }
+        }
+        return type == null || ZyClassScanner.isBuiltinType(type) ? null : type;
+    }
+
+    // 当前文件中与 owner 同名的类（owner 为限定名时要求 FQN 一致）
+    @Nullable
+    private ZySymbolIndexService.ClassState localClass(String owner) {
+        String shortName = shortName(owner);
+        boolean qualified = owner.indexOf('\\') >= 0;
+        for (ZySymbolIndexService.ClassState cs : ZyFileDefinitions.classesOf(file)) {
+            if (!shortName.equals(cs.name)) continue;
+            if (qualified && !owner.equals(cs.fqn)) continue;
+            return cs;
+        }
+        return null;
+    }
+
+    // 包含 offset 的类的 FQN
+    @Nullable
+    private String enclosingClass(int offset) {
+        for (ZySymbolIndexService.ClassState cs : ZyFileDefinitions.classesOf(file)) {
+            if (offset > cs.bodyStart && (cs.bodyEnd <= 0 || offset < cs.bodyEnd)) return cs.fqn;
+        }
+        return null;
+    }
+
+    // X::m() 中的类：self / static 为所在类，parent 为所在类的第一个父类型
+    @Nullable
+    private String staticClass(int j) {
+        String name = typeText(qualifiedNameStart(j), j);
+        if ("self".equals(name) || "static".equals(name)) return enclosingClass(starts[j]);
+        if ("parent".equals(name)) {
+            String cls = enclosingClass(starts[j]);
+            ZySymbolIndexService.ClassState local = cls != null ? localClass(cls) : null;
+            return local != null && !local.supertypes.isEmpty() ? local.supertypes.get(0) : null;
+        }
+        return name;
+    }
+
+    // ---- 函数体变量表 ----
+
+    /**
+     * 函数（或顶层代码，fn 为 null）的变量表，首次访问时扫描其 token 范围建立
+     */
+    private Map<String, List<Binding>> scope(@Nullable Function fn) {
+        Map<String, List<Binding>> bindings = scopes.get(fn);
+        if (bindings != null) return bindings;
+        bindings = new HashMap<>();
+        if (fn != null) collectParameters(fn, bindings);
+        int from = fn != null ? fn.bodyOpen + 1 : 0;
+        int to = fn != null ? fn.bodyClose : count;
+        for (int i = from; i < to; i++) {
+            Function nested = functionsByKeyword.get(i);
+            if (nested != null) {
+                // 嵌套函数（闭包）有自己的变量表
+                if (nested.bodyClose > i) i = nested.bodyClose;
+                continue;
+            }
+            if (kinds[i] == VARIABLE && i + 2 < to && isPunct(i + 1, '=')
+                    && !isPunct(i + 2, '=') && !isPunct(i + 2, '>')) {
+                int end = statementEnd(i + 2, to);
+                if (end >= i + 2) add(bindings, tokenText(i, i), new Binding(i, i + 2, end, null));
+            } else if (kinds[i] == IDENT && textIs(i, "catch") && i + 3 < to && isPunct(i + 1, '(')) {
+                // catch (Type $e)
+                int v = i + 2;
+                while (v < to && (kinds[v] == IDENT || isPunct(v, '\\') || isPunct(v, '|'))) v++;
+                if (v < to && kinds[v] == VARIABLE && v > i + 2 && kinds[v - 1] == IDENT) {
+                    add(bindings, tokenText(v, v), new Binding(v, v, v, typeText(qualifiedNameStart(v - 1), v - 1)));
+                }
+            }
+        }
+        scopes.put(fn, bindings);
+        return bindings;
+    }
+
+    // 参数列表中带类型的参数：[修饰符] [?]Type [&][...]$name [= 默认值]
+    private void collectParameters(Function fn, Map<String, List<Binding>> bindings) {
+        int depth = 0;
+        for (int i = fn.paramsOpen + 1; i < fn.paramsClose; i++) {
+            if (isPunct(i, '(') || isPunct(i, '[')) depth++;
+            else if (isPunct(i, ')') || isPunct(i, ']')) depth--;
+            if (depth != 0 || kinds[i] != VARIABLE) continue;
+            int t = i - 1;
+            while (t > fn.paramsOpen && (isPunct(t, '&') || isPunct(t, '.'))) t--;
+            if (t <= fn.paramsOpen || kinds[t] != IDENT) continue;
+            String type = typeText(qualifiedNameStart(t), t);
+            add(bindings, tokenText(i, i), new Binding(-1, i, i, type));
+        }
+    }
+
+    // 赋值右侧从 from 开始，返回其最后一个 token 的下标：顶层的 ; , 或多余的右括号结束，换行结束（下一行以 -> 续写除外）
+    private int statementEnd(int from, int limit) {
+        int depth = 0;
+        int i = from;
+        for (; i < limit; i++) {
+            if (i > from && depth == 0 && newlineBefore.get(i) && !isArrow(i)) break;
+            if (kinds[i] != PUNCT) continue;
+            char c = text.charAt(starts[i]);
+            if (c == '(' || c == '[' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}') {
+                if (depth == 0) break;
+                depth--;
+            } else if ((c == ';' || c == ',') && depth == 0) {
+                break;
+            }
+        }
+        return i - 1;
+    }
+
+    private static void add(Map<String, List<Binding>> bindings, String name, Binding binding) {
+        bindings.computeIfAbsent(name, k -> new ArrayList<>(2)).add(binding);
+    }
+
+    // 包含下标 j 的最内层函数体；不在任何函数体内返回 null
+    @Nullable
+    private Function functionAt(int j) {
+        Function best = null;
+        for (Function fn : functions) {
+            if (fn.paramsOpen > j) break;
+            if ((j > fn.bodyOpen && j < fn.bodyClose) || (j > fn.paramsOpen && j < fn.paramsClose)) best = fn;
+        }
+        return best;
+    }
+
+    // ---- 扫描 ----
+
+    /**
+     * 登记全部带函数体的 function（含闭包），按出现顺序
+     */
+    private void collectFunctions() {
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] != IDENT || !textIs(i, "function")) continue;
+            int p = i + 1;
+            if (p < count && kinds[p] == IDENT) p++;
+            if (p >= count || !isPunct(p, '(')) continue;
+            int close = matchCloseParen(p);
+            if (close < 0) continue;
+            // 返回类型与闭包的 use (...) 之后是函数体；遇到 ; 为抽象方法
+            int b = close + 1;
+            while (b < count && !isPunct(b, '{') && !isPunct(b, ';')) {
+                if (isPunct(b, '(')) {
+                    int c = matchCloseParen(b);
+                    if (c < 0) break;
+                    b = c;
+                }
+                b++;
+            }
+            if (b >= count || !isPunct(b, '{')) continue;
+            int end = matchCloseBrace(b);
+            Function fn = new Function(p, close, b, end < 0 ? count : end);
+            functions.add(fn);
+            functionsByKeyword.put(i, fn);
+        }
+    }
+
+    private int matchCloseParen(int open) {
+        int depth = 0;
+        for (int i = open; i < count; i++) {
+            if (isPunct(i, '(')) depth++;
+            else if (isPunct(i, ')') && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    private int matchOpenParen(int close) {
+        int depth = 0;
+        for (int i = close; i >= 0; i--) {
+            if (isPunct(i, ')')) depth++;
+            else if (isPunct(i, '(') && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    private int matchCloseBrace(int open) {
+        int depth = 0;
+        for (int i = open; i < count; i++) {
+            if (isPunct(i, '{')) depth++;
+            else if (isPunct(i, '}') && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    // 以 end 结尾的限定名 A\B\C 的起始下标（各段紧邻，new \A\B 中的 new 不计入）
+    private int qualifiedNameStart(int end) {
+        int i = end;
+        while (i >= 2 && isPunct(i - 1, '\\') && kinds[i - 2] == IDENT && ends[i - 2] == starts[i - 1]) i -= 2;
+        if (i >= 1 && isPunct(i - 1, '\\')) i--;
+        return i;
+    }
+
+    // 下标 i、i+1 是否组成 ->
+    private boolean isArrow(int i) {
+        return i >= 0 && i + 1 < count && isPunct(i, '-') && isPunct(i + 1, '>') && ends[i] == starts[i + 1];
+    }
+
+    private boolean isPunct(int i, char c) {
+        return i >= 0 && i < count && kinds[i] == PUNCT && text.charAt(starts[i]) == c;
+    }
+
+    private boolean textIs(int i, String s) {
+        int len = ends[i] - starts[i];
+        if (len != s.length()) return false;
+        for (int k = 0; k < len; k++) {
+            if (text.charAt(starts[i] + k) != s.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private String tokenText(int from, int to) {
+        return text.subSequence(starts[from], ends[to]).toString();
+    }
+
+    // 类型名文本，去掉全局限定的前导 \
+    private String typeText(int from, int to) {
+        String name = tokenText(from, to);
+        return name.startsWith("\\") ? name.substring(1) : name;
+    }
+
+    // 起始偏移恰为 offset 的 token 下标，无则 -1
+    private int tokenAt(int offset) {
+        int k = Arrays.binarySearch(starts, 0, count, offset);
+        return k >= 0 ? k : -1;
+    }
+
+    /**
+     * 切分 token：标识符、$变量、字符串/数字字面量与单字符符号，跳过空白与注释（规则见 {@link ZyTokenScanner}）
+     */
+    private void tokenize() {
+        ZyTokenScanner scanner = new ZyTokenScanner(text);
+        while (scanner.nextSignificant()) {
+            byte kind;
+            switch (scanner.kind()) {
+                case ZyTokenScanner.IDENTIFIER:
+                    kind = IDENT;
+                    break;
+                case ZyTokenScanner.VARIABLE:
+                    kind = VARIABLE;
+                    break;
+                case ZyTokenScanner.STRING:
+                case ZyTokenScanner.NUMBER:
+                    kind = LITERAL;
+                    break;
+                default:
+                    kind = PUNCT;
+                    break;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                kinds = Arrays.copyOf(kinds, count * 2);
+            }
+            if (scanner.newlineBefore()) newlineBefore.set(count);
+            starts[count] = scanner.start();
+            ends[count] = scanner.end();
+            kinds[count] = kind;
+            count++;
+        }
+    }
+
+    /**
+     * 带函数体的函数：参数括号与函数体花括号的 token 下标
+     */
+    private static final class Function {
+        final int paramsOpen;
+        final int paramsClose;
+        final int bodyOpen;
+        final int bodyClose;
+
+        Function(int paramsOpen, int paramsClose, int bodyOpen, int bodyClose) {
+            this.paramsOpen = paramsOpen;
+            this.paramsClose = paramsClose;
+            this.bodyOpen = bodyOpen;
+            this.bodyClose = bodyClose;
+        }
+    }
+
+    /**
+     * 变量的一次赋值或声明；右侧类型首次查询时求值并记忆化
+     */
+    private static final class Binding {
+        // 变量 token 下标（参数为 -1，对整个函数体可见）
+        final int at;
+        // 赋值右侧的 token 范围
+        final int from;
+        final int to;
+        // 显式声明的类型（参数、catch）
+        final String declared;
+        String type;
+        boolean resolved;
+        boolean resolving;
+
+        Binding(int at, int from, int to, String declared) {
+            this.at = at;
+            this.from = from;
+            this.to = to;
+            this.declared = declared;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.company.plugin.completion;
+
+import com.company.plugin.index.ZySymbolIndexService;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * 测试补全其他命名空间的类时自动导入：加入 use、同命名空间不导入、短名冲突时写完全限定名
+ */
+public class ZyAutoImportTest extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        myFixture.addFileToProject("lib/WidgetFactory.zy", "namespace Lib\nclass WidgetFactory {\n}\n");
+        // 补全只读名表、不触发刷新；先重建索引，使新加入的文件立即可见
+        ZySymbolIndexService index = ZySymbolIndexService.getInstance(getProject());
+        index.invalidate();
+        index.ensureUpToDate();
+    }
+
+    public void testAddsUseAfterNamespace() {
+        complete("namespace App\n\nclass Main {\n    function f() {\n        $x = new WidgetFac<caret>\n    }\n}\n");
+        myFixture.checkResult("namespace App\n\nuse Lib\\WidgetFactory;\n\nclass Main {\n    function f() {\n        $x = new WidgetFactory\n    }\n}\n");
+    }
+
+    public void testAppendsAfterExistingUse() {
+        complete("namespace App\nuse Lib\\Other;\n\n$x = new WidgetFac<caret>\n");
+        myFixture.checkResult("namespace App\nuse Lib\\Other;\nuse Lib\\WidgetFactory;\n\n$x = new WidgetFactory\n");
+    }
+
+    public void testSameNamespaceIsNotImported() {
+        complete("namespace Lib\n\n$x = new WidgetFac<caret>\n");
+        myFixture.checkResult("namespace Lib\n\n$x = new WidgetFactory\n");
+    }
+
+    public void testConflictingShortNameIsQualified() {
+        complete("namespace App\nuse Vendor\\WidgetFactory;\n\n$x = new WidgetFac<caret>\n");
+        myFixture.checkResult("namespace App\nuse Vendor\\WidgetFactory;\n\n$x = new \\Lib\\WidgetFactory\n");
+    }
+
+    private void complete(String text) {
+        myFixture.configureByText("main.zy", text);
+        // 只有一个候选时直接插入，不弹出列表
+        assertNull("expected the single class candidate to be inserted", myFixture.completeBasic());
+    }
+}
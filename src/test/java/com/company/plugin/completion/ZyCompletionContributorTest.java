@@ -0,0 +1,36 @@
+package com.company.plugin.completion;
+
+import com.company.plugin.index.ZySymbolIndexService;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.List;
+
+/**
+ * 测试项目符号补全：类名来自类结构扫描，类头带 extends / implements 的类与接口同样可补全
+ */
+public class ZyCompletionContributorTest extends BasePlatformTestCase {
+
+    public void testCompletesClassDeclaredWithExtends() {
+        myFixture.addFileToProject("lib/Widgets.zy", "namespace lib\n" +
+                "class WidgetBase {\n}\n" +
+                "class WidgetButton extends WidgetBase implements WidgetShape {\n}\n" +
+                "interface WidgetShape {\n}\n");
+        refreshIndex();
+
+        myFixture.configureByText("main.zy", "namespace lib\n$w = new Widget<caret>\n");
+        myFixture.completeBasic();
+        List<String> items = myFixture.getLookupElementStrings();
+        assertNotNull("expected a lookup with several widget classes", items);
+        assertTrue("class with extends should be offered: " + items, items.contains("WidgetButton"));
+        assertTrue("interface should be offered: " + items, items.contains("WidgetShape"));
+        assertTrue("plain class should be offered: " + items, items.contains("WidgetBase"));
+        assertEquals("each class is offered once", 1, items.stream().filter("WidgetButton"::equals).count());
+    }
+
+    // 补全只读名表、不触发刷新；先重建索引，使新加入的文件立即可见
+    private void refreshIndex() {
+        ZySymbolIndexService index = ZySymbolIndexService.getInstance(getProject());
+        index.invalidate();
+        index.ensureUpToDate();
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.plugin.completion;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.List;
+
+/**
+ * 测试变量补全：所在函数的参数与光标前的局部变量，闭包与顶层代码各自成作用域
+ */
+public class ZyVariableCompletionTest extends BasePlatformTestCase {
+
+    public void testParametersAndEarlierLocalsOfMethod() {
+        List<String> items = complete("class A {\n" +
+                "    public function run(int $count, $raw) {\n" +
+                "        $total = 1\n" +
+                "        if ($count) { $<caret> }\n" +
+                "        $later = 2\n" +
+                "    }\n" +
+                "    public static function other() { $q = 1 }\n" +
+                "}\n");
+        assertTrue(items.toString(), items.containsAll(List.of("$count", "$raw", "$total", "$this")));
+        assertFalse("assigned after the caret", items.contains("$later"));
+        assertFalse("local of another method", items.contains("$q"));
+    }
+
+    public void testClosureSeesParametersAndUseList() {
+        List<String> items = complete("function run($outer) {\n" +
+                "    $total = 1\n" +
+                "    $fn = function ($x) use ($total) { $inner = $x; $<caret> }\n" +
+                "}\n");
+        assertTrue(items.toString(), items.containsAll(List.of("$x", "$total", "$inner")));
+        assertFalse("closure does not see the enclosing function's parameters", items.contains("$outer"));
+        assertFalse("closure is not a method", items.contains("$this"));
+    }
+
+    public void testTopLevelSkipsFunctionAndClassBodies() {
+        List<String> items = complete("$first = 1\n" +
+                "function f($p) { $local = 2 }\n" +
+                "class B { public $prop }\n" +
+                "$second = B::class\n" +
+                "$<caret>\n" +
+                "$after = 3\n");
+        assertTrue(items.toString(), items.containsAll(List.of("$first", "$second")));
+        assertFalse(items.contains("$p"));
+        assertFalse(items.contains("$local"));
+        assertFalse(items.contains("$prop"));
+        assertFalse(items.contains("$after"));
+    }
+
+    private List<String> complete(String text) {
+        myFixture.configureByText("vars.zy", text);
+        myFixture.completeBasic();
+        List<String> items = myFixture.getLookupElementStrings();
+        assertNotNull("expected a lookup with several variables", items);
+        return items;
+    }
+}
@@ -0,0 +1,62 @@
+package com.company.plugin.index;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.List;
+
+/**
+ * 测试 ZyClassScanner 的类层级提取：extends / implements / trait use 与成员
+ */
+public class ZyClassScannerTest extends BasePlatformTestCase {
+
+    private static final String CODE = "namespace app\\model\n" +
+            "use base\\Model\n" +
+            "interface Named {\n" +
+            "    public function name(): string;\n" +
+            "}\n" +
+            "trait Stamped {\n" +
+            "    public string $createdAt\n" +
+            "    public function touch(): void {}\n" +
+            "}\n" +
+            "class User extends Model implements Named, \\Countable {\n" +
+            "    use Stamped\n" +
+            "    private int $id = 1\n" +
+            "    public function name(): string { $local = 1; return \"}\"; }\n" +
+            "}\n";
+
+    public void testSupertypesResolvedToFqn() {
+        ZySymbolIndexService.ClassState user = find(ZyClassScanner.scan(CODE), "User");
+        assertEquals("class", user.kind);
+        assertEquals("app\\model\\User", user.fqn);
+        assertEquals(List.of("base\\Model", "app\\model\\Named", "Countable", "app\\model\\Stamped"), user.supertypes);
+    }
+
+    public void testTraitDeclarationIsIndexed() {
+        ZySymbolIndexService.ClassState stamped = find(ZyClassScanner.scan(CODE), "Stamped");
+        assertEquals("trait", stamped.kind);
+        assertEquals("app\\model\\Stamped", stamped.fqn);
+        assertEquals(List.of("createdAt", "touch"), names(stamped));
+    }
+
+    public void testMembersSkipMethodBodies() {
+        List<ZySymbolIndexService.ClassState> classes = ZyClassScanner.scan(CODE);
+        assertEquals(3, classes.size());
+        ZySymbolIndexService.ClassState user = find(classes, "User");
+        assertEquals(List.of("id", "name"), names(user));
+        assertEquals("int", user.members.get(0).type);
+        assertEquals("string", user.members.get(1).type);
+        assertEquals(12, user.members.get(0).line);
+    }
+
+    private static ZySymbolIndexService.ClassState find(List<ZySymbolIndexService.ClassState> classes, String name) {
+        for (ZySymbolIndexService.ClassState cs : classes) {
+            if (name.equals(cs.name)) return cs;
+        }
+        fail("class not scanned: " + name);
+        return null;
+    }
+
+    private static List<String> names(ZySymbolIndexService.ClassState cs) {
+        return cs.members.stream().map(m -> m.name).toList();
+    }
+}
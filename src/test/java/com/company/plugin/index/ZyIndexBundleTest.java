@@ -0,0 +1,107 @@
+package com.company.plugin.index;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 测试索引包：导出内容只含相对路径，导入时按内容哈希复用未修改文件的记录
+ * 文件按 .idea/encodings.xml 的编码解码，编码变化的文件不复用
+ */
+public class ZyIndexBundleTest extends BasePlatformTestCase {
+
+    private Path root;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        root = Files.createTempDirectory("zy-bundle");
+        write("model/Users.zy", "namespace Model\nclass Users {\n    function age() {}\n}\n");
+        write("logic/Orders.zy", "namespace Logic\nclass Orders {\n}\n");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testExportRecordsRelativePathsAndClasses() throws Exception {
+        Path out = root.resolve(".idea/index/" + ZyIndexBundle.BUNDLE_FILE_NAME);
+        assertEquals(2, ZyIndexBundle.export(root, out));
+
+        ZyIndexBundle.Bundle bundle = ZyIndexBundle.read(out);
+        assertNotNull(bundle);
+        assertEquals(ZyIndexBundle.BUNDLE_VERSION, bundle.version);
+        assertEquals("[logic/Orders.zy, model/Users.zy]", bundle.files.keySet().toString());
+        ZyIndexBundle.BundleFile users = bundle.files.get("model/Users.zy");
+        assertEquals(1, users.classes.size());
+        assertEquals("Model\\Users", users.classes.get(0).fqn);
+        assertNull("bundle must not contain machine-specific paths", users.classes.get(0).filePath);
+    }
+
+    public void testImportReusesRecordsWithMatchingHash() throws Exception {
+        Path out = root.resolve(".idea/index/" + ZyIndexBundle.BUNDLE_FILE_NAME);
+        ZyIndexBundle.export(root, out);
+        ZyIndexBundle.Bundle bundle = ZyIndexBundle.read(out);
+        assertNotNull(bundle);
+
+        // 修改一个文件并新增一个文件：只有这两个需要重新解析
+        write("logic/Orders.zy", "namespace Logic\nclass Orders {\n    function total() {}\n}\n");
+        write("logic/Items.zy", "namespace Logic\nclass Items {\n}\n");
+        Map<String, ZyIndexBundle.BundleFile> local = new TreeMap<>();
+        ZyIndexBundle.ImportResult result = ZyIndexBundle.describeLocal(root, bundle, local);
+
+        assertEquals(1, result.reused);
+        assertEquals(2, result.reparsed);
+        assertSame("unchanged file keeps the prebuilt record", bundle.files.get("model/Users.zy"), local.get("model/Users.zy"));
+        assertEquals("total", local.get("logic/Orders.zy").classes.get(0).members.get(0).name);
+        assertEquals("Logic\\Items", local.get("logic/Items.zy").classes.get(0).fqn);
+    }
+
+    public void testFilesDecodedWithProjectEncoding() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        String legacy = "// 旧代码\nnamespace Legacy\nclass Old {\n}\n";
+        write(".idea/encodings.xml", "<project version=\"4\">\n  <component name=\"Encoding\">\n" +
+                "    <file url=\"file://$PROJECT_DIR$/legacy\" charset=\"GBK\" />\n  </component>\n</project>\n");
+        write("legacy/Old.zy", legacy, gbk);
+        Path out = root.resolve(".idea/index/" + ZyIndexBundle.BUNDLE_FILE_NAME);
+        ZyIndexBundle.export(root, out);
+
+        ZyIndexBundle.Bundle bundle = ZyIndexBundle.read(out);
+        assertNotNull(bundle);
+        ZyIndexBundle.BundleFile old = bundle.files.get("legacy/Old.zy");
+        assertEquals(gbk.name(), old.charset);
+        assertEquals(StandardCharsets.UTF_8.name(), bundle.files.get("model/Users.zy").charset);
+        ZyJsonIndexStore.SymbolEntry cls = old.symbols.stream().filter(e -> "Old".equals(e.name)).findFirst().orElse(null);
+        assertNotNull(cls);
+        assertEquals("offset counts decoded characters", legacy.indexOf("Old"), cls.offset);
+
+        // 去掉编码映射后同一字节内容按 UTF-8 解码：该文件不能复用包内记录
+        Files.delete(root.resolve(".idea/encodings.xml"));
+        Map<String, ZyIndexBundle.BundleFile> local = new TreeMap<>();
+        ZyIndexBundle.ImportResult result = ZyIndexBundle.describeLocal(root, bundle, local);
+        assertEquals(2, result.reused);
+        assertEquals(1, result.reparsed);
+        assertEquals(StandardCharsets.UTF_8.name(), local.get("legacy/Old.zy").charset);
+    }
+
+    private void write(String relativePath, String text) throws Exception {
+        write(relativePath, text, StandardCharsets.UTF_8);
+    }
+
+    private void write(String relativePath, String text, Charset charset) throws Exception {
+        Path file = root.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text, charset);
+    }
+}
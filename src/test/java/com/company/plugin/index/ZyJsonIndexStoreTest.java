@@ -0,0 +1,174 @@
+package com.company.plugin.index;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 测试目录索引的命名空间分段：同一命名空间的多个目录各占一个分段，单目录重建只替换自己的分段
+ * 以及带校验头的索引文件：校验失败的文件按清单映射回来源目录，只重建这些目录
+ */
+public class ZyJsonIndexStoreTest extends BasePlatformTestCase {
+
+    // 测试文件所在的项目相对目录
+    private static final String ROOT = "segtest";
+
+    private Path base;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        String basePath = getProject().getBasePath();
+        assertNotNull("light project must have a base path", basePath);
+        base = Path.of(basePath);
+        write("a/A.zy", "namespace Shared\nclass A {\n}\nfunction helperA() {}\n");
+        write("b/B.zy", "namespace Shared\nclass B {\n}\n");
+        write("c/C.zy", "class C {\n}\n");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            delete(base.resolve(ROOT));
+            delete(ZyJsonIndexStore.getIndexRoot(getProject()));
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testDirectoriesSharingNamespaceKeepTheirOwnSegments() {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+
+        ZyJsonIndexStore.NamespaceIndex shared = ZyJsonIndexStore.readNamespaceAggregate(getProject(), "Shared");
+        assertNotNull(shared);
+        assertEquals(List.of(ROOT + "/a", ROOT + "/b"), List.copyOf(shared.segments.keySet()));
+        assertEquals(2, shared.summary.fileCount);
+        assertEquals(2, ZyJsonIndexStore.readNamespaceIndex(getProject(), "Shared").files.size());
+
+        ZyJsonIndexStore.DirIndex plain = ZyJsonIndexStore.readDirIndex(getProject(), ROOT + "/c");
+        assertNotNull("directory without namespace keeps its own file", plain);
+        assertNull(plain.namespace);
+    }
+
+    public void testRebuildingOneDirectoryReplacesOnlyItsSegment() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+        long untouched = segment("Shared", "b").generatedAt;
+        int before = segment("Shared", "a").summary.symbolCount;
+
+        write("a/A.zy", "namespace Shared\nclass A {\n}\nclass A2 {\n}\nfunction helperA() {}\n");
+        ZyJsonIndexStore.rebuildDirIndexes(getProject(), List.of(base.resolve(ROOT + "/a").toString()));
+
+        assertEquals(before + 1, segment("Shared", "a").summary.symbolCount);
+        assertEquals("other directory's segment is not rewritten", untouched, segment("Shared", "b").generatedAt);
+    }
+
+    public void testNamespaceChangeMovesSegment() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+
+        write("b/B.zy", "namespace Other\nclass B {\n}\n");
+        ZyJsonIndexStore.rebuildDirIndexes(getProject(), List.of(base.resolve(ROOT + "/b").toString()));
+
+        assertEquals(List.of(ROOT + "/a"), List.copyOf(ZyJsonIndexStore.readNamespaceAggregate(getProject(), "Shared").segments.keySet()));
+        assertEquals(List.of(ROOT + "/b"), List.copyOf(ZyJsonIndexStore.readNamespaceAggregate(getProject(), "Other").segments.keySet()));
+    }
+
+    public void testCancelledBuildKeepsExistingIndexes() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+        Path shared = ZyJsonIndexStore.getNamespaceIndexPath(getProject(), "Shared");
+        Path plain = ZyJsonIndexStore.getDirIndexPath(getProject(), ROOT + "/c");
+        FileTime sharedWritten = Files.getLastModifiedTime(shared);
+        FileTime plainWritten = Files.getLastModifiedTime(plain);
+        write("d/D.zy", "namespace Fresh\nclass D {\n}\n");
+
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        indicator.cancel();
+        try {
+            ProgressManager.getInstance().runProcess(() -> ZyJsonIndexStore.buildAllDirIndexes(getProject()), indicator);
+        } catch (ProcessCanceledException ignored) {
+            // 取消是否传出 runProcess 不影响断言：磁盘上的索引必须保持原样
+        }
+
+        assertEquals("existing namespace file survives", sharedWritten, Files.getLastModifiedTime(shared));
+        assertEquals("existing directory file survives", plainWritten, Files.getLastModifiedTime(plain));
+        assertFalse("partial results are not written", Files.exists(ZyJsonIndexStore.getNamespaceIndexPath(getProject(), "Fresh")));
+        assertTrue(ZyJsonIndexStore.validateAll(getProject()).isEmpty());
+    }
+
+    public void testStartupValidationRebuildsOnlyCorruptedFile() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+        Path shared = ZyJsonIndexStore.getNamespaceIndexPath(getProject(), "Shared");
+        Path plain = ZyJsonIndexStore.getDirIndexPath(getProject(), ROOT + "/c");
+        FileTime plainWritten = Files.getLastModifiedTime(plain);
+        corrupt(shared);
+
+        assertEquals(List.of(shared), ZyJsonIndexStore.validateAll(getProject()));
+        assertEquals(1, ZyJsonIndexStore.validateAndRepair(getProject()));
+
+        assertTrue(ZyJsonIndexStore.validateAll(getProject()).isEmpty());
+        assertEquals(List.of(ROOT + "/a", ROOT + "/b"), List.copyOf(ZyJsonIndexStore.readNamespaceAggregate(getProject(), "Shared").segments.keySet()));
+        assertEquals("valid file is not rewritten", plainWritten, Files.getLastModifiedTime(plain));
+    }
+
+    public void testFailedReadSchedulesRepair() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+        Path plain = ZyJsonIndexStore.getDirIndexPath(getProject(), ROOT + "/c");
+        corrupt(plain);
+
+        assertNull(ZyJsonIndexStore.readDirIndex(getProject(), ROOT + "/c"));
+        assertEquals(1, ZyJsonIndexStore.repairCorrupted(getProject()));
+        assertNotNull(ZyJsonIndexStore.readDirIndex(getProject(), ROOT + "/c"));
+        assertEquals(0, ZyJsonIndexStore.repairCorrupted(getProject()));
+    }
+
+    public void testLeftoverTempFileIsRemoved() throws Exception {
+        ZyJsonIndexStore.buildAllDirIndexes(getProject());
+        Path tmp = ZyJsonIndexStore.getIndexRoot(getProject()).resolve("ns_Shared.index.json.tmp");
+        Files.writeString(tmp, "{\"truncated", StandardCharsets.UTF_8);
+
+        assertTrue(ZyJsonIndexStore.validateAll(getProject()).isEmpty());
+        assertFalse(Files.exists(tmp));
+    }
+
+    // 改写正文最后一个字节，长度不变、CRC 不再匹配
+    private static void corrupt(Path file) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+    }
+
+    private ZyJsonIndexStore.DirIndex segment(String namespace, String dir) {
+        ZyJsonIndexStore.NamespaceIndex agg = ZyJsonIndexStore.readNamespaceAggregate(getProject(), namespace);
+        assertNotNull(agg);
+        ZyJsonIndexStore.DirIndex segment = agg.segments.get(ROOT + "/" + dir);
+        assertNotNull("missing segment " + dir, segment);
+        return segment;
+    }
+
+    private void write(String relativePath, String text) throws Exception {
+        Path file = base.resolve(ROOT).resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        VirtualFile dir = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(base.resolve(ROOT));
+        assertNotNull(dir);
+        VfsUtil.markDirtyAndRefresh(false, true, true, dir);
+    }
+
+    private static void delete(Path root) throws Exception {
+        if (Files.notExists(root)) return;
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
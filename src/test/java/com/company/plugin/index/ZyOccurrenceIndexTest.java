@@ -0,0 +1,64 @@
+package com.company.plugin.index;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 测试标识符出现倒排索引：键的提取规则、与类结构扫描共用一遍切分、按文件增量更新
+ */
+public class ZyOccurrenceIndexTest extends BasePlatformTestCase {
+
+    private static final String CODE = "namespace app\n" +
+            "class Users {\n" +
+            "    function age() { return 42; } // comment\n" +
+            "}\n" +
+            "$u = new Users() /* block */\n" +
+            "echo \"string words\"\n";
+
+    public void testKeysSkipCommentsAndStrings() {
+        Set<String> keys = new HashSet<>(new ZyOccurrenceIndex().keys(CODE));
+        assertEquals(new HashSet<>(List.of("namespace", "app", "class", "Users", "function", "age", "return", "42", "new", "echo")), keys);
+    }
+
+    public void testClassScanCollectsTheSameKeys() {
+        Set<String> identifiers = new HashSet<>();
+        List<ZySymbolIndexService.ClassState> classes = ZyClassScanner.scan(CODE, identifiers);
+        assertEquals(1, classes.size());
+        assertEquals(new HashSet<>(new ZyOccurrenceIndex().keys(CODE)), identifiers);
+    }
+
+    public void testUpdateReplacesFileEntries() {
+        ZyOccurrenceIndex index = new ZyOccurrenceIndex();
+        index.update("/p/a.zy", 1L, CODE);
+        index.update("/p/b.zy", 1L, "$x = new Users()\n");
+        assertEquals(List.of("/p/a.zy", "/p/b.zy"), sorted(index.files("Users")));
+        assertEquals(List.of("/p/a.zy"), index.files("age"));
+
+        index.update("/p/a.zy", 2L, "function height() {}\n");
+        assertEquals(List.of("/p/b.zy"), index.files("Users"));
+        assertTrue(index.files("age").isEmpty());
+        assertEquals(List.of("/p/a.zy"), index.files("height"));
+
+        index.remove("/p/b.zy");
+        assertTrue(index.files("Users").isEmpty());
+    }
+
+    public void testFindOccurrencesMatchesWholeTokens() {
+        int[] offsets = ZyOccurrenceIndex.findOccurrences(CODE, "Users");
+        assertEquals(2, offsets.length);
+        assertEquals(CODE.indexOf("Users"), offsets[0]);
+        assertEquals(CODE.lastIndexOf("Users"), offsets[1]);
+        assertEquals(0, ZyOccurrenceIndex.findOccurrences(CODE, "User").length);
+        assertEquals(0, ZyOccurrenceIndex.findOccurrences(CODE, "words").length);
+    }
+
+    private static List<String> sorted(List<String> files) {
+        String[] array = files.toArray(new String[0]);
+        Arrays.sort(array);
+        return List.of(array);
+    }
+}
@@ -0,0 +1,57 @@
+package com.company.plugin.index;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 测试三元组文本索引：不区分大小写的候选收窄、跨行不登记、按文件更新与持久化往返
+ */
+public class ZyTrigramIndexTest extends BasePlatformTestCase {
+
+    private ZyTrigramIndex index() {
+        ZyTrigramIndex index = new ZyTrigramIndex();
+        index.update("/p/a.zy", 1L, "class UserRepository {}\n// TODO cleanup\n");
+        index.update("/p/b.zy", 2L, "echo \"user name\"\n");
+        return index;
+    }
+
+    public void testCandidatesAreCaseInsensitive() {
+        ZyTrigramIndex index = index();
+        assertEquals(List.of("/p/a.zy"), index.candidates("userrepo"));
+        assertEquals(2, index.candidates("USER").size());
+        // 注释与字符串同样登记
+        assertEquals(List.of("/p/a.zy"), index.candidates("todo"));
+        assertTrue(index.candidates("missing").isEmpty());
+    }
+
+    public void testShortQueryCannotNarrow() {
+        assertNull(index().candidates("us"));
+    }
+
+    public void testTrigramsDoNotSpanLines() {
+        assertEquals(Set.of("abc", "def"), ZyTrigramIndex.trigrams("abc\ndef"));
+        // 跨行的查询按行拆分，各行内的三元组仍可命中
+        assertEquals(List.of("/p/a.zy"), index().candidates("{}\n// TODO"));
+    }
+
+    public void testUpdateAndPersistence() throws Exception {
+        ZyTrigramIndex index = index();
+        index.update("/p/b.zy", 3L, "echo \"order\"\n");
+        assertEquals(List.of("/p/a.zy"), index.candidates("user"));
+
+        Path file = Files.createTempFile("zy-trigrams", ".idx");
+        try {
+            index.save(file);
+            ZyTrigramIndex loaded = ZyTrigramIndex.load(file);
+            assertNotNull(loaded);
+            assertEquals(List.of("/p/b.zy"), loaded.candidates("order"));
+            assertEquals(Long.valueOf(3L), loaded.timestamp("/p/b.zy"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
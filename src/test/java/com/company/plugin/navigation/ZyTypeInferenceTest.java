@@ -0,0 +1,60 @@
+package com.company.plugin.navigation;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * 测试成员访问链的接收者类型推断：new、带类型参数、$this、属性类型与方法返回类型
+ */
+public class ZyTypeInferenceTest extends BasePlatformTestCase {
+
+    private static final String CODE = "namespace app\n" +
+            "class Profile {\n" +
+            "    public string $name\n" +
+            "}\n" +
+            "class User {\n" +
+            "    public function profile(): Profile {}\n" +
+            "}\n" +
+            "class Repo {\n" +
+            "    private User $owner\n" +
+            "    public function find(): User {}\n" +
+            "    public function run(Repo $r) {\n" +
+            "        $u = $r->find()\n" +
+            "        $u->profile()->name\n" +
+            "        $this->owner->profile()\n" +
+            "        $p = new Profile() // $p->ignored\n" +
+            "        $p->name\n" +
+            "    }\n" +
+            "}\n" +
+            "$top = new Repo()\n" +
+            "$top->find()->missing\n";
+
+    public void testTypedParameterAndReturnType() {
+        assertEquals("Repo", receiverOf("find()\n        $u"));
+        assertEquals("User", receiverOf("profile()->name"));
+        assertEquals("Profile", receiverOf("name\n        $this"));
+    }
+
+    public void testThisAndPropertyType() {
+        assertEquals("Repo", receiverOf("owner->profile"));
+        assertEquals("User", receiverOf("profile()\n        $p"));
+    }
+
+    public void testNewExpressionAndTopLevelCode() {
+        assertEquals("Profile", receiverOf("name\n    }"));
+        assertEquals("User", receiverOf("missing"));
+    }
+
+    public void testNotAMemberAccess() {
+        ZyTypeInference inference = ZyTypeInference.of(myFixture.configureByText("types.zy", CODE));
+        assertNull(inference.receiverType(getProject(), CODE.indexOf("Profile {")));
+    }
+
+    // probe 处成员名的接收者类型（短名）
+    private String receiverOf(String probe) {
+        int offset = CODE.indexOf(probe);
+        assertTrue("probe not found: " + probe, offset >= 0);
+        ZyTypeInference inference = ZyTypeInference.of(myFixture.configureByText("types.zy", CODE));
+        String type = inference.receiverType(getProject(), offset);
+        return type != null ? ZyTypeInference.shortName(type) : null;
+    }
+}
@@ -0,0 +1,251 @@
+package com.company.plugin.perf;
+
+import com.company.plugin.fixtures.ZyCorpusGenerator;
+import com.company.plugin.index.ZyJsonIndexStore;
+import com.company.plugin.index.ZySymbolIndexService;
+import com.company.plugin.navigation.ZyGotoDeclarationHandler;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 性能回归测试：在合成的大型项目上为关键操作设置耗时与分配预算
+ * - 首次建索引、单文件修改后的增量重建
+ * - 跳转到定义：同文件、跨文件、成员访问
+ * - 空前缀与单字符前缀补全（后者覆盖项目符号名表）、两万行文件高亮
+ *
+ * 预算均可通过系统属性覆盖（./gradlew perfTest -Pzy.perf.xxx=...）：
+ * - zy.perf.files：语料文件数（默认 2000），zy.perf.seed：语料种子
+ * - zy.perf.budget.<操作>.ms / .mb：单项耗时与分配预算
+ * - zy.perf.scale：耗时预算整体倍率（慢机器/CI 上调大）
+ * - zy.perf.report：结果输出文件（每行一条 JSON）
+ * 分配量只统计当前（测试）线程
+ */
+public class ZyPerformanceTest extends BasePlatformTestCase {
+
+    // 生成语料后的标记文件，同一轻量项目内只生成一次
+    private static final String MARKER = ".zy-perf-corpus";
+
+    private Path basePath;
+    private Map<String, String> corpus;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        String base = getProject().getBasePath();
+        assertNotNull("light project must have a base path", base);
+        basePath = Path.of(base);
+
+        ZyCorpusGenerator.Config config = new ZyCorpusGenerator.Config(longProperty("zy.perf.seed", 42L), (int) longProperty("zy.perf.files", 2000L));
+        config.withPathological(1);
+        config.hugeFileLines = 20_000;
+        corpus = new ZyCorpusGenerator(config).generateToMap();
+        Path marker = basePath.resolve(MARKER);
+        if (Files.notExists(marker)) {
+            for (Map.Entry<String, String> e : corpus.entrySet()) {
+                Path file = basePath.resolve(e.getKey());
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, e.getValue(), StandardCharsets.UTF_8);
+            }
+            Files.writeString(marker, String.valueOf(config.seed));
+        }
+        VirtualFile baseDir = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(basePath);
+        assertNotNull(baseDir);
+        VfsUtil.markDirtyAndRefresh(false, true, true, baseDir);
+    }
+
+    public void testInitialIndexBuild() {
+        ZySymbolIndexService service = ZySymbolIndexService.getInstance(getProject());
+        service.invalidate();
+        measure("initialIndexBuild", 60_000, 4096, () -> {
+            service.ensureUpToDate();
+            return null;
+        });
+        assertTrue("JSON indexes should exist after build", ZyJsonIndexStore.hasIndexes(getProject()));
+    }
+
+    public void testIncrementalReindexAfterSingleEdit() throws Exception {
+        ZySymbolIndexService service = ZySymbolIndexService.getInstance(getProject());
+        service.ensureUpToDate();
+        String rel = firstClassFile();
+        Path file = basePath.resolve(rel);
+        // 语料只在首次生成，修改须在结束后还原，否则后续运行的语料会逐次漂移
+        try {
+            Files.writeString(file, corpus.get(rel) + "\nfunction perfEdit() {}\n", StandardCharsets.UTF_8);
+            VirtualFile vf = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(file);
+            assertNotNull(vf);
+            vf.refresh(false, false);
+            // 等待 ensureUpToDate 节流窗口结束，不计入耗时
+            Thread.sleep(1_600);
+            measure("incrementalReindex", 3_000, 512, () -> {
+                service.ensureUpToDate();
+                return null;
+            });
+        } finally {
+            Files.writeString(file, corpus.get(rel), StandardCharsets.UTF_8);
+            VirtualFile vf = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(file);
+            if (vf != null) vf.refresh(false, false);
+        }
+    }
+
+    public void testGotoDeclarationLocal() {
+        String rel = firstClassFile();
+        String text = corpus.get(rel);
+        // $this->xxx( 调用同类方法
+        int at = text.indexOf("$this->") + "$this->".length();
+        gotoAt("gotoLocal", rel, at + 1, 1_000);
+    }
+
+    public void testGotoDeclarationCrossFile() {
+        String rel = firstClassFileWith("$other = new ");
+        String text = corpus.get(rel);
+        // new X() 中的类名，定义在其它文件
+        int at = text.indexOf("$other = new ") + "$other = new ".length();
+        gotoAt("gotoCrossFile", rel, at + 1, 2_000);
+    }
+
+    public void testGotoDeclarationMemberAccess() {
+        String rel = firstClassFileWith("$other = new ");
+        String text = corpus.get(rel);
+        // new X()->m() 中的方法名
+        int call = text.indexOf("$other = new ");
+        int at = text.indexOf("()->", call) + "()->".length();
+        gotoAt("gotoMemberAccess", rel, at + 1, 2_000);
+    }
+
+    public void testCompletionAtBlankPrefix() {
+        String rel = firstClassFile();
+        String text = corpus.get(rel);
+        VirtualFile vf = findCorpusFile(rel);
+        myFixture.configureFromExistingVirtualFile(vf);
+        // 类体中第一个空行（属性声明之后；文件开头 namespace 后的空行不在类体内）
+        int at = text.indexOf("\n\n", text.indexOf("\nclass ")) + 1;
+        myFixture.getEditor().getCaretModel().moveToOffset(at);
+        measure("completionBlankPrefix", 2_000, 256, () -> myFixture.completeBasic());
+    }
+
+    public void testCompletionAtOneCharPrefix() {
+        // 空前缀不查项目符号：以语料类名的首字母补全，走名表的前缀查找
+        String text = corpus.get(firstClassFile());
+        int at = text.indexOf("\nclass ") + "\nclass ".length();
+        String cls = text.substring(at, text.indexOf(' ', at));
+        ZySymbolIndexService.getInstance(getProject()).ensureUpToDate();
+        myFixture.configureByText("OneCharPrefix.zy", "namespace App\\Perf;\n" +
+                "class OneCharPrefix {\n" +
+                "    public function run() {\n" +
+                "        " + cls.charAt(0) + "<caret>\n" +
+                "    }\n" +
+                "}\n");
+        measure("completionOneCharPrefix", 2_000, 256, () -> myFixture.completeBasic());
+        List<String> items = myFixture.getLookupElementStrings();
+        assertNotNull("one-char prefix should show a lookup", items);
+        assertTrue("project class " + cls + " should be offered", items.contains(cls));
+    }
+
+    public void testHighlighting20kLines() {
+        String text = ZyCorpusGenerator.hugeFile(longProperty("zy.perf.seed", 42L), "App\\Perf", "Highlight", 20_000);
+        myFixture.configureByText("Highlight20k.zy", text);
+        measure("highlight20kLines", 10_000, 1024, () -> myFixture.doHighlighting());
+    }
+
+    // ---------------- 工具 ----------------
+
+    private void gotoAt(String name, String rel, int offset, long defaultMs) {
+        VirtualFile vf = findCorpusFile(rel);
+        myFixture.configureFromExistingVirtualFile(vf);
+        var editor = myFixture.getEditor();
+        editor.getCaretModel().moveToOffset(offset);
+        var file = myFixture.getFile();
+        ZyGotoDeclarationHandler handler = new ZyGotoDeclarationHandler();
+        ZySymbolIndexService.getInstance(getProject()).ensureUpToDate();
+        PsiElement[] targets = measure(name, defaultMs, 256,
+                () -> handler.getGotoDeclarationTargets(file.findElementAt(offset), offset, editor));
+        assertNotNull(name + " should return targets", targets);
+    }
+
+    private VirtualFile findCorpusFile(String rel) {
+        VirtualFile vf = LocalFileSystem.getInstance().refreshAndFindFileByNioFile(basePath.resolve(rel));
+        assertNotNull("corpus file missing: " + rel, vf);
+        return vf;
+    }
+
+    private String firstClassFile() {
+        return firstClassFileWith("$this->");
+    }
+
+    private String firstClassFileWith(String needle) {
+        for (Map.Entry<String, String> e : corpus.entrySet()) {
+            if (e.getKey().startsWith(ZyCorpusGenerator.PATHOLOGICAL_DIR)) continue;
+            if (e.getValue().contains("class ") && e.getValue().contains(needle)) return e.getKey();
+        }
+        fail("no corpus file contains " + needle);
+        return null;
+    }
+
+    /**
+     * 执行并记录一项操作，超出耗时或分配预算时失败
+     */
+    private <T> T measure(String name, long defaultMs, long defaultMb, ThrowingSupplier<T> op) {
+        double scale = Double.parseDouble(System.getProperty("zy.perf.scale", "1"));
+        long budgetMs = (long) (longProperty("zy.perf.budget." + name + ".ms", defaultMs) * scale);
+        long budgetMb = longProperty("zy.perf.budget." + name + ".mb", defaultMb);
+
+        long allocBefore = allocatedBytes();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = op.get();
+        } catch (Exception e) {
+            throw new AssertionError(name + " failed", e);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        long allocMb = Math.max(0, allocatedBytes() - allocBefore) / (1024 * 1024);
+
+        String line = String.format("{\"name\":\"%s\",\"ms\":%d,\"budgetMs\":%d,\"allocMb\":%d,\"budgetMb\":%d,\"files\":%d}",
+                name, ms, budgetMs, allocMb, budgetMb, corpus.size());
+        System.out.println("[zy-perf] " + line);
+        report(line);
+        assertTrue(name + " took " + ms + " ms, budget " + budgetMs + " ms", ms <= budgetMs);
+        assertTrue(name + " allocated " + allocMb + " MB, budget " + budgetMb + " MB", allocMb <= budgetMb);
+        return result;
+    }
+
+    private static void report(String line) {
+        Path out = Path.of(System.getProperty("zy.perf.report", "build/reports/zy-perf/results.jsonl"));
+        try {
+            if (out.getParent() != null) Files.createDirectories(out.getParent());
+            Files.writeString(out, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("[zy-perf] cannot write report: " + e.getMessage());
+        }
+    }
+
+    private static long allocatedBytes() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    private static long longProperty(String key, long def) {
+        String v = System.getProperty(key);
+        return v == null || v.isEmpty() ? def : Long.parseLong(v);
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
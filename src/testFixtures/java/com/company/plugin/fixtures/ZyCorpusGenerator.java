@@ -0,0 +1,438 @@
+package com.company.plugin.fixtures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+
+/**
+ * 确定性的合成 ZY 语料生成器（规模测试用）
+ * - 相同 Config（含 seed）产出完全相同的目录树与文件内容，与生成顺序无关
+ * - 普通文件：按目录声明命名空间，含 use/别名、带属性与方法的类、跨文件 new X()->m() 调用链、脚本文件
+ * - 病态文件（位于 src/pathological）：超大文件、深层嵌套、括号不配对/字符串未闭合
+ * 供单元测试、JMH 基准与命令行索引器共用，只依赖 JDK
+ */
+public final class ZyCorpusGenerator {
+
+    // 模块名：决定目录与命名空间前缀
+    private static final String[] MODULES = {
+            "Http", "Model", "Logic", "Service", "Auth", "Order", "Billing", "Report", "Cache", "Queue", "Mail", "Search"
+    };
+    // 类名词根：同一名称会出现在多个命名空间，模拟真实项目中的同名类歧义
+    private static final String[] NOUNS = {
+            "Users", "Server", "Request", "Response", "Order", "Invoice", "Payment", "Session", "Token", "Product",
+            "Cart", "Report", "Mailer", "Job", "Worker", "Router", "Config", "Logger", "Cache", "Client"
+    };
+    // 方法名词根
+    private static final String[] VERBS = {
+            "get", "set", "find", "save", "load", "build", "send", "handle", "render", "parse", "check", "update"
+    };
+    // 属性名
+    private static final String[] FIELDS = {
+            "name", "age", "id", "status", "total", "items", "createdAt", "owner", "path", "options"
+    };
+    private static final String[] TYPES = {"string", "int", "bool", "array"};
+
+    /** 病态文件所在目录与命名空间 */
+    public static final String PATHOLOGICAL_DIR = "src/pathological";
+    public static final String PATHOLOGICAL_NAMESPACE = "App\\Pathological";
+
+    /**
+     * 生成参数
+     */
+    public static final class Config {
+        /** 随机种子 */
+        public long seed = 42L;
+        /** 普通文件数 */
+        public int files = 1_000;
+        /** 每个目录的文件数 */
+        public int filesPerDir = 20;
+        /** 每个类的方法数范围 */
+        public int minMethods = 2;
+        public int maxMethods = 8;
+        /** 每个文件引用的其它类数量上限（use + new X()->m()） */
+        public int maxReferences = 4;
+        /** 每 N 个文件中有一个脚本文件（无类，仅顶层调用），0 表示不生成 */
+        public int scriptEvery = 10;
+        /** 超大文件数量与行数 */
+        public int hugeFiles = 0;
+        public int hugeFileLines = 50_000;
+        /** 深层嵌套文件数量与嵌套深度 */
+        public int deepFiles = 0;
+        public int nestingDepth = 200;
+        /** 括号不配对/字符串未闭合的文件数量 */
+        public int unbalancedFiles = 0;
+
+        public Config() {}
+
+        public Config(long seed, int files) {
+            this.seed = seed;
+            this.files = files;
+        }
+
+        /**
+         * 附带每类病态文件各 count 个
+         */
+        public Config withPathological(int count) {
+            hugeFiles = count;
+            deepFiles = count;
+            unbalancedFiles = count;
+            return this;
+        }
+    }
+
+    /**
+     * 生成统计
+     */
+    public static final class Stats {
+        public int files;
+        public long bytes;
+        public long lines;
+    }
+
+    private final Config config;
+
+    public ZyCorpusGenerator(Config config) {
+        if (config.files < 0 || config.filesPerDir < 1 || config.minMethods < 1 || config.maxMethods < config.minMethods) {
+            throw new IllegalArgumentException("Invalid corpus config");
+        }
+        this.config = config;
+    }
+
+    /**
+     * 逐个文件回调（相对路径, 内容），不在内存中保留整个语料
+     */
+    public Stats generate(BiConsumer<String, String> sink) {
+        Stats stats = new Stats();
+        for (int i = 0; i < config.files; i++) {
+            emit(sink, stats, relativePath(i), fileText(i));
+        }
+        for (int i = 0; i < config.hugeFiles; i++) {
+            emit(sink, stats, PATHOLOGICAL_DIR + "/Huge" + i + ".zy", hugeFile(config.seed + i, PATHOLOGICAL_NAMESPACE, "Huge" + i, config.hugeFileLines));
+        }
+        for (int i = 0; i < config.deepFiles; i++) {
+            emit(sink, stats, PATHOLOGICAL_DIR + "/Deep" + i + ".zy", deepFile(i));
+        }
+        for (int i = 0; i < config.unbalancedFiles; i++) {
+            emit(sink, stats, PATHOLOGICAL_DIR + "/Unbalanced" + i + ".zy", unbalancedFile(i));
+        }
+        return stats;
+    }
+
+    /**
+     * 生成到内存（相对路径 -> 内容），适合小规模测试
+     */
+    public Map<String, String> generateToMap() {
+        Map<String, String> files = new LinkedHashMap<>();
+        generate(files::put);
+        return files;
+    }
+
+    /**
+     * 生成到磁盘目录
+     */
+    public Stats writeTo(Path root) throws IOException {
+        try {
+            return generate((rel, text) -> {
+                try {
+                    Path file = root.resolve(rel);
+                    Files.createDirectories(file.getParent());
+                    Files.writeString(file, text, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 生成单个大文件文本（约 lines 行），用于基准测试
+     */
+    public static String hugeFile(long seed, String namespace, String classPrefix, int lines) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        StringBuilder sb = new StringBuilder(lines * 36);
+        int[] count = {0};
+        line(sb, count, "namespace " + namespace + ";");
+        line(sb, count, "");
+        line(sb, count, "use App\\Service\\G0\\Server;");
+        line(sb, count, "use App\\Logic\\G0\\Users as LogicUsers;");
+        line(sb, count, "");
+        int c = 0;
+        while (count[0] < lines) {
+            String cls = classPrefix + "Part" + c;
+            line(sb, count, "class " + cls + " {");
+            appendProperties(sb, count, rnd, 3);
+            line(sb, count, "");
+            for (int m = 0; m < 6 && count[0] < lines; m++) {
+                String method = VERBS[m % VERBS.length] + m;
+                String next = VERBS[(m + 1) % 6 % VERBS.length] + ((m + 1) % 6);
+                line(sb, count, "    public function " + method + "($arg): string {");
+                line(sb, count, "        $value = new Server()->handle($arg);");
+                line(sb, count, "        if ($value != null) {");
+                line(sb, count, "            return \"" + cls + "::" + method + "\" + $value;");
+                line(sb, count, "        }");
+                line(sb, count, "        // 调用同类方法与跨文件类");
+                line(sb, count, "        $this->" + next + "($arg);");
+                line(sb, count, "        return new LogicUsers()->age();");
+                line(sb, count, "    }");
+                line(sb, count, "");
+            }
+            line(sb, count, "}");
+            line(sb, count, "");
+            line(sb, count, "function " + lowerFirst(cls) + "Helper($x) {");
+            line(sb, count, "    return new " + cls + "()->" + VERBS[0] + "0($x);");
+            line(sb, count, "}");
+            line(sb, count, "");
+            c++;
+        }
+        return sb.toString();
+    }
+
+    // ---------------- 普通文件 ----------------
+
+    /** 文件 i 所在目录序号 */
+    private int dirIndex(int i) {
+        return i / config.filesPerDir;
+    }
+
+    /** 目录相对路径，如 src/model/g3 */
+    public String dirPath(int i) {
+        int d = dirIndex(i);
+        return "src/" + MODULES[d % MODULES.length].toLowerCase() + "/g" + (d / MODULES.length);
+    }
+
+    /** 文件 i 的命名空间，如 App\Model\G3 */
+    public String namespace(int i) {
+        int d = dirIndex(i);
+        return "App\\" + MODULES[d % MODULES.length] + "\\G" + (d / MODULES.length);
+    }
+
+    /** 文件 i 声明的类名（脚本文件返回 null） */
+    public String className(int i) {
+        if (isScript(i)) return null;
+        int k = i % config.filesPerDir;
+        int round = k / NOUNS.length;
+        return NOUNS[k % NOUNS.length] + (round == 0 ? "" : String.valueOf(round));
+    }
+
+    /** 文件 i 的类包含的方法名（第 m 个） */
+    public static String methodName(int m) {
+        return VERBS[m % VERBS.length] + (m / VERBS.length == 0 ? "" : String.valueOf(m / VERBS.length)) + "Item";
+    }
+
+    /** 文件 i 的类方法数 */
+    public int methodCount(int i) {
+        return config.minMethods + (int) (mix(config.seed, i, 1) % (config.maxMethods - config.minMethods + 1));
+    }
+
+    public String relativePath(int i) {
+        String cls = className(i);
+        return dirPath(i) + "/" + (cls != null ? cls : "script" + (i % config.filesPerDir)) + ".zy";
+    }
+
+    private boolean isScript(int i) {
+        return config.scriptEvery > 0 && i % config.scriptEvery == config.scriptEvery - 1;
+    }
+
+    private String fileText(int i) {
+        SplittableRandom rnd = new SplittableRandom(mix(config.seed, i, 0));
+        StringBuilder sb = new StringBuilder(2048);
+        int[] count = {0};
+        String ns = namespace(i);
+        line(sb, count, "namespace " + ns + (rnd.nextBoolean() ? ";" : ""));
+        line(sb, count, "");
+
+        // 跨文件引用：use（部分带别名）+ new X()->m() 调用链；目标方法保证在目标类中存在
+        int refs = config.files > 1 ? rnd.nextInt(config.maxReferences + 1) : 0;
+        String[] refNames = new String[refs];
+        int[] refTargets = new int[refs];
+        int used = 0;
+        for (int r = 0; r < refs; r++) {
+            int target = targetClassFile(rnd, i);
+            if (target < 0) continue;
+            String targetCls = className(target);
+            String alias = rnd.nextInt(3) == 0 ? targetCls + "Alias" + r : null;
+            line(sb, count, "use " + namespace(target) + "\\" + targetCls + (alias != null ? " as " + alias : "") + ";");
+            refNames[used] = alias != null ? alias : targetCls;
+            refTargets[used] = target;
+            used++;
+        }
+        line(sb, count, "");
+
+        String cls = className(i);
+        if (cls == null) {
+            // 脚本文件：顶层变量与链式调用
+            for (int r = 0; r < used; r++) {
+                String var = "$" + lowerFirst(refNames[r]) + r;
+                line(sb, count, var + " = new " + refNames[r] + "()");
+                line(sb, count, var + "->" + methodName(rnd.nextInt(methodCount(refTargets[r]))) + "()");
+            }
+            line(sb, count, "function main" + i + "() {");
+            for (int r = 0; r < used; r++) {
+                line(sb, count, "    new " + refNames[r] + "()->" + methodName(rnd.nextInt(methodCount(refTargets[r]))) + "();");
+            }
+            line(sb, count, "}");
+            return sb.toString();
+        }
+
+        line(sb, count, "class " + cls + " {");
+        appendProperties(sb, count, rnd, 1 + rnd.nextInt(4));
+        line(sb, count, "");
+        int methods = methodCount(i);
+        for (int m = 0; m < methods; m++) {
+            String type = TYPES[rnd.nextInt(TYPES.length)];
+            line(sb, count, "    public function " + methodName(m) + "($arg): " + type + " {");
+            if (used > 0) {
+                int r = rnd.nextInt(used);
+                line(sb, count, "        $other = new " + refNames[r] + "()->" + methodName(rnd.nextInt(methodCount(refTargets[r]))) + "();");
+            }
+            if (m > 0) {
+                line(sb, count, "        $this->" + methodName(rnd.nextInt(m)) + "($arg);");
+            }
+            if (rnd.nextBoolean()) {
+                line(sb, count, "        if ($arg != null) {");
+                line(sb, count, "            return $this->" + FIELDS[rnd.nextInt(FIELDS.length)] + ";");
+                line(sb, count, "        }");
+            }
+            line(sb, count, "        return $arg;");
+            line(sb, count, "    }");
+            line(sb, count, "");
+        }
+        line(sb, count, "}");
+        return sb.toString();
+    }
+
+    /**
+     * 选一个声明类的目标文件（不含自身）；没有可选目标时返回 -1
+     */
+    private int targetClassFile(SplittableRandom rnd, int self) {
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int t = rnd.nextInt(config.files);
+            if (t != self && !isScript(t)) return t;
+        }
+        return -1;
+    }
+
+    private static void appendProperties(StringBuilder sb, int[] count, SplittableRandom rnd, int n) {
+        for (int p = 0; p < n; p++) {
+            String field = FIELDS[(p + rnd.nextInt(FIELDS.length)) % FIELDS.length] + (p == 0 ? "" : String.valueOf(p));
+            // 混合 "public string $x;"、"string $x;" 与 "$x;" 三种写法
+            switch (rnd.nextInt(3)) {
+                case 0: line(sb, count, "    public " + TYPES[rnd.nextInt(TYPES.length)] + " $" + field + ";"); break;
+                case 1: line(sb, count, "    " + TYPES[rnd.nextInt(TYPES.length)] + " $" + field + ";"); break;
+                default: line(sb, count, "    $" + field + ";");
+            }
+        }
+    }
+
+    // ---------------- 病态文件 ----------------
+
+    /**
+     * 深层嵌套：一个方法中嵌套 nestingDepth 层 if/while 块
+     */
+    private String deepFile(int n) {
+        StringBuilder sb = new StringBuilder();
+        int[] count = {0};
+        line(sb, count, "namespace " + PATHOLOGICAL_NAMESPACE + ";");
+        line(sb, count, "");
+        line(sb, count, "class Deep" + n + " {");
+        line(sb, count, "    public function dive($x) {");
+        StringBuilder indent = new StringBuilder("        ");
+        for (int d = 0; d < config.nestingDepth; d++) {
+            line(sb, count, indent + (d % 2 == 0 ? "if ($x > " + d + ") {" : "while ($x < " + d + ") {"));
+            indent.append("    ");
+        }
+        line(sb, count, indent + "return new Deep" + n + "()->dive($x - 1);");
+        for (int d = config.nestingDepth - 1; d >= 0; d--) {
+            indent.setLength(indent.length() - 4);
+            line(sb, count, indent + "}");
+        }
+        line(sb, count, "    }");
+        line(sb, count, "");
+        line(sb, count, "    public function after() {}");
+        line(sb, count, "}");
+        return sb.toString();
+    }
+
+    /**
+     * 括号不配对与字符串未闭合：缺少右括号、多余右括号、未闭合字符串各出现一次
+     */
+    private String unbalancedFile(int n) {
+        StringBuilder sb = new StringBuilder();
+        int[] count = {0};
+        line(sb, count, "namespace " + PATHOLOGICAL_NAMESPACE + ";");
+        line(sb, count, "");
+        line(sb, count, "class Unbalanced" + n + " {");
+        line(sb, count, "    public function missingClose($x) {");
+        line(sb, count, "        if ($x) {");
+        line(sb, count, "            return 1;");
+        line(sb, count, "    }");
+        line(sb, count, "");
+        line(sb, count, "    public function extraClose() {");
+        line(sb, count, "        return 2;");
+        line(sb, count, "    }}");
+        line(sb, count, "}");
+        line(sb, count, "}");
+        line(sb, count, "");
+        line(sb, count, "function unterminated" + n + "() {");
+        line(sb, count, "    $s = \"never closed { function ghost() {");
+        line(sb, count, "}");
+        line(sb, count, "");
+        line(sb, count, "class AfterBroken" + n + " {");
+        line(sb, count, "    public function stillHere() {");
+        return sb.toString();
+    }
+
+    // ---------------- 工具 ----------------
+
+    /**
+     * 由种子、文件序号与用途派生独立随机数，保证各文件内容与生成顺序无关
+     */
+    private static long mix(long seed, int index, int salt) {
+        long z = seed + 0x9E3779B97F4A7C15L * (index + 1) + 0xBF58476D1CE4E5B9L * salt;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) & Long.MAX_VALUE;
+    }
+
+    private static String lowerFirst(String s) {
+        return s.isEmpty() ? s : Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static void line(StringBuilder sb, int[] count, String s) {
+        sb.append(s).append('\n');
+        count[0]++;
+    }
+
+    private static void emit(BiConsumer<String, String> sink, Stats stats, String rel, String text) {
+        sink.accept(rel, text);
+        stats.files++;
+        stats.bytes += text.getBytes(StandardCharsets.UTF_8).length;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') stats.lines++;
+        }
+    }
+
+    /**
+     * 命令行入口：ZyCorpusGenerator <outDir> [files] [seed] [pathological]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ZyCorpusGenerator <outDir> [files] [seed] [pathological]");
+            System.exit(2);
+        }
+        Config config = new Config(args.length > 2 ? Long.parseLong(args[2]) : 42L, args.length > 1 ? Integer.parseInt(args[1]) : 1_000);
+        if (args.length > 3) config.withPathological(Integer.parseInt(args[3]));
+        long start = System.currentTimeMillis();
+        Stats stats = new ZyCorpusGenerator(config).writeTo(Path.of(args[0]));
+        System.out.println("generated files=" + stats.files + ", lines=" + stats.lines + ", bytes=" + stats.bytes
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}